@@ -30,5 +30,13 @@ public interface PrettyPrinterConfig {
     return null;
   }
 
+  /**
+   * Expressions that are longer than this number of characters before normalization are printed without normalization and cut.
+   * Non-positive values mean that expressions are always printed in full.
+   */
+  default int getMaxExpressionLength() {
+    return 0;
+  }
+
   PrettyPrinterConfig DEFAULT = new PrettyPrinterConfig() {};
 }
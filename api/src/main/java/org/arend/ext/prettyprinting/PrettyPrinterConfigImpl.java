@@ -11,12 +11,14 @@ public class PrettyPrinterConfigImpl implements PrettyPrinterConfig {
   public EnumSet<PrettyPrinterFlag> expressionFlags;
   public NormalizationMode normalizationMode;
   public DefinitionRenamer definitionRenamer;
+  public int maxExpressionLength;
 
   public PrettyPrinterConfigImpl(PrettyPrinterConfig config) {
     isSingleLine = config.isSingleLine();
     expressionFlags = config.getExpressionFlags();
     normalizationMode = config.getNormalizationMode();
     definitionRenamer = config.getDefinitionRenamer();
+    maxExpressionLength = config.getMaxExpressionLength();
   }
 
   public PrettyPrinterConfigImpl() {
@@ -42,4 +44,9 @@ public class PrettyPrinterConfigImpl implements PrettyPrinterConfig {
   public DefinitionRenamer getDefinitionRenamer() {
     return definitionRenamer;
   }
+
+  @Override
+  public int getMaxExpressionLength() {
+    return maxExpressionLength;
+  }
 }
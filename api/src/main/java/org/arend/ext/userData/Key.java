@@ -1,7 +1,12 @@
 package org.arend.ext.userData;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class Key<T> {
+  private static final AtomicInteger ourNextId = new AtomicInteger();
+
   protected final String name;
+  private final int myId = ourNextId.getAndIncrement();
 
   public Key(String name) {
     this.name = name;
@@ -15,6 +20,18 @@ public class Key<T> {
     return value;
   }
 
+  /**
+   * Keys are numbered consecutively in the order of their creation.
+   */
+  public final int getId() {
+    return myId;
+  }
+
+  @Override
+  public int hashCode() {
+    return myId;
+  }
+
   @Override
   public String toString() {
     return name != null ? name : super.toString();
@@ -0,0 +1,84 @@
+package org.arend.core.context.param;
+
+import org.arend.core.expr.Expression;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * An immutable array view of a chain of {@link DependentLink}s.
+ * It provides constant time access to parameters, their types, and explicitness.
+ * The chain itself is still available via {@link #getFirst}.
+ * Types and explicitness are read from the links, so changes of the links are visible,
+ * but links must not be added to or removed from the chain after a telescope is created.
+ */
+public final class Telescope {
+  public static final Telescope EMPTY = new Telescope(EmptyDependentLink.getInstance());
+
+  private final DependentLink myFirst;
+  private final DependentLink[] myLinks;
+
+  public Telescope(@NotNull DependentLink first) {
+    myFirst = first;
+    myLinks = DependentLink.Helper.toList(first).toArray(new DependentLink[0]);
+  }
+
+  /**
+   * @return the first link of the chain this telescope was created from.
+   */
+  public @NotNull DependentLink getFirst() {
+    return myFirst;
+  }
+
+  public int size() {
+    return myLinks.length;
+  }
+
+  public boolean isEmpty() {
+    return myLinks.length == 0;
+  }
+
+  public DependentLink get(int index) {
+    return myLinks[index];
+  }
+
+  public Expression getType(int index) {
+    return myLinks[index].getTypeExpr();
+  }
+
+  public boolean isExplicit(int index) {
+    return myLinks[index].isExplicit();
+  }
+
+  public int getNumberOfExplicit() {
+    int result = 0;
+    for (DependentLink link : myLinks) {
+      if (link.isExplicit()) {
+        result++;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return the suffix of the chain starting at the given index or an empty link if the index is out of bounds.
+   */
+  public @NotNull DependentLink getLink(int index) {
+    return index < myLinks.length ? myLinks[index] : EmptyDependentLink.getInstance();
+  }
+
+  public List<DependentLink> toList() {
+    return new AbstractList<>() {
+      @Override
+      public DependentLink get(int index) {
+        return myLinks[index];
+      }
+
+      @Override
+      public int size() {
+        return myLinks.length;
+      }
+    };
+  }
+}
@@ -78,7 +78,8 @@ public class Constructor extends Definition implements Function, BranchKey, Core
 
   @Override
   public int getNumberOfParameters() {
-    return DependentLink.Helper.size(myParameters);
+    // The telescope is not cached while the constructor is typechecked
+    return status().needsTypeChecking() ? DependentLink.Helper.size(myParameters) : getParameterTelescope().size();
   }
 
   public void setParameters(DependentLink parameters) {
@@ -193,7 +194,7 @@ public class Constructor extends Definition implements Function, BranchKey, Core
       return super.isGoodParameter(index);
     }
 
-    int dataTypeParams = DependentLink.Helper.size(myDataType.getParameters());
+    int dataTypeParams = myDataType.getParameterTelescope().size();
     return index < dataTypeParams ? myDataType.isGoodParameter(index) : super.isGoodParameter(index - dataTypeParams);
   }
 
@@ -2,21 +2,23 @@ package org.arend.core.definition;
 
 import org.arend.core.context.param.DependentLink;
 import org.arend.core.context.param.EmptyDependentLink;
+import org.arend.core.context.param.Telescope;
 import org.arend.core.expr.ClassCallExpression;
 import org.arend.core.expr.Expression;
 import org.arend.core.sort.Sort;
 import org.arend.core.subst.LevelPair;
 import org.arend.ext.core.definition.CoreDefinition;
-import org.arend.extImpl.userData.UserDataHolderImpl;
+import org.arend.extImpl.userData.ConcurrentUserDataHolderImpl;
 import org.arend.naming.reference.TCDefReferable;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
 
-public abstract class Definition extends UserDataHolderImpl implements CoreDefinition {
+public abstract class Definition extends ConcurrentUserDataHolderImpl implements CoreDefinition {
   private final TCDefReferable myReferable;
   private TypeCheckingStatus myStatus;
   private UniverseKind myUniverseKind = UniverseKind.NO_UNIVERSES;
+  private Telescope myParameterTelescope;
 
   public Definition(TCDefReferable referable, TypeCheckingStatus status) {
     myReferable = referable;
@@ -50,6 +52,23 @@ public abstract class Definition extends UserDataHolderImpl implements CoreDefin
     return EmptyDependentLink.getInstance();
   }
 
+  /**
+   * Returns parameters of this definition as an array.
+   * The telescope is cached once the definition is typechecked.
+   */
+  public Telescope getParameterTelescope() {
+    DependentLink parameters = getParameters();
+    Telescope telescope = myParameterTelescope;
+    if (telescope != null && telescope.getFirst() == parameters) {
+      return telescope;
+    }
+    telescope = parameters.hasNext() ? new Telescope(parameters) : Telescope.EMPTY;
+    if (!status().needsTypeChecking()) {
+      myParameterTelescope = telescope;
+    }
+    return telescope;
+  }
+
   public boolean hasStrictParameters() {
     return false;
   }
@@ -29,6 +29,7 @@ public class FunctionDefinition extends Definition implements Function, CoreFunc
   private Set<Definition> myRecursiveDefinitions = Collections.emptySet();
   private boolean myHasEnclosingClass;
   private List<Boolean> myStrictParameters = Collections.emptyList();
+  private int myHeight;
 
   public enum HiddenStatus { NOT_HIDDEN, HIDDEN, REALLY_HIDDEN }
 
@@ -94,6 +95,19 @@ public class FunctionDefinition extends Definition implements Function, CoreFunc
     myRecursiveDefinitions = recursiveDefinitions;
   }
 
+  /**
+   * The definitional height of a function is 0 if it does not have a body.
+   * Otherwise, it is greater by one than the maximal height of functions occurring in its body.
+   * It is used to decide which side of an equation should be unfolded first.
+   */
+  public int getHeight() {
+    return myHeight;
+  }
+
+  public void setHeight(int height) {
+    myHeight = height;
+  }
+
   public boolean isSFunc() {
     return myKind == Kind.SFUNC || myKind == Kind.LEMMA || myKind == Kind.TYPE;
   }
@@ -35,6 +35,7 @@ import org.arend.ext.typechecking.TypedExpression;
 import org.arend.extImpl.UncheckedExpressionImpl;
 import org.arend.prelude.Prelude;
 import org.arend.term.concrete.Concrete;
+import org.arend.term.prettyprint.BoundedPrettyPrintVisitor;
 import org.arend.term.prettyprint.PrettyPrintVisitor;
 import org.arend.term.prettyprint.ToAbstractVisitor;
 import org.arend.typechecking.error.local.TypeComputationError;
@@ -58,6 +59,16 @@ public abstract class Expression implements Body, CoreExpression {
 
   public abstract <P1, P2, R> R accept(ExpressionVisitor2<? super P1, ? super P2, ? extends R> visitor, P1 param1, P2 param2);
 
+  /**
+   * Expressions that are longer than {@link PrettyPrinterConfig#getMaxExpressionLength} are printed by {@link BoundedPrettyPrintVisitor}
+   * and their subexpressions nested deeper than this are elided.
+   */
+  public static final int MAX_PRINTED_DEPTH = 256;
+  /**
+   * The default value of {@link PrettyPrinterConfig#getMaxExpressionLength} for error messages.
+   */
+  public static final int MAX_PRINTED_LENGTH = 1 << 16;
+
   @Override
   public String toString() {
     StringBuilder builder = new StringBuilder();
@@ -85,6 +96,11 @@ public abstract class Expression implements Body, CoreExpression {
 
   @Override
   public void prettyPrint(StringBuilder builder, PrettyPrinterConfig config) {
+    int maxLength = config.getMaxExpressionLength();
+    if (maxLength > 0 && BoundedPrettyPrintVisitor.exceedsLength(this, MAX_PRINTED_DEPTH, maxLength)) {
+      BoundedPrettyPrintVisitor.print(this, builder, MAX_PRINTED_DEPTH, maxLength);
+      return;
+    }
     ToAbstractVisitor.convert(this, config).accept(new PrettyPrintVisitor(builder, 0, !config.isSingleLine()), new Precedence(Concrete.Expression.PREC));
   }
 
@@ -23,6 +23,20 @@ public class FieldCallExpression extends DefCallExpression implements CoreFieldC
     myArgument = argument;
   }
 
+  /**
+   * @return true if {@link #make} may simplify a call of the given field on the given argument.
+   */
+  public static boolean isSimplifiable(ClassField definition, Expression thisExpr) {
+    if (definition.isProperty()) {
+      return false;
+    }
+    thisExpr = thisExpr.getUnderlyingExpression();
+    return thisExpr instanceof NewExpression
+      || thisExpr instanceof ReferenceExpression && ((ReferenceExpression) thisExpr).getBinding() instanceof ClassCallExpression.ClassCallBinding
+      || thisExpr instanceof ErrorExpression && ((ErrorExpression) thisExpr).getExpression() != null
+      || (definition == Prelude.ARRAY_LENGTH || definition == Prelude.ARRAY_ELEMENTS_TYPE) && thisExpr instanceof ArrayExpression;
+  }
+
   public static Expression make(ClassField definition, LevelPair levels, Expression thisExpr) {
     return make(definition, levels, thisExpr, true);
   }
@@ -33,6 +33,13 @@ public class FunCallExpression extends DefCallExpression implements CoreFunCallE
     myArguments = elementsType == null ? Collections.emptyList() : new SingletonList<>(elementsType);
   }
 
+  /**
+   * @return true if {@link #make} may simplify a call of the given function.
+   */
+  public static boolean isSimplifiable(FunctionDefinition definition) {
+    return definition == Prelude.PLUS || definition == Prelude.MUL || definition == Prelude.MINUS || definition == Prelude.DIV || definition == Prelude.MOD || definition == Prelude.DIV_MOD || definition == Prelude.AT || definition == Prelude.EMPTY_ARRAY || definition == Prelude.ARRAY_CONS;
+  }
+
   public static Expression make(FunctionDefinition definition, LevelPair levels, List<Expression> arguments) {
     if ((definition == Prelude.PLUS || definition == Prelude.MUL || definition == Prelude.MINUS || definition == Prelude.DIV || definition == Prelude.MOD || definition == Prelude.DIV_MOD) && arguments.size() == 2 && arguments.get(0) instanceof IntegerExpression && arguments.get(1) instanceof IntegerExpression) {
       IntegerExpression expr1 = (IntegerExpression) arguments.get(0);
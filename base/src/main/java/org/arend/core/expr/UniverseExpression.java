@@ -73,6 +73,7 @@ public class UniverseExpression extends Expression implements Type, CoreUniverse
 
   @Override
   public UniverseExpression strip(StripVisitor visitor) {
+    substSort(visitor.getLevelSubstitution());
     return this;
   }
 
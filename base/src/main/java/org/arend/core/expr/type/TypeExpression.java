@@ -44,7 +44,7 @@ public class TypeExpression implements Type {
   @Override
   public Type strip(StripVisitor visitor) {
     Expression expr = myType.accept(visitor, null);
-    return expr instanceof Type ? (Type) expr : new TypeExpression(expr, mySort);
+    return expr instanceof Type ? (Type) expr : new TypeExpression(expr, mySort.subst(visitor.getLevelSubstitution()));
   }
 
   @Override
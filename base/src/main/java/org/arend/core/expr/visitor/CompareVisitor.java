@@ -63,7 +63,39 @@ public class CompareVisitor implements ExpressionVisitor2<Expression, Expression
   }
 
   public static boolean compare(Equations equations, CMP cmp, Expression expr1, Expression expr2, Expression type, Concrete.SourceNode sourceNode) {
-    return new CompareVisitor(equations, cmp, sourceNode).compare(expr1, expr2, type, true);
+    return new CompareVisitor(equations, cmp, sourceNode).cachedCompare(expr1, expr2, type, true);
+  }
+
+  /**
+   * Compares expressions using {@link Equations#getConversionCache()} if they do not contain inference variables.
+   * Expressions are checked only if the result is not cached, so a hit costs a single lookup.
+   */
+  private boolean cachedCompare(Expression expr1, Expression expr2, Expression type, boolean useType) {
+    ConversionCache cache = myEquations.getConversionCache();
+    if (cache == null || expr1 == expr2 || !myNormalCompare || myOnlySolveVars || !myAllowEquations || !myNormalize) {
+      return compare(expr1, expr2, type, useType);
+    }
+
+    boolean withType = useType && type != null;
+    // Cached results of closed expressions do not depend on the substitution only if it is empty
+    Boolean result = mySubstitution.isEmpty() ? cache.get(expr1, expr2, myCMP, withType) : null;
+    if (result != null) {
+      return result;
+    }
+    if (!ConversionCache.isLarge(expr1) || !ConversionCache.isLarge(expr2) || !ConversionCache.isCacheable(expr1, mySubstitution) || !ConversionCache.isCacheable(expr2, mySubstitution)) {
+      return compare(expr1, expr2, type, useType);
+    }
+    if (!mySubstitution.isEmpty()) {
+      result = cache.get(expr1, expr2, myCMP, withType);
+      if (result != null) {
+        return result;
+      }
+    }
+
+    CMP cmp = myCMP;
+    result = compare(expr1, expr2, type, useType);
+    cache.put(expr1, expr2, cmp, withType, result);
+    return result;
   }
 
   public boolean compare(ElimTree elimTree1, ElimTree elimTree2) {
@@ -373,6 +405,31 @@ public class CompareVisitor implements ExpressionVisitor2<Expression, Expression
       return myEquations.addEquation(expr1, substitute(expr2), type, myCMP, stuckVar1.getSourceNode(), stuckVar1, stuckVar2);
     }
 
+    // Unfold calls to different functions lazily, starting with the higher one, and check if the heads coincide
+    if (stuckVar1 == null && stuckVar2 == null) {
+      while (expr1 instanceof FunCallExpression && expr2 instanceof FunCallExpression) {
+        FunctionDefinition function1 = ((FunCallExpression) expr1).getDefinition();
+        FunctionDefinition function2 = ((FunCallExpression) expr2).getDefinition();
+        if (function1 == function2) {
+          break;
+        }
+        Expression unfolded1 = function1.getHeight() >= function2.getHeight() ? NormalizeVisitor.INSTANCE.unfoldFunCall((FunCallExpression) expr1) : null;
+        Expression unfolded2 = function2.getHeight() >= function1.getHeight() ? NormalizeVisitor.INSTANCE.unfoldFunCall((FunCallExpression) expr2) : null;
+        if (unfolded1 == null && unfolded2 == null) {
+          break;
+        }
+        if (unfolded1 != null) {
+          expr1 = unfolded1.getUnderlyingExpression();
+        }
+        if (unfolded2 != null) {
+          expr2 = unfolded2.getUnderlyingExpression();
+        }
+        if (nonNormalizingCompare(expr1, expr2, type)) {
+          return true;
+        }
+      }
+    }
+
     return normalizedCompare(expr1.normalize(NormalizationMode.WHNF), expr2.normalize(NormalizationMode.WHNF), type == null ? null : type.normalize(NormalizationMode.WHNF), useType);
   }
 
@@ -943,7 +1000,7 @@ public class CompareVisitor implements ExpressionVisitor2<Expression, Expression
         myCMP = CMP.EQ;
       }
       mySubstitution.put(classCall2.getThisBinding(), binding);
-      boolean ok = compare(correctOrder ? impl1 : impl2, correctOrder ? impl2 : impl1, field.getType(classCall2.getLevels()).applyExpression(new ReferenceExpression(binding)), true);
+      boolean ok = cachedCompare(correctOrder ? impl1 : impl2, correctOrder ? impl2 : impl1, field.getType(classCall2.getLevels()).applyExpression(new ReferenceExpression(binding)), true);
       mySubstitution.remove(classCall2.getThisBinding());
       if (!ok) {
         return false;
@@ -1302,7 +1359,7 @@ public class CompareVisitor implements ExpressionVisitor2<Expression, Expression
       if (impl2 == null) {
         impl2 = FieldCallExpression.make(field, classCall2.getLevels(), expr2);
       }
-      if (!compare(impl1, impl2, field.getType(classCall1.getLevels()).applyExpression(expr1), true)) {
+      if (!cachedCompare(impl1, impl2, field.getType(classCall1.getLevels()).applyExpression(expr1), true)) {
         return false;
       }
     }
@@ -1325,18 +1382,23 @@ public class CompareVisitor implements ExpressionVisitor2<Expression, Expression
       return false;
     }
 
+    // Parameters of typechecked definitions are cached as arrays, so we do not need to walk the chain
+    Telescope telescope = substitution != null && definition != null && link == definition.getParameters() ? definition.getParameterTelescope() : null;
     CMP origCMP = myCMP;
     for (int i = 0; i < list1.size(); i++) {
       if (definition instanceof DataDefinition) {
         myCMP = ((DataDefinition) definition).isCovariant(i) ? origCMP : CMP.EQ;
       }
-      if (!compare(list1.get(i), list2.get(i), substitution != null && link.hasNext() ? link.getTypeExpr().subst(substitution) : null, true)) {
+      DependentLink param = substitution == null ? null : telescope != null ? (i < telescope.size() ? telescope.get(i) : null) : link.hasNext() ? link : null;
+      if (!compare(list1.get(i), list2.get(i), param != null ? (telescope != null ? telescope.getType(i) : param.getTypeExpr()).subst(substitution) : null, true)) {
         myCMP = origCMP;
         return false;
       }
-      if (substitution != null && link.hasNext()) {
-        substitution.add(link, (myCMP == CMP.LE ? list2 : list1).get(i));
-        link = link.getNext();
+      if (param != null) {
+        substitution.add(param, (myCMP == CMP.LE ? list2 : list1).get(i));
+        if (telescope == null) {
+          link = link.getNext();
+        }
       }
     }
 
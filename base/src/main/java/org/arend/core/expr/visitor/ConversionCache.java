@@ -0,0 +1,227 @@
+package org.arend.core.expr.visitor;
+
+import org.arend.core.context.binding.Binding;
+import org.arend.core.context.binding.LevelVariable;
+import org.arend.core.context.binding.inference.InferenceLevelVariable;
+import org.arend.core.expr.*;
+import org.arend.core.sort.Level;
+import org.arend.core.sort.Sort;
+import org.arend.core.subst.LevelPair;
+import org.arend.ext.core.ops.CMP;
+import org.arend.typechecking.visitor.SearchVisitor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers results of comparisons of expressions.
+ * Only expressions without inference variables can be cached since comparison of other expressions may produce equations.
+ * Expressions are compared by identity.
+ */
+public class ConversionCache {
+  private static final int MAX_SIZE = 4096;
+  /**
+   * Smaller expressions are not cached since checking that they can be cached costs as much as comparing them.
+   */
+  private static final int MIN_EXPRESSION_SIZE = 16;
+  private long myHits;
+  private long myMisses;
+
+  private final Map<Key, Boolean> myResults = new LinkedHashMap<>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Key, Boolean> eldest) {
+      return size() > MAX_SIZE;
+    }
+  };
+
+  private static class Key {
+    private final Expression expr1;
+    private final Expression expr2;
+    private final CMP cmp;
+    private final boolean withType;
+
+    Key(Expression expr1, Expression expr2, CMP cmp, boolean withType) {
+      this.expr1 = expr1;
+      this.expr2 = expr2;
+      this.cmp = cmp;
+      this.withType = withType;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof Key)) return false;
+      Key key = (Key) o;
+      return expr1 == key.expr1 && expr2 == key.expr2 && cmp == key.cmp && withType == key.withType;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (31 * (31 * System.identityHashCode(expr1) + System.identityHashCode(expr2)) + cmp.hashCode()) + (withType ? 1 : 0);
+    }
+  }
+
+  /**
+   * @return the cached result of a comparison or null if it is not cached.
+   */
+  public Boolean get(Expression expr1, Expression expr2, CMP cmp, boolean withType) {
+    Boolean result = myResults.get(new Key(expr1, expr2, cmp, withType));
+    if (result != null) {
+      myHits++;
+    }
+    return result;
+  }
+
+  /**
+   * Stores the result of a comparison.
+   * Misses are counted here rather than in {@link #get}, so that only comparisons that can be cached are counted.
+   */
+  public void put(Expression expr1, Expression expr2, CMP cmp, boolean withType, boolean result) {
+    myMisses++;
+    myResults.put(new Key(expr1, expr2, cmp, withType), result);
+  }
+
+  public void clear() {
+    myResults.clear();
+    myHits = 0;
+    myMisses = 0;
+  }
+
+  public long getHits() {
+    return myHits;
+  }
+
+  public long getMisses() {
+    return myMisses;
+  }
+
+  /**
+   * Checks if the result of a comparison of an expression does not depend on the state of the typechecker.
+   *
+   * @param substitution  bindings substituted by the comparison; the expression should not refer to them.
+   */
+  public static boolean isCacheable(Expression expr, Map<Binding, Binding> substitution) {
+    return !expr.accept(new InferenceFinder(), substitution);
+  }
+
+  /**
+   * Checks if an expression is large enough to be worth caching.
+   * Only a bounded number of subexpressions is visited.
+   */
+  public static boolean isLarge(Expression expr) {
+    return expr.accept(new SizeEstimator(), null);
+  }
+
+  private static class SizeEstimator extends SearchVisitor<Void> {
+    private int mySize;
+
+    private boolean count() {
+      return ++mySize >= MIN_EXPRESSION_SIZE;
+    }
+
+    @Override
+    public Boolean visitDefCall(DefCallExpression expression, Void param) {
+      return count() || super.visitDefCall(expression, param);
+    }
+
+    @Override
+    public Boolean visitApp(AppExpression expression, Void param) {
+      return count() || super.visitApp(expression, param);
+    }
+
+    @Override
+    public Boolean visitReference(ReferenceExpression expression, Void param) {
+      return count();
+    }
+
+    @Override
+    public Boolean visitLam(LamExpression expression, Void param) {
+      return count() || super.visitLam(expression, param);
+    }
+
+    @Override
+    public Boolean visitPi(PiExpression expression, Void param) {
+      return count() || super.visitPi(expression, param);
+    }
+
+    @Override
+    public Boolean visitSigma(SigmaExpression expression, Void param) {
+      return count() || super.visitSigma(expression, param);
+    }
+
+    @Override
+    public Boolean visitTuple(TupleExpression expression, Void param) {
+      return count() || super.visitTuple(expression, param);
+    }
+
+    @Override
+    public Boolean visitProj(ProjExpression expression, Void param) {
+      return count() || super.visitProj(expression, param);
+    }
+  }
+
+  static class InferenceFinder extends SearchVisitor<Map<Binding, Binding>> {
+    private static boolean hasInferenceVariable(Level level) {
+      return level.getVar() instanceof InferenceLevelVariable;
+    }
+
+    private static boolean hasInferenceVariable(Sort sort) {
+      return hasInferenceVariable(sort.getPLevel()) || hasInferenceVariable(sort.getHLevel());
+    }
+
+    static boolean hasInferenceVariable(LevelPair levels) {
+      return hasInferenceVariable(levels.get(LevelVariable.PVAR)) || hasInferenceVariable(levels.get(LevelVariable.HVAR));
+    }
+
+    @Override
+    protected boolean processDefCall(DefCallExpression expression, Map<Binding, Binding> substitution) {
+      return hasInferenceVariable(expression.getLevels());
+    }
+
+    @Override
+    public Boolean visitInferenceReference(InferenceReferenceExpression expression, Map<Binding, Binding> substitution) {
+      // Even solved variables may be reverted when the state of the typechecker is restored
+      return true;
+    }
+
+    @Override
+    public Boolean visitSubst(SubstExpression expr, Map<Binding, Binding> substitution) {
+      return expr.isInferenceVariable() || super.visitSubst(expr, substitution);
+    }
+
+    @Override
+    public Boolean visitReference(ReferenceExpression expression, Map<Binding, Binding> substitution) {
+      return substitution.containsKey(expression.getBinding()) || substitution.containsValue(expression.getBinding());
+    }
+
+    @Override
+    public Boolean visitUniverse(UniverseExpression expression, Map<Binding, Binding> substitution) {
+      return hasInferenceVariable(expression.getSort());
+    }
+
+    @Override
+    public Boolean visitLam(LamExpression expression, Map<Binding, Binding> substitution) {
+      return hasInferenceVariable(expression.getResultSort()) || super.visitLam(expression, substitution);
+    }
+
+    @Override
+    public Boolean visitPi(PiExpression expression, Map<Binding, Binding> substitution) {
+      return hasInferenceVariable(expression.getResultSort()) || super.visitPi(expression, substitution);
+    }
+
+    @Override
+    public Boolean visitSigma(SigmaExpression expression, Map<Binding, Binding> substitution) {
+      return hasInferenceVariable(expression.getSort()) || super.visitSigma(expression, substitution);
+    }
+
+    @Override
+    public Boolean visitTypeCoerce(TypeCoerceExpression expr, Map<Binding, Binding> substitution) {
+      return hasInferenceVariable(expr.getLevels()) || super.visitTypeCoerce(expr, substitution);
+    }
+
+    @Override
+    public Boolean visitArray(ArrayExpression expr, Map<Binding, Binding> substitution) {
+      return hasInferenceVariable(expr.getLevels()) || super.visitArray(expr, substitution);
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package org.arend.core.expr.visitor;
+
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.elimtree.Body;
+import org.arend.core.expr.FunCallExpression;
+
+/**
+ * Computes the definitional height of a function.
+ * See {@link FunctionDefinition#getHeight()}.
+ */
+public class FunctionHeightVisitor extends VoidExpressionVisitor<Void> {
+  private int myMaxHeight;
+
+  private FunctionHeightVisitor() {}
+
+  public static int getHeight(Body body) {
+    if (body == null) {
+      return 0;
+    }
+    FunctionHeightVisitor visitor = new FunctionHeightVisitor();
+    visitor.visitBody(body, null);
+    return visitor.myMaxHeight + 1;
+  }
+
+  @Override
+  public Void visitFunCall(FunCallExpression expr, Void params) {
+    myMaxHeight = Math.max(myMaxHeight, expr.getDefinition().getHeight());
+    return super.visitFunCall(expr, params);
+  }
+}
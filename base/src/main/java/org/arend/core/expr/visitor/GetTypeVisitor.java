@@ -57,10 +57,22 @@ public class GetTypeVisitor implements ExpressionVisitor<Void, Expression> {
       }
     }
 
+    TypeCache cache = TypeCache.isCacheable(expr) ? TypeCache.getCurrent() : null;
+    if (cache != null) {
+      Expression type = cache.get(expr);
+      if (type != null) {
+        return type;
+      }
+    }
+
     List<DependentLink> defParams = new ArrayList<>();
     Expression type = definition.getTypeWithParams(defParams, expr.getLevels());
     assert arguments.size() == defParams.size();
-    return type.subst(DependentLink.Helper.toSubstitution(defParams, arguments));
+    type = type.subst(DependentLink.Helper.toSubstitution(defParams, arguments));
+    if (cache != null) {
+      cache.put(expr, type);
+    }
+    return type;
   }
 
   @Override
@@ -107,7 +119,20 @@ public class GetTypeVisitor implements ExpressionVisitor<Void, Expression> {
       }
       return Nat();
     }
-    return expr.getDefinition().getDataTypeExpression(expr.getLevels(), expr.getDataTypeArguments());
+
+    TypeCache cache = TypeCache.isCacheable(expr) ? TypeCache.getCurrent() : null;
+    if (cache != null) {
+      Expression type = cache.get(expr);
+      if (type instanceof DataCallExpression) {
+        return (DataCallExpression) type;
+      }
+    }
+
+    DataCallExpression type = expr.getDefinition().getDataTypeExpression(expr.getLevels(), expr.getDataTypeArguments());
+    if (cache != null) {
+      cache.put(expr, type);
+    }
+    return type;
   }
 
   @Override
@@ -8,6 +8,7 @@ import org.arend.core.context.binding.EvaluatingBinding;
 import org.arend.core.context.binding.inference.TypeClassInferenceVariable;
 import org.arend.core.context.param.DependentLink;
 import org.arend.core.context.param.SingleDependentLink;
+import org.arend.core.context.param.Telescope;
 import org.arend.core.context.param.TypedSingleDependentLink;
 import org.arend.core.definition.*;
 import org.arend.core.elimtree.*;
@@ -22,16 +23,19 @@ import org.arend.core.subst.LevelSubstitution;
 import org.arend.ext.core.ops.NormalizationMode;
 import org.arend.prelude.Prelude;
 import org.arend.typechecking.computation.ComputationRunner;
+import org.arend.typechecking.computation.NormalizationBudget;
 import org.arend.util.Pair;
 import org.arend.util.SingletonList;
 
 import java.math.BigInteger;
 import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
 
 import static org.arend.core.expr.ExpressionFactory.*;
 
 public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>  {
   public static final NormalizeVisitor INSTANCE = new NormalizeVisitor();
+  private static final LongAdder ourSteps = new LongAdder();
 
   private NormalizeVisitor() {
   }
@@ -41,6 +45,7 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
     Expression function = expr.getFunction().accept(this, mode);
     LamExpression lamExpr = function.cast(LamExpression.class);
     if (lamExpr != null) {
+      NormalizationBudget.step(null);
       return AppExpression.make(lamExpr, expr.getArgument(), expr.isExplicit()).accept(this, mode);
     } else {
       return AppExpression.make(function, mode == NormalizationMode.WHNF || mode == NormalizationMode.ENF ? expr.getArgument() : expr.getArgument().accept(this, mode), expr.isExplicit());
@@ -56,13 +61,12 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
       return FieldCallExpression.make((ClassField) expr.getDefinition(), expr.getLevels(), ((FieldCallExpression) expr).getArgument().accept(this, mode));
     }
 
-    DependentLink link = expr.getDefinition().getParameters();
-    List<Expression> args = new ArrayList<>(expr.getDefCallArguments().size());
-    for (Expression arg : expr.getDefCallArguments()) {
-      args.add(mode == NormalizationMode.RNF_EXP && !link.isExplicit() ? arg : arg.accept(this, mode));
-      if (link.hasNext()) {
-        link = link.getNext();
-      }
+    Telescope parameters = mode == NormalizationMode.RNF_EXP ? expr.getDefinition().getParameterTelescope() : null;
+    List<? extends Expression> defCallArgs = expr.getDefCallArguments();
+    List<Expression> args = new ArrayList<>(defCallArgs.size());
+    for (int i = 0; i < defCallArgs.size(); i++) {
+      Expression arg = defCallArgs.get(i);
+      args.add(parameters != null && i < parameters.size() && !parameters.isExplicit(i) ? arg : arg.accept(this, mode));
     }
 
     if (expr instanceof FunCallExpression) {
@@ -370,9 +374,18 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
     return result == null ? applyDefCall(expr, mode) : result;
   }
 
+  /**
+   * @return the number of bodies of definitions evaluated so far.
+   */
+  public static long getSteps() {
+    return ourSteps.sum();
+  }
+
   private Expression visitBody(Body body, List<? extends Expression> defCallArgs, DefCallExpression expr, NormalizationMode mode) {
     ComputationRunner.checkCanceled();
+    ourSteps.increment();
     Definition definition = expr.getDefinition();
+    NormalizationBudget.step(definition);
 
     if (body instanceof IntervalElim) {
       IntervalElim elim = (IntervalElim) body;
@@ -452,6 +465,23 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
     }
   }
 
+  /**
+   * Unfolds a call to a function defined without pattern matching.
+   * The result is not normalized.
+   *
+   * @return the body of the function with substituted arguments or null if the function cannot be unfolded in this way.
+   */
+  public Expression unfoldFunCall(FunCallExpression expr) {
+    FunctionDefinition definition = expr.getDefinition();
+    Body body = definition.getBody();
+    if (!(body instanceof Expression) || body instanceof CaseExpression) {
+      return null;
+    }
+    ComputationRunner.checkCanceled();
+    NormalizationBudget.step(definition);
+    return ((Expression) body).subst(addArguments(getDataTypeArgumentsSubstitution(expr), expr.getDefCallArguments(), definition), expr.getLevels());
+  }
+
   private ExprSubstitution addArguments(ExprSubstitution substitution, List<? extends Expression> args, Definition definition) {
     DependentLink link = definition.getParameters();
     for (int i = 0; i < args.size(); i++) {
@@ -574,6 +604,7 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
             }
           } else if (resultExpr instanceof FunCallExpression && ((FunCallExpression) resultExpr).getDefinition().getBody() instanceof Expression) {
             FunCallExpression funCall = (FunCallExpression) resultExpr;
+            NormalizationBudget.step(funCall.getDefinition());
             resultExpr = Objects.requireNonNull((Expression) funCall.getDefinition().getBody()).subst(addArguments(new ExprSubstitution(), funCall.getDefCallArguments(), funCall.getDefinition()), funCall.getLevels());
           } else if (resultExpr instanceof ReferenceExpression && ((ReferenceExpression) resultExpr).getBinding() instanceof EvaluatingBinding) {
             resultExpr = ((EvaluatingBinding) ((ReferenceExpression) resultExpr).getBinding()).getExpression();
@@ -609,6 +640,7 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
           stack.clear();
 
           ComputationRunner.checkCanceled();
+          NormalizationBudget.step(funCall != null ? funCall.getDefinition() : null);
 
           List<? extends Expression> args = funCall != null ? funCall.getDefCallArguments() : ((CaseExpression) resultExpr).getArguments();
           for (int j = args.size() - 1; j >= 0; j--) {
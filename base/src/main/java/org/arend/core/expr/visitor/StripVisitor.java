@@ -1,16 +1,21 @@
 package org.arend.core.expr.visitor;
 
+import org.arend.core.constructor.ClassConstructor;
 import org.arend.core.context.binding.Binding;
 import org.arend.core.context.binding.EvaluatingBinding;
 import org.arend.core.context.binding.inference.MetaInferenceVariable;
 import org.arend.core.context.param.DependentLink;
 import org.arend.core.definition.ClassField;
+import org.arend.core.elimtree.BranchElimTree;
+import org.arend.core.elimtree.BranchKey;
 import org.arend.core.elimtree.ElimClause;
+import org.arend.core.elimtree.ElimTree;
 import org.arend.core.expr.*;
 import org.arend.core.expr.let.HaveClause;
 import org.arend.core.expr.let.LetClause;
 import org.arend.core.pattern.Pattern;
 import org.arend.core.sort.Sort;
+import org.arend.core.subst.LevelSubstitution;
 import org.arend.ext.error.ErrorReporter;
 import org.arend.ext.error.ListErrorReporter;
 import org.arend.ext.error.LocalError;
@@ -18,39 +23,76 @@ import org.arend.prelude.Prelude;
 
 import java.util.*;
 
+/**
+ * Replaces solved inference variables with their solutions and reports unsolved ones.
+ * If a level substitution is given, it is applied in place during the same traversal,
+ * so that {@link org.arend.core.subst.InPlaceLevelSubstVisitor} does not need to be invoked separately.
+ * Subexpressions that do not change are not copied unless the corresponding factory method may simplify them.
+ */
 public class StripVisitor implements ExpressionVisitor<Void, Expression> {
   private final Set<EvaluatingBinding> myBoundEvaluatingBindings;
   private ErrorReporter myErrorReporter;
+  private final LevelSubstitution myLevelSubstitution;
 
   public StripVisitor() {
-    myBoundEvaluatingBindings = new HashSet<>();
-    myErrorReporter = null;
+    this(new HashSet<>(), null, LevelSubstitution.EMPTY);
   }
 
   public StripVisitor(ErrorReporter errorReporter) {
-    myBoundEvaluatingBindings = new HashSet<>();
-    myErrorReporter = errorReporter;
+    this(new HashSet<>(), errorReporter, LevelSubstitution.EMPTY);
+  }
+
+  public StripVisitor(ErrorReporter errorReporter, LevelSubstitution levelSubstitution) {
+    this(new HashSet<>(), errorReporter, levelSubstitution);
   }
 
-  private StripVisitor(Set<EvaluatingBinding> boundEvaluatingBindings, ErrorReporter errorReporter) {
+  private StripVisitor(Set<EvaluatingBinding> boundEvaluatingBindings, ErrorReporter errorReporter, LevelSubstitution levelSubstitution) {
     myBoundEvaluatingBindings = boundEvaluatingBindings;
     myErrorReporter = errorReporter;
+    myLevelSubstitution = levelSubstitution;
   }
 
   public void setErrorReporter(ErrorReporter errorReporter) {
     myErrorReporter = errorReporter;
   }
 
+  public LevelSubstitution getLevelSubstitution() {
+    return myLevelSubstitution;
+  }
+
+  private void substLevels(DefCallExpression expr) {
+    if (!myLevelSubstitution.isEmpty()) {
+      expr.substSort(myLevelSubstitution);
+    }
+  }
+
   @Override
   public Expression visitApp(AppExpression expr, Void params) {
-    return AppExpression.make(expr.getFunction().accept(this, null), expr.getArgument().accept(this, null), expr.isExplicit());
+    Expression function = expr.getFunction().accept(this, null);
+    Expression argument = expr.getArgument().accept(this, null);
+    return function == expr.getFunction() && argument == expr.getArgument() && !(function instanceof LamExpression) ? expr : AppExpression.make(function, argument, expr.isExplicit());
   }
 
   @Override
   public Expression visitFunCall(FunCallExpression expr, Void params) {
-    List<Expression> args = new ArrayList<>(expr.getDefCallArguments().size());
-    for (Expression arg : expr.getDefCallArguments()) {
-      args.add(arg.accept(this, null));
+    substLevels(expr);
+    List<? extends Expression> oldArgs = expr.getDefCallArguments();
+    List<Expression> args = null;
+    for (int i = 0; i < oldArgs.size(); i++) {
+      Expression arg = oldArgs.get(i).accept(this, null);
+      if (args == null && arg != oldArgs.get(i)) {
+        args = new ArrayList<>(oldArgs.size());
+        args.addAll(oldArgs.subList(0, i));
+      }
+      if (args != null) {
+        args.add(arg);
+      }
+    }
+    if (args == null) {
+      if (!FunCallExpression.isSimplifiable(expr.getDefinition())) {
+        return expr;
+      }
+      args = new ArrayList<>(oldArgs);
     }
     return FunCallExpression.make(expr.getDefinition(), expr.getLevels(), args);
   }
@@ -62,6 +104,7 @@ public class StripVisitor implements ExpressionVisitor<Void, Expression> {
       int n = 0;
       do {
         n++;
+        substLevels((ConCallExpression) it);
         List<Expression> args = ((ConCallExpression) it).getDefCallArguments();
         it = args.get(0).accept(this, null);
         args.set(0, it);
@@ -74,6 +117,7 @@ public class StripVisitor implements ExpressionVisitor<Void, Expression> {
     int recursiveParam;
     do {
       ConCallExpression conCall = (ConCallExpression) it;
+      substLevels(conCall);
       args = conCall.getDataTypeArguments();
       for (int i = 0; i < args.size(); i++) {
         args.set(i, args.get(i).accept(this, null));
@@ -103,6 +147,7 @@ public class StripVisitor implements ExpressionVisitor<Void, Expression> {
 
   @Override
   public DataCallExpression visitDataCall(DataCallExpression expr, Void params) {
+    substLevels(expr);
     List<Expression> args = expr.getDefCallArguments();
     for (int i = 0; i < args.size(); i++) {
       args.set(i, args.get(i).accept(this, null));
@@ -118,11 +163,17 @@ public class StripVisitor implements ExpressionVisitor<Void, Expression> {
         return newExpr.getImplementation(expr.getDefinition()).accept(this, null);
       }
     }
-    return FieldCallExpression.make(expr.getDefinition(), expr.getLevels(), expr.getArgument().accept(this, null));
+    substLevels(expr);
+    Expression argument = expr.getArgument().accept(this, null);
+    return argument == expr.getArgument() && !FieldCallExpression.isSimplifiable(expr.getDefinition(), argument) ? expr : FieldCallExpression.make(expr.getDefinition(), expr.getLevels(), argument);
   }
 
   @Override
   public ClassCallExpression visitClassCall(ClassCallExpression expr, Void params) {
+    if (!myLevelSubstitution.isEmpty()) {
+      expr.substSort(myLevelSubstitution);
+      expr.setSort(expr.getSort().subst(myLevelSubstitution));
+    }
     for (Map.Entry<ClassField, Expression> entry : expr.getImplementedHere().entrySet()) {
       entry.setValue(entry.getValue().accept(this, null));
     }
@@ -157,6 +208,9 @@ public class StripVisitor implements ExpressionVisitor<Void, Expression> {
 
   @Override
   public Expression visitSubst(SubstExpression expr, Void params) {
+    if (!myLevelSubstitution.isEmpty()) {
+      expr.levelSubstitution = expr.levelSubstitution.subst(myLevelSubstitution);
+    }
     if (expr.isMetaInferenceVariable()) {
       for (Map.Entry<Binding, Expression> entry : expr.getSubstitution().getEntries()) {
         entry.setValue(entry.getValue().accept(this, null));
@@ -176,24 +230,38 @@ public class StripVisitor implements ExpressionVisitor<Void, Expression> {
 
   @Override
   public LamExpression visitLam(LamExpression expr, Void params) {
+    if (!myLevelSubstitution.isEmpty()) {
+      expr.substSort(myLevelSubstitution);
+    }
     visitParameters(expr.getParameters());
-    return new LamExpression(expr.getResultSort(), expr.getParameters(), expr.getBody().accept(this, null));
+    Expression body = expr.getBody().accept(this, null);
+    return body == expr.getBody() ? expr : new LamExpression(expr.getResultSort(), expr.getParameters(), body);
   }
 
   @Override
   public PiExpression visitPi(PiExpression expr, Void params) {
+    if (!myLevelSubstitution.isEmpty()) {
+      expr.substSort(myLevelSubstitution);
+    }
     visitParameters(expr.getParameters());
-    return new PiExpression(expr.getResultSort(), expr.getParameters(), expr.getCodomain().accept(this, null));
+    Expression codomain = expr.getCodomain().accept(this, null);
+    return codomain == expr.getCodomain() ? expr : new PiExpression(expr.getResultSort(), expr.getParameters(), codomain);
   }
 
   @Override
   public SigmaExpression visitSigma(SigmaExpression expr, Void params) {
+    if (!myLevelSubstitution.isEmpty()) {
+      expr.substSort(myLevelSubstitution);
+    }
     visitParameters(expr.getParameters());
     return expr;
   }
 
   @Override
   public UniverseExpression visitUniverse(UniverseExpression expr, Void params) {
+    if (!myLevelSubstitution.isEmpty()) {
+      expr.substSort(myLevelSubstitution);
+    }
     return expr.getSort().getHLevel().isProp() ? new UniverseExpression(Sort.PROP) : expr;
   }
 
@@ -203,7 +271,7 @@ public class StripVisitor implements ExpressionVisitor<Void, Expression> {
       return expr;
     }
     if (expr instanceof GoalErrorExpression) {
-      return expr.replaceExpression(expr.getExpression().accept(new StripVisitor(myBoundEvaluatingBindings, new ListErrorReporter(((GoalErrorExpression) expr).goalError.errors)), null));
+      return expr.replaceExpression(expr.getExpression().accept(new StripVisitor(myBoundEvaluatingBindings, new ListErrorReporter(((GoalErrorExpression) expr).goalError.errors), myLevelSubstitution), null));
     } else {
       return new ErrorExpression(null, expr.isGoal(), expr.useExpression());
     }
@@ -212,20 +280,27 @@ public class StripVisitor implements ExpressionVisitor<Void, Expression> {
   @Override
   public TupleExpression visitTuple(TupleExpression expr, Void params) {
     List<Expression> fields = new ArrayList<>(expr.getFields().size());
+    boolean changed = false;
     for (Expression field : expr.getFields()) {
-      fields.add(field.accept(this, null));
+      Expression newField = field.accept(this, null);
+      fields.add(newField);
+      changed = changed || newField != field;
     }
-    return new TupleExpression(fields, visitSigma(expr.getSigmaType(), null));
+    visitSigma(expr.getSigmaType(), null);
+    return changed ? new TupleExpression(fields, expr.getSigmaType()) : expr;
   }
 
   @Override
   public Expression visitProj(ProjExpression expr, Void params) {
-    return ProjExpression.make(expr.getExpression().accept(this, null), expr.getField());
+    Expression expression = expr.getExpression().accept(this, null);
+    return expression == expr.getExpression() && !(expression instanceof TupleExpression) ? expr : ProjExpression.make(expression, expr.getField());
   }
 
   @Override
   public NewExpression visitNew(NewExpression expr, Void params) {
-    return new NewExpression(expr.getRenewExpression() == null ? null : expr.getRenewExpression().accept(this, null), visitClassCall(expr.getClassCall(), null));
+    Expression renew = expr.getRenewExpression() == null ? null : expr.getRenewExpression().accept(this, null);
+    visitClassCall(expr.getClassCall(), null);
+    return renew == expr.getRenewExpression() ? expr : new NewExpression(renew, expr.getClassCall());
   }
 
   @Override
@@ -237,7 +312,8 @@ public class StripVisitor implements ExpressionVisitor<Void, Expression> {
       }
     }
 
-    LetExpression result = new LetExpression(expr.isStrict(), expr.getClauses(), expr.getExpression().accept(this, null));
+    Expression expression = expr.getExpression().accept(this, null);
+    LetExpression result = expression == expr.getExpression() ? expr : new LetExpression(expr.isStrict(), expr.getClauses(), expression);
     for (HaveClause clause : expr.getClauses()) {
       if (clause instanceof LetClause) {
         myBoundEvaluatingBindings.remove(clause);
@@ -258,7 +334,23 @@ public class StripVisitor implements ExpressionVisitor<Void, Expression> {
         clause.setExpression(clause.getExpression().accept(this, null));
       }
     }
-    return new CaseExpression(expr.isSCase(), expr.getParameters(), expr.getResultType().accept(this, null), expr.getResultTypeLevel() == null ? null : expr.getResultTypeLevel().accept(this, null), expr.getElimBody(), expr.getArguments());
+    if (!myLevelSubstitution.isEmpty()) {
+      substLevels(expr.getElimBody().getElimTree());
+    }
+    Expression resultType = expr.getResultType().accept(this, null);
+    Expression resultTypeLevel = expr.getResultTypeLevel() == null ? null : expr.getResultTypeLevel().accept(this, null);
+    return resultType == expr.getResultType() && resultTypeLevel == expr.getResultTypeLevel() ? expr : new CaseExpression(expr.isSCase(), expr.getParameters(), resultType, resultTypeLevel, expr.getElimBody(), expr.getArguments());
+  }
+
+  private void substLevels(ElimTree elimTree) {
+    if (elimTree instanceof BranchElimTree) {
+      for (Map.Entry<BranchKey, ElimTree> entry : ((BranchElimTree) elimTree).getChildren()) {
+        if (entry.getKey() instanceof ClassConstructor) {
+          ((ClassConstructor) entry.getKey()).substSort(myLevelSubstitution);
+        }
+        substLevels(entry.getValue());
+      }
+    }
   }
 
   @Override
@@ -273,6 +365,9 @@ public class StripVisitor implements ExpressionVisitor<Void, Expression> {
 
   @Override
   public Expression visitTypeCoerce(TypeCoerceExpression expr, Void params) {
+    if (!myLevelSubstitution.isEmpty()) {
+      expr.substSort(myLevelSubstitution);
+    }
     List<Expression> args = expr.getClauseArguments();
     for (int i = 0; i < args.size(); i++) {
       args.set(i, args.get(i).accept(this, null));
@@ -283,15 +378,21 @@ public class StripVisitor implements ExpressionVisitor<Void, Expression> {
 
   @Override
   public Expression visitArray(ArrayExpression expr, Void params) {
+    if (!myLevelSubstitution.isEmpty()) {
+      expr.substLevels(myLevelSubstitution);
+    }
     List<Expression> elements = expr.getElements();
     for (int i = 0; i < elements.size(); i++) {
       elements.set(i, elements.get(i).accept(this, null));
     }
-    return ArrayExpression.make(expr.getLevels(), expr.getElementsType().accept(this, null), elements, expr.getTail() == null ? null : expr.getTail().accept(this, null));
+    Expression elementsType = expr.getElementsType().accept(this, null);
+    Expression tail = expr.getTail() == null ? null : expr.getTail().accept(this, null);
+    return elementsType == expr.getElementsType() && tail == expr.getTail() && !(tail instanceof ArrayExpression) ? expr : ArrayExpression.make(expr.getLevels(), elementsType, elements, tail);
   }
 
   @Override
   public Expression visitPEval(PEvalExpression expr, Void params) {
-    return new PEvalExpression(expr.getExpression().accept(this, null));
+    Expression expression = expr.getExpression().accept(this, null);
+    return expression == expr.getExpression() ? expr : new PEvalExpression(expression);
   }
 }
@@ -0,0 +1,119 @@
+package org.arend.core.expr.visitor;
+
+import org.arend.core.expr.ConCallExpression;
+import org.arend.core.expr.DefCallExpression;
+import org.arend.core.expr.Expression;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Remembers types of calls computed by {@link GetTypeVisitor} in the current thread.
+ * The type of a call depends only on its arguments, levels, and the signature of the definition,
+ * so it is cached only if the definition is already typechecked
+ * and the call does not contain inference variables, which can be solved, reverted, or substituted in place.
+ * Expressions are compared by identity.
+ * Since types may be modified in place, the cache keeps its own copy of each type and returns a fresh copy for every lookup.
+ */
+public class TypeCache {
+  private static final ThreadLocal<TypeCache> ourCurrent = new ThreadLocal<>();
+  private static final int MAX_SIZE = 4096;
+
+  private final Map<Key, Expression> myTypes = new LinkedHashMap<>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Key, Expression> eldest) {
+      return size() > MAX_SIZE;
+    }
+  };
+  private long myHits;
+  private long myMisses;
+
+  private static class Key {
+    private final Expression expr;
+
+    Key(Expression expr) {
+      this.expr = expr;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return this == o || o instanceof Key && expr == ((Key) o).expr;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(expr);
+    }
+  }
+
+  /**
+   * Runs a computation with this cache.
+   * The previous cache of the current thread is restored afterwards.
+   */
+  public <T> T run(Supplier<T> computation) {
+    TypeCache previous = ourCurrent.get();
+    ourCurrent.set(this);
+    try {
+      return computation.get();
+    } finally {
+      ourCurrent.set(previous);
+    }
+  }
+
+  public static @Nullable TypeCache getCurrent() {
+    return ourCurrent.get();
+  }
+
+  static boolean isCacheable(DefCallExpression expr) {
+    if (expr.getDefinition().status().needsTypeChecking()) {
+      return false;
+    }
+    if (!(expr instanceof ConCallExpression)) {
+      return ConversionCache.isCacheable(expr, Collections.emptyMap());
+    }
+
+    // The type of a constructor call depends only on its levels and data type arguments
+    ConCallExpression conCall = (ConCallExpression) expr;
+    if (ConversionCache.InferenceFinder.hasInferenceVariable(conCall.getLevels())) {
+      return false;
+    }
+    for (Expression argument : conCall.getDataTypeArguments()) {
+      if (!ConversionCache.isCacheable(argument, Collections.emptyMap())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return a copy of the cached type of the expression or null if it is not cached.
+   */
+  public @Nullable Expression get(Expression expr) {
+    Expression type = myTypes.get(new Key(expr));
+    if (type == null) {
+      myMisses++;
+      return null;
+    }
+    myHits++;
+    return type.copy();
+  }
+
+  public void put(Expression expr, Expression type) {
+    myTypes.put(new Key(expr), type.copy());
+  }
+
+  public int size() {
+    return myTypes.size();
+  }
+
+  public long getHits() {
+    return myHits;
+  }
+
+  public long getMisses() {
+    return myMisses;
+  }
+}
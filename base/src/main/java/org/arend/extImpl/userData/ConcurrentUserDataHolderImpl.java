@@ -0,0 +1,38 @@
+package org.arend.extImpl.userData;
+
+import org.arend.ext.userData.Key;
+import org.arend.ext.userData.UserDataHolder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * A version of {@link UserDataHolderImpl} that can be accessed from several threads.
+ * The storage is never modified in place, so reads do not require locking.
+ */
+public class ConcurrentUserDataHolderImpl implements UserDataHolder {
+  private static final AtomicReferenceFieldUpdater<ConcurrentUserDataHolderImpl, Object> ourUpdater = AtomicReferenceFieldUpdater.newUpdater(ConcurrentUserDataHolderImpl.class, Object.class, "myUserData");
+  private volatile Object myUserData;
+
+  @Override
+  public <T> @Nullable T getUserData(@NotNull Key<T> key) {
+    return UserDataStorage.get(myUserData, key);
+  }
+
+  @Override
+  public <T> void putUserData(@NotNull Key<T> key, @Nullable T value) {
+    while (true) {
+      Object data = myUserData;
+      Object newData = UserDataStorage.put(data, key, value, false);
+      if (newData == data || ourUpdater.compareAndSet(this, data, newData)) {
+        return;
+      }
+    }
+  }
+
+  public Map<Key<?>, Object> getUserDataMap() {
+    return UserDataStorage.toMap(myUserData);
+  }
+}
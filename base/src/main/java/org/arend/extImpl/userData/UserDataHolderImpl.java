@@ -5,57 +5,49 @@ import org.arend.ext.userData.UserDataHolder;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Keeps up to {@link UserDataStorage#INLINE_CAPACITY} values in an array and switches to a map if there are more of them.
+ */
 public class UserDataHolderImpl implements UserDataHolder {
-  private Map<Key<?>, Object> myUserDataMap;
+  private Object myUserData;
 
-  private UserDataHolderImpl(Map<Key<?>, Object> map) {
-    myUserDataMap = map;
+  private UserDataHolderImpl(Object data) {
+    myUserData = data;
   }
 
   public UserDataHolderImpl() {
-    myUserDataMap = null;
+    myUserData = null;
   }
 
   protected void setUserData(UserDataHolderImpl holder) {
-    myUserDataMap = holder.myUserDataMap;
+    myUserData = holder.getUserDataStorage();
+  }
+
+  protected void clearUserData() {
+    myUserData = null;
+  }
+
+  Object getUserDataStorage() {
+    return myUserData;
   }
 
   public UserDataHolderImpl copyUserData() {
-    if (myUserDataMap == null || myUserDataMap.isEmpty()) return new UserDataHolderImpl();
-    Map<Key<?>, Object> map = new HashMap<>();
-    for (Map.Entry<Key<?>, Object> entry : myUserDataMap.entrySet()) {
-      //noinspection unchecked
-      Key<Object> key = (Key<Object>) entry.getKey();
-      map.put(key, key.copy(entry.getValue()));
-    }
-    return new UserDataHolderImpl(map);
+    return new UserDataHolderImpl(UserDataStorage.copy(getUserDataStorage()));
   }
 
   @Override
   public <T> @Nullable T getUserData(@NotNull Key<T> key) {
-    //noinspection unchecked
-    return myUserDataMap == null ? null : (T) myUserDataMap.get(key);
+    return UserDataStorage.get(myUserData, key);
   }
 
   @Override
   public <T> void putUserData(@NotNull Key<T> key, @Nullable T value) {
-    if (value != null) {
-      if (myUserDataMap == null) {
-        myUserDataMap = new HashMap<>();
-      }
-      myUserDataMap.put(key, value);
-    } else {
-      if (myUserDataMap != null) {
-        myUserDataMap.remove(key);
-      }
-    }
+    myUserData = UserDataStorage.put(myUserData, key, value, true);
   }
 
   public Map<Key<?>, Object> getUserDataMap() {
-    return myUserDataMap != null ? myUserDataMap : Collections.emptyMap();
+    return UserDataStorage.toMap(getUserDataStorage());
   }
 }
@@ -0,0 +1,131 @@
+package org.arend.extImpl.userData;
+
+import org.arend.ext.userData.Key;
+
+import java.util.*;
+
+/**
+ * Operations on compact storage of user data.
+ * The storage is either null, an array of at most {@link #INLINE_CAPACITY} pairs of keys and values, or a map if there are more keys.
+ */
+final class UserDataStorage {
+  static final int INLINE_CAPACITY = 4;
+
+  private UserDataStorage() {}
+
+  @SuppressWarnings("unchecked")
+  static <T> T get(Object data, Key<T> key) {
+    if (data instanceof Object[]) {
+      Object[] array = (Object[]) data;
+      for (int i = 0; i < array.length && array[i] != null; i += 2) {
+        if (array[i] == key) {
+          return (T) array[i + 1];
+        }
+      }
+      return null;
+    }
+    return data == null ? null : (T) ((Map<?, ?>) data).get(key);
+  }
+
+  /**
+   * Puts a value into the storage.
+   *
+   * @param inPlace if false, the given storage is not modified.
+   * @return the updated storage.
+   */
+  static Object put(Object data, Key<?> key, Object value, boolean inPlace) {
+    if (data == null) {
+      if (value == null) {
+        return null;
+      }
+      Object[] array = new Object[2 * INLINE_CAPACITY];
+      array[0] = key;
+      array[1] = value;
+      return array;
+    }
+
+    if (data instanceof Object[]) {
+      Object[] array = inPlace ? (Object[]) data : ((Object[]) data).clone();
+      int i = 0;
+      while (i < array.length && array[i] != null && array[i] != key) {
+        i += 2;
+      }
+      if (i < array.length && array[i] == key) {
+        if (value != null) {
+          array[i + 1] = value;
+        } else {
+          System.arraycopy(array, i + 2, array, i, array.length - i - 2);
+          array[array.length - 2] = null;
+          array[array.length - 1] = null;
+        }
+        return array;
+      }
+      if (value == null) {
+        return data;
+      }
+      if (i < array.length) {
+        array[i] = key;
+        array[i + 1] = value;
+        return array;
+      }
+
+      Map<Key<?>, Object> map = new HashMap<>();
+      for (int j = 0; j < array.length; j += 2) {
+        map.put((Key<?>) array[j], array[j + 1]);
+      }
+      map.put(key, value);
+      return map;
+    }
+
+    @SuppressWarnings("unchecked") Map<Key<?>, Object> map = (Map<Key<?>, Object>) data;
+    if (!inPlace) {
+      if (value == null ? !map.containsKey(key) : map.get(key) == value) {
+        return data;
+      }
+      map = new HashMap<>(map);
+    }
+    if (value != null) {
+      map.put(key, value);
+    } else {
+      map.remove(key);
+    }
+    return map;
+  }
+
+  /**
+   * @return a new storage with values copied by {@link Key#copy}.
+   */
+  @SuppressWarnings("unchecked")
+  static Object copy(Object data) {
+    if (data instanceof Object[]) {
+      Object[] array = ((Object[]) data).clone();
+      for (int i = 0; i < array.length && array[i] != null; i += 2) {
+        array[i + 1] = ((Key<Object>) array[i]).copy(array[i + 1]);
+      }
+      return array;
+    }
+    if (data == null || ((Map<?, ?>) data).isEmpty()) {
+      return null;
+    }
+
+    Map<Key<?>, Object> result = new HashMap<>();
+    for (Map.Entry<?, ?> entry : ((Map<?, ?>) data).entrySet()) {
+      Key<Object> key = (Key<Object>) entry.getKey();
+      result.put(key, key.copy(entry.getValue()));
+    }
+    return result;
+  }
+
+  @SuppressWarnings("unchecked")
+  static Map<Key<?>, Object> toMap(Object data) {
+    if (data instanceof Object[]) {
+      Object[] array = (Object[]) data;
+      Map<Key<?>, Object> result = new LinkedHashMap<>();
+      for (int i = 0; i < array.length && array[i] != null; i += 2) {
+        result.put((Key<?>) array[i], array[i + 1]);
+      }
+      return result;
+    }
+    return data == null ? Collections.emptyMap() : Collections.unmodifiableMap((Map<Key<?>, Object>) data);
+  }
+}
@@ -1,5 +1,6 @@
 package org.arend.library;
 
+import org.arend.core.expr.visitor.NormalizeVisitor;
 import org.arend.ext.ArendExtension;
 import org.arend.ext.error.ErrorReporter;
 import org.arend.ext.typechecking.DefinitionListener;
@@ -11,13 +12,17 @@ import org.arend.module.scopeprovider.CachingModuleScopeProvider;
 import org.arend.module.scopeprovider.ModuleScopeProvider;
 import org.arend.naming.scope.Scope;
 import org.arend.prelude.Prelude;
+import org.arend.typechecking.instance.pool.GlobalInstancePool;
 import org.arend.typechecking.instance.provider.InstanceProviderSet;
 import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+import org.arend.util.Metrics;
 import org.arend.util.Range;
 import org.arend.util.Version;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
 import java.util.*;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
@@ -37,6 +42,7 @@ public class LibraryManager {
   private MultiClassLoader<Library> myInternalClassLoader = new MultiClassLoader<>(myExternalClassLoader);
   private final DefinitionRequester myDefinitionRequester;
   private final DefinitionListener myDefinitionListener;
+  private final Metrics myMetrics = new Metrics();
 
   /**
    * Constructs new {@code LibraryManager}.
@@ -54,6 +60,35 @@ public class LibraryManager {
     myLibraryErrorReporter = libraryErrorReporter;
     myDefinitionRequester = definitionRequester;
     myDefinitionListener = listener;
+    registerProcessMetrics();
+  }
+
+  private void registerProcessMetrics() {
+    myMetrics.counter("arend_normalization_steps_total", "Function bodies evaluated during normalization", NormalizeVisitor::getSteps);
+    myMetrics.counter("arend_instance_searches_total", "Searches of global instances", GlobalInstancePool::getSearches);
+    myMetrics.gauge("arend_heap_used_bytes", "Used heap memory", () -> ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+    myMetrics.gauge("arend_heap_committed_bytes", "Committed heap memory", () -> ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getCommitted());
+    myMetrics.counter("arend_gc_collections_total", "Garbage collections", () -> {
+      long result = 0;
+      for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+        result += Math.max(bean.getCollectionCount(), 0);
+      }
+      return result;
+    });
+    myMetrics.counter("arend_gc_time_milliseconds_total", "Time spent in garbage collection", () -> {
+      long result = 0;
+      for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+        result += Math.max(bean.getCollectionTime(), 0);
+      }
+      return result;
+    });
+  }
+
+  /**
+   * Gets metrics of loading and typechecking of libraries.
+   */
+  public Metrics getMetrics() {
+    return myMetrics;
   }
 
   /**
@@ -222,7 +257,9 @@ public class LibraryManager {
     try {
       myReverseDependencies.put(library, new HashSet<>());
       boolean result = library.load(this, typechecking);
-      if (!result) {
+      if (result) {
+        myMetrics.counter(Metrics.LIBRARIES_LOADED, "Loaded libraries").increment();
+      } else {
         myReverseDependencies.remove(library);
         myFailedLibraries.add(library);
       }
@@ -251,6 +288,22 @@ public class LibraryManager {
 
   }
 
+  /**
+   * Invoked after a stage of loading of a source library is finished.
+   *
+   * @param library     the loaded library.
+   * @param stage       the finished stage.
+   * @param time        time spent in the stage in nanoseconds.
+   */
+  protected void loadingStageFinished(SourceLibrary library, SourceLibrary.LoadingStage stage, long time) {
+
+  }
+
+  void stageFinished(SourceLibrary library, SourceLibrary.LoadingStage stage, long time) {
+    myMetrics.histogram(Metrics.LOADING_STAGE_TIME, "Time spent in stages of library loading", "stage", stage.name().toLowerCase()).recordNanos(time);
+    loadingStageFinished(library, stage, time);
+  }
+
   /**
    * Registers a library dependency.
    *
@@ -40,6 +40,7 @@ import java.util.Map;
  */
 public abstract class SourceLibrary extends BaseLibrary {
   public enum Flag { RECOMPILE }
+  public enum LoadingStage { HEADER, EXTENSION, RAW_SOURCES, BINARIES }
   private final EnumSet<Flag> myFlags = EnumSet.noneOf(Flag.class);
   private final SimpleModuleScopeProvider myAdditionalModuleScopeProvider = new SimpleModuleScopeProvider();
   private ArendExtension myExtension;
@@ -205,7 +206,9 @@ public abstract class SourceLibrary extends BaseLibrary {
       return true;
     }
 
+    long time = System.nanoTime();
     LibraryHeader header = loadHeader(libraryManager.getLibraryErrorReporter());
+    libraryManager.stageFinished(this, LoadingStage.HEADER, System.nanoTime() - time);
     if (header == null) {
       return false;
     }
@@ -237,6 +240,7 @@ public abstract class SourceLibrary extends BaseLibrary {
 
     libraryManager.beforeLibraryLoading(this);
 
+    time = System.nanoTime();
     try {
       Class<?> extMainClass = null;
       if (header.classLoaderDelegate != null && header.extMainClass != null) {
@@ -277,17 +281,21 @@ public abstract class SourceLibrary extends BaseLibrary {
       contributor.disable();
     }
     loadGeneratedModules();
+    libraryManager.stageFinished(this, LoadingStage.EXTENSION, System.nanoTime() - time);
 
     try {
       SourceLoader sourceLoader = new SourceLoader(this, libraryManager);
       if (hasRawSources()) {
+        time = System.nanoTime();
         for (ModulePath module : header.modules) {
           sourceLoader.preloadRaw(module, false);
         }
         sourceLoader.loadRawSources();
+        libraryManager.stageFinished(this, LoadingStage.RAW_SOURCES, System.nanoTime() - time);
       }
 
       if (!myFlags.contains(Flag.RECOMPILE) || isExternal()) {
+        time = System.nanoTime();
         DefinitionListener definitionListener = ListDefinitionListener.join(libraryManager.getDefinitionListener(), myExtension.getDefinitionListener());
         for (ModulePath module : header.modules) {
           if (!sourceLoader.loadBinary(module, keyRegistry, definitionListener) && isExternal()) {
@@ -298,6 +306,7 @@ public abstract class SourceLibrary extends BaseLibrary {
             }
           }
         }
+        libraryManager.stageFinished(this, LoadingStage.BINARIES, System.nanoTime() - time);
       }
     } catch (Throwable e) {
       libraryManager.afterLibraryLoading(this, false);
@@ -1,5 +1,17 @@
 package org.arend.library.classLoader;
 
+import java.util.Set;
+
 public interface ClassLoaderDelegate {
   byte[] findClass(String name) throws ClassNotFoundException;
+
+  /**
+   * Lists packages that contain classes of this delegate.
+   * {@link MultiClassLoader} uses the listing to ask only relevant delegates for a class.
+   *
+   * @return the set of package names or null if classes cannot be listed.
+   */
+  default Set<String> getPackages() {
+    return null;
+  }
 }
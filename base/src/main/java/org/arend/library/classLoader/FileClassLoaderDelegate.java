@@ -4,6 +4,9 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public class FileClassLoaderDelegate implements ClassLoaderDelegate {
   private final Path myRoot;
@@ -22,6 +25,26 @@ public class FileClassLoaderDelegate implements ClassLoaderDelegate {
     }
   }
 
+  @Override
+  public Set<String> getPackages() {
+    if (!Files.isDirectory(myRoot)) {
+      return new HashSet<>();
+    }
+
+    Set<String> result = new HashSet<>();
+    try (Stream<Path> files = Files.walk(myRoot)) {
+      files.forEach(file -> {
+        if (file.getFileName().toString().endsWith(".class") && Files.isRegularFile(file)) {
+          Path dir = myRoot.relativize(file).getParent();
+          result.add(dir == null ? "" : dir.toString().replace(File.separatorChar, '.'));
+        }
+      });
+    } catch (IOException e) {
+      return null;
+    }
+    return result;
+  }
+
   @Override
   public String toString() {
     return myRoot.toString();
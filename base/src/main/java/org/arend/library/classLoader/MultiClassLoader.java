@@ -1,31 +1,100 @@
 package org.arend.library.classLoader;
 
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.*;
 
+/**
+ * A class loader that looks for classes in a collection of delegates.
+ * Delegates are indexed by packages of their classes, so only delegates that contain the package of a class are asked for it.
+ * Classes that were not found are remembered until the set of delegates changes.
+ * Packages of a delegate are listed again whenever it is added, so a reloaded library sees its current classes.
+ */
 public class MultiClassLoader<T> extends ClassLoader {
   private final Map<T, ClassLoaderDelegate> myDelegates = new LinkedHashMap<>();
+  private final Map<ClassLoaderDelegate, Set<String>> myPackages = new HashMap<>();
+  private final Set<String> myMissingClasses = new HashSet<>();
+  private Map<String, List<ClassLoaderDelegate>> myIndex;
+  private boolean myHasUnindexedDelegates;
 
   public MultiClassLoader(ClassLoader parent) {
     super(parent);
   }
 
-  public void addDelegate(T name, ClassLoaderDelegate delegate) {
-    myDelegates.put(name, delegate);
+  public synchronized void addDelegate(T name, ClassLoaderDelegate delegate) {
+    ClassLoaderDelegate oldDelegate = myDelegates.put(name, delegate);
+    if (oldDelegate != null) {
+      myPackages.remove(oldDelegate);
+    }
+    myPackages.remove(delegate);
+    invalidate();
   }
 
-  public void removeDelegate(T name) {
-    myDelegates.remove(name);
+  public synchronized void removeDelegate(T name) {
+    ClassLoaderDelegate delegate = myDelegates.remove(name);
+    if (delegate != null && !myDelegates.containsValue(delegate)) {
+      myPackages.remove(delegate);
+    }
+    invalidate();
   }
 
-  @Override
-  protected Class<?> findClass(String name) throws ClassNotFoundException {
+  private void invalidate() {
+    myIndex = null;
+    myMissingClasses.clear();
+  }
+
+  private Set<String> getPackages(ClassLoaderDelegate delegate) {
+    if (myPackages.containsKey(delegate)) {
+      return myPackages.get(delegate);
+    }
+    Set<String> packages = delegate.getPackages();
+    myPackages.put(delegate, packages);
+    return packages;
+  }
+
+  private void buildIndex() {
+    myIndex = new HashMap<>();
+    myHasUnindexedDelegates = false;
+    for (ClassLoaderDelegate delegate : myDelegates.values()) {
+      Set<String> packages = getPackages(delegate);
+      if (packages == null) {
+        myHasUnindexedDelegates = true;
+        continue;
+      }
+      for (String pack : packages) {
+        myIndex.computeIfAbsent(pack, k -> new ArrayList<>(1)).add(delegate);
+      }
+    }
+  }
+
+  private Collection<ClassLoaderDelegate> getCandidates(String name) {
+    if (myIndex == null) {
+      buildIndex();
+    }
+    int index = name.lastIndexOf('.');
+    String pack = index < 0 ? "" : name.substring(0, index);
+    if (!myHasUnindexedDelegates) {
+      return myIndex.getOrDefault(pack, Collections.emptyList());
+    }
+
+    List<ClassLoaderDelegate> result = new ArrayList<>();
     for (ClassLoaderDelegate delegate : myDelegates.values()) {
-      byte[] bytes = delegate.findClass(name);
-      if (bytes != null) {
-        return defineClass(name, bytes, 0, bytes.length);
+      Set<String> packages = myPackages.get(delegate);
+      if (packages == null || packages.contains(pack)) {
+        result.add(delegate);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  protected synchronized Class<?> findClass(String name) throws ClassNotFoundException {
+    if (!myMissingClasses.contains(name)) {
+      for (ClassLoaderDelegate delegate : getCandidates(name)) {
+        byte[] bytes = delegate.findClass(name);
+        if (bytes != null) {
+          return defineClass(name, bytes, 0, bytes.length);
+        }
       }
+      myMissingClasses.add(name);
     }
     throw new ClassNotFoundException("Cannot find class " + name + " in any of the following locations " + new ArrayList<>(myDelegates.values()) + " or in the classpath");
   }
@@ -3,6 +3,9 @@ package org.arend.library.classLoader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -43,6 +46,31 @@ public class ZipClassLoaderDelegate implements ClassLoaderDelegate {
     }
   }
 
+  private Set<String> listPackages(ZipFile zipFile) {
+    Set<String> result = new HashSet<>();
+    for (Enumeration<? extends ZipEntry> entries = zipFile.entries(); entries.hasMoreElements(); ) {
+      String name = entries.nextElement().getName();
+      if (name.startsWith(myPrefix) && name.endsWith(".class")) {
+        int index = name.lastIndexOf('/');
+        result.add(index < myPrefix.length() ? "" : name.substring(myPrefix.length(), index).replace('/', '.'));
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public Set<String> getPackages() {
+    if (zipFile != null) {
+      return listPackages(zipFile);
+    }
+
+    try (ZipFile zipFile = new ZipFile(myFile)) {
+      return listPackages(zipFile);
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
   @Override
   public String toString() {
     return myFile.getName();
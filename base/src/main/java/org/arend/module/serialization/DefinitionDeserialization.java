@@ -438,6 +438,7 @@ public class DefinitionDeserialization implements ArendDeserializer {
     }
     functionDef.setKind(kind);
     functionDef.setVisibleParameter(functionProto.getVisibleParameter());
+    functionDef.setHeight(functionProto.getHeight());
     if (functionProto.hasBody()) {
       functionDef.setBody(readBody(defDeserializer, functionProto.getBody(), DependentLink.Helper.size(functionDef.getParameters())));
     }
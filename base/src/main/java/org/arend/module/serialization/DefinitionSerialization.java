@@ -356,6 +356,7 @@ public class DefinitionSerialization implements ArendSerializer {
     }
     builder.setKind(kind);
     builder.setVisibleParameter(definition.getVisibleParameter());
+    builder.setHeight(definition.getHeight());
     if (definition.getReallyActualBody() != null) {
       builder.setBody(writeBody(defSerializer, definition.getReallyActualBody()));
     }
@@ -3,7 +3,7 @@ package org.arend.prelude;
 import org.arend.ext.module.ModulePath;
 import org.arend.library.LibraryManager;
 import org.arend.naming.reference.converter.ReferableConverter;
-import org.arend.source.GZIPStreamBinarySource;
+import org.arend.source.BlockCompressedBinarySource;
 import org.arend.source.PersistableBinarySource;
 import org.arend.source.Source;
 import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
@@ -46,7 +46,7 @@ public class PreludeResourceLibrary extends PreludeLibrary {
   @Nullable
   @Override
   public PersistableBinarySource getPersistableBinarySource(ModulePath modulePath) {
-    return new GZIPStreamBinarySource(new PreludeResourceSource());
+    return new BlockCompressedBinarySource(new PreludeResourceSource());
   }
 
   @Override
@@ -10,6 +10,7 @@ import java.util.Collections;
 
 /**
  * A library which is used to load and typecheck prelude.
+ * Prelude is typechecked at most once per process, so an instance of this library can be shared between library managers.
  */
 public abstract class PreludeTypecheckingLibrary extends PreludeLibrary {
   private boolean myTypechecked = false;
@@ -44,6 +45,7 @@ public abstract class PreludeTypecheckingLibrary extends PreludeLibrary {
           Prelude.initialize(getPreludeScope());
         }
       }
+      myTypechecked = true;
       return true;
     } else {
       return false;
@@ -26,6 +26,9 @@ import org.arend.term.concrete.Concrete;
 import org.arend.term.group.Group;
 import org.arend.term.prettyprint.PrettyPrintVisitor;
 import org.arend.term.prettyprint.ToAbstractVisitor;
+import org.arend.typechecking.computation.NormalizationBudget;
+import org.arend.typechecking.computation.NormalizationBudgetExceededException;
+import org.arend.typechecking.error.local.NormalizationLimitError;
 import org.arend.typechecking.instance.pool.GlobalInstancePool;
 import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
 import org.arend.typechecking.result.TypecheckingResult;
@@ -41,6 +44,10 @@ import java.util.function.Supplier;
 public abstract class Repl {
   public static final @NotNull ModuleLocation replModulePath = new ModuleLocation("Repl", true, ModuleLocation.LocationKind.SOURCE, ModulePath.fromString("Repl"));
   public @Nullable NormalizationMode normalizationMode = NormalizationMode.ENF;
+  /**
+   * The maximal number of normalization steps performed for an input or 0 if there is no limit.
+   */
+  public long normalizationLimit = 0;
   public final @NotNull EnumSet<@NotNull PrettyPrinterFlag> prettyPrinterFlags = EnumSet.of(PrettyPrinterFlag.SHOW_LOCAL_FIELD_INSTANCE);
 
   protected final List<Scope> myMergedScopes = new LinkedList<>();
@@ -184,6 +191,7 @@ public abstract class Repl {
     registerAction("quit", QuitCommand.INSTANCE);
     registerAction("type", ShowTypeCommand.INSTANCE);
     registerAction("normalize", NormalizeCommand.INSTANCE);
+    registerAction("limit", NormalizationLimitCommand.INSTANCE);
     registerAction("libraries", ShowLoadedLibrariesCommand.INSTANCE);
     registerAction("?", CommandHandler.HELP_COMMAND_INSTANCE);
     registerAction("help", CommandHandler.HELP_COMMAND_INSTANCE);
@@ -265,7 +273,28 @@ public abstract class Repl {
   public abstract void eprintln(Object anything);
 
   public Expression normalize(Expression expr) {
-    return normalizationMode == null ? expr : expr.normalize(normalizationMode);
+    if (normalizationMode == null) {
+      return expr;
+    }
+    Expression result = withNormalizationLimit(() -> expr.normalize(normalizationMode), null);
+    return result == null ? expr : result;
+  }
+
+  /**
+   * Runs a computation with the normalization limit of the REPL.
+   * If the limit is exceeded, an error is reported and null is returned.
+   */
+  protected <T> @Nullable T withNormalizationLimit(@NotNull Supplier<T> computation, @Nullable Concrete.SourceNode cause) {
+    if (normalizationLimit <= 0) {
+      return computation.get();
+    }
+    NormalizationBudget budget = new NormalizationBudget(normalizationLimit);
+    try {
+      return budget.run(computation);
+    } catch (NormalizationBudgetExceededException e) {
+      myErrorReporter.report(new NormalizationLimitError(budget, cause));
+      return null;
+    }
   }
 
   @Contract("_, _ -> param1")
@@ -286,7 +315,8 @@ public abstract class Repl {
     var instanceProvider = typechecking.getInstanceProviderSet().get(myModuleReferable);
     var instancePool = new GlobalInstancePool(instanceProvider, typechecker);
     typechecker.setInstancePool(instancePool);
-    var result = typechecker.finalCheckExpr(expr, expectedType);
+    var finalExpr = expr;
+    var result = withNormalizationLimit(() -> typechecker.finalCheckExpr(finalExpr, expectedType), expr);
     if (!checkErrors()) {
       continuation.accept(result);
     }
@@ -0,0 +1,47 @@
+package org.arend.repl.action;
+
+import org.arend.repl.Repl;
+import org.jetbrains.annotations.Nls;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.Supplier;
+
+public final class NormalizationLimitCommand implements ReplCommand {
+  public static final @NotNull NormalizationLimitCommand INSTANCE = new NormalizationLimitCommand();
+
+  private NormalizationLimitCommand() {
+  }
+
+  @Override
+  public @Nls(capitalization = Nls.Capitalization.Sentence) @NotNull String description() {
+    return "Limit the number of normalization steps performed for an input";
+  }
+
+  @Override
+  public @Nls @NotNull String help(@NotNull Repl api) {
+    return "Limit the number of normalization steps performed for an input (currently " + (api.normalizationLimit > 0 ? api.normalizationLimit : "unlimited") + ").\n" +
+        "Pass 0 to remove the limit.\n" +
+        "If you did not pass a command argument, the current limit will be printed.";
+  }
+
+  @Override
+  public void invoke(@NotNull String line, @NotNull Repl api, @NotNull Supplier<@NotNull String> scanner) {
+    line = line.trim();
+    if (line.isEmpty()) {
+      api.println("Normalization limit: " + (api.normalizationLimit > 0 ? api.normalizationLimit : "unlimited"));
+      return;
+    }
+
+    long limit;
+    try {
+      limit = Long.parseLong(line);
+    } catch (NumberFormatException e) {
+      limit = -1;
+    }
+    if (limit < 0) {
+      api.eprintln("[ERROR] `" + line + "` is not a valid number of steps, see `:? limit`");
+    } else {
+      api.normalizationLimit = limit;
+    }
+  }
+}
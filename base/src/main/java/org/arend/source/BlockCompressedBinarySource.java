@@ -0,0 +1,102 @@
+package org.arend.source;
+
+import org.arend.ext.module.ModulePath;
+import org.arend.library.SourceLibrary;
+import org.arend.util.BlockCompressedData;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A binary source that persists modules in {@link BlockCompressedData} containers.
+ * Modules that were persisted by {@link GZIPStreamBinarySource} can also be loaded.
+ */
+public class BlockCompressedBinarySource extends StreamBinarySource {
+  private final StreamBinarySource mySource;
+  private final int myCompressionLevel;
+
+  /**
+   * Creates a new {@code BlockCompressedBinarySource} from a specified source.
+   * @param source            the input source.
+   * @param compressionLevel  the compression level used for persisting, from 0 to 9, or {@link Deflater#DEFAULT_COMPRESSION}.
+   */
+  public BlockCompressedBinarySource(StreamBinarySource source, int compressionLevel) {
+    mySource = source;
+    myCompressionLevel = compressionLevel;
+  }
+
+  public BlockCompressedBinarySource(StreamBinarySource source) {
+    this(source, Deflater.DEFAULT_COMPRESSION);
+  }
+
+  @Nullable
+  @Override
+  protected InputStream getInputStream() throws IOException {
+    InputStream stream = mySource.getInputStream();
+    if (stream == null) {
+      return null;
+    }
+
+    byte[] bytes;
+    try (stream) {
+      bytes = stream.readAllBytes();
+    }
+    return decompress(ByteBuffer.wrap(bytes));
+  }
+
+  /**
+   * Decompresses a persisted module.
+   *
+   * @param data  either a {@link BlockCompressedData} container or a gzip stream.
+   */
+  public static InputStream decompress(ByteBuffer data) throws IOException {
+    if (BlockCompressedData.isBlockCompressed(data)) {
+      return new ByteArrayInputStream(new BlockCompressedData(data).readAll());
+    }
+    if (data.hasArray()) {
+      return new GZIPInputStream(new ByteArrayInputStream(data.array(), data.arrayOffset() + data.position(), data.remaining()));
+    }
+    byte[] bytes = new byte[data.remaining()];
+    data.duplicate().get(bytes);
+    return new GZIPInputStream(new ByteArrayInputStream(bytes));
+  }
+
+  @Nullable
+  @Override
+  protected OutputStream getOutputStream() throws IOException {
+    OutputStream stream = mySource.getOutputStream();
+    return stream == null ? null : new ByteArrayOutputStream() {
+      @Override
+      public void close() throws IOException {
+        try (stream) {
+          BlockCompressedData.write(buf, count, BlockCompressedData.DEFAULT_BLOCK_SIZE, myCompressionLevel, stream);
+        }
+      }
+    };
+  }
+
+  @NotNull
+  @Override
+  public ModulePath getModulePath() {
+    return mySource.getModulePath();
+  }
+
+  @Override
+  public long getTimeStamp() {
+    return mySource.getTimeStamp();
+  }
+
+  @Override
+  public boolean isAvailable() {
+    return mySource.isAvailable();
+  }
+
+  @Override
+  public boolean delete(SourceLibrary library) {
+    return mySource.delete(library);
+  }
+}
@@ -12,6 +12,7 @@ import org.arend.module.scopeprovider.ModuleScopeProvider;
 import org.arend.naming.reference.converter.ReferableConverter;
 import org.arend.naming.scope.Scope;
 import org.arend.typechecking.instance.provider.InstanceProviderSet;
+import org.arend.util.Metrics;
 
 import java.util.HashMap;
 import java.util.Iterator;
@@ -76,6 +77,10 @@ public final class SourceLoader {
     return myLibraryManager.getLibraryErrorReporter();
   }
 
+  public Metrics getMetrics() {
+    return myLibraryManager.getMetrics();
+  }
+
   public void setModuleLoaded(ModulePath modulePath) {
     myLoadedModules.put(modulePath, SourceType.RAW);
   }
@@ -20,6 +20,7 @@ import org.arend.source.error.LocationError;
 import org.arend.source.error.PersistingError;
 import org.arend.term.group.ChildGroup;
 import org.arend.term.group.Group;
+import org.arend.util.Metrics;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -65,19 +66,36 @@ public abstract class StreamBinarySource implements PersistableBinarySource {
   @Nullable
   protected abstract OutputStream getOutputStream() throws IOException;
 
+  /**
+   * Reads the serialized module from {@link #getInputStream()}.
+   *
+   * @return the module or null if some error occurred.
+   */
+  @Nullable
+  protected ModuleProtos.Module readModule(Metrics metrics) throws IOException {
+    try (InputStream inputStream = getInputStream()) {
+      if (inputStream == null) {
+        return null;
+      }
+
+      CodedInputStream codedInputStream = CodedInputStream.newInstance(metrics.countBytes(inputStream));
+      codedInputStream.setRecursionLimit(Integer.MAX_VALUE);
+      return ModuleProtos.Module.parseFrom(codedInputStream);
+    }
+  }
+
   @Override
   public boolean preload(SourceLoader sourceLoader) {
     SourceLibrary library = sourceLoader.getLibrary();
     ModulePath modulePath = getModulePath();
     ChildGroup group = null;
-    try (InputStream inputStream = getInputStream()) {
-      if (inputStream == null) {
+    try {
+      Metrics metrics = sourceLoader.getMetrics();
+      ModuleProtos.Module moduleProto = readModule(metrics);
+      if (moduleProto == null) {
         return false;
       }
 
-      CodedInputStream codedInputStream = CodedInputStream.newInstance(inputStream);
-      codedInputStream.setRecursionLimit(Integer.MAX_VALUE);
-      ModuleProtos.Module moduleProto = ModuleProtos.Module.parseFrom(codedInputStream);
       boolean isComplete = moduleProto.getComplete();
       if (!isComplete && !library.hasRawSources()) {
         sourceLoader.getLibraryErrorReporter().report(new PartialModuleError(modulePath));
@@ -107,6 +125,7 @@ public abstract class StreamBinarySource implements PersistableBinarySource {
         myModuleDeserialization.readDefinitions(group);
       }
 
+      metrics.counter(Metrics.BINARIES_LOADED, "Loaded binary modules").increment();
       return true;
     } catch (IOException | DeserializationException e) {
       loadingFailed(sourceLoader, modulePath, group, e);
@@ -0,0 +1,457 @@
+package org.arend.term.prettyprint;
+
+import org.arend.core.context.binding.Binding;
+import org.arend.core.context.param.DependentLink;
+import org.arend.core.context.param.TypedDependentLink;
+import org.arend.core.definition.ClassField;
+import org.arend.core.expr.*;
+import org.arend.core.expr.let.HaveClause;
+import org.arend.core.expr.visitor.ExpressionVisitor;
+import org.arend.ext.prettyprinting.PrettyPrinterConfig;
+import org.arend.ext.reference.Precedence;
+import org.arend.prelude.Prelude;
+import org.arend.term.concrete.Concrete;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Prints core expressions directly to an {@link Appendable} without converting them to concrete expressions.
+ * Subexpressions nested deeper than the depth budget are printed as {@link #ELIDED}.
+ * When the length budget is exhausted, the output is cut and ends with {@link #CUT}.
+ * Expressions are never normalized, so the cost of printing is proportional to the budgets rather than to the size of the expression.
+ */
+public class BoundedPrettyPrintVisitor implements ExpressionVisitor<Boolean, Void> {
+  public static final String ELIDED = "{..}";
+  public static final String CUT = "...";
+
+  private final Appendable myBuilder;
+  private final int myMaxDepth;
+  private final int myMaxLength;
+  private final Map<Binding, Expression> mySubstitution = new HashMap<>();
+  private int myDepth;
+  private int myLength;
+  private boolean myComplete = true;
+
+  private static class LengthExceededException extends RuntimeException {
+    LengthExceededException() {
+      super(null, null, false, false);
+    }
+  }
+
+  private BoundedPrettyPrintVisitor(Appendable builder, int maxDepth, int maxLength) {
+    myBuilder = builder;
+    myMaxDepth = maxDepth;
+    myMaxLength = maxLength;
+  }
+
+  /**
+   * Prints an expression.
+   *
+   * @param expr      the expression to print.
+   * @param builder   the output.
+   * @param maxDepth  subexpressions nested deeper than this are elided.
+   * @param maxLength the maximum number of characters printed, not counting the final {@link #CUT}.
+   * @return true if the budgets were not exceeded, false if some subexpressions were elided or the output was cut.
+   */
+  public static boolean print(Expression expr, Appendable builder, int maxDepth, int maxLength) {
+    BoundedPrettyPrintVisitor visitor = new BoundedPrettyPrintVisitor(builder, maxDepth, maxLength);
+    try {
+      visitor.print(expr, false);
+    } catch (LengthExceededException e) {
+      visitor.myComplete = false;
+      try {
+        builder.append(CUT);
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+    return visitor.myComplete;
+  }
+
+  /**
+   * Checks if an expression is longer than the length budget.
+   * Subexpressions nested deeper than {@code maxDepth} are counted as {@link #ELIDED}.
+   */
+  public static boolean exceedsLength(Expression expr, int maxDepth, int maxLength) {
+    try {
+      new BoundedPrettyPrintVisitor(Writer.nullWriter(), maxDepth, maxLength).print(expr, false);
+      return false;
+    } catch (LengthExceededException e) {
+      return true;
+    }
+  }
+
+  private void append(String str) {
+    try {
+      if (myLength + str.length() > myMaxLength) {
+        myBuilder.append(str, 0, myMaxLength - myLength);
+        throw new LengthExceededException();
+      }
+      myBuilder.append(str);
+      myLength += str.length();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Prints a subexpression.
+   *
+   * @param isAtomic  true if the subexpression must be enclosed in parentheses unless it is atomic.
+   */
+  private void print(Expression expr, boolean isAtomic) {
+    if (myDepth >= myMaxDepth) {
+      myComplete = false;
+      append(ELIDED);
+      return;
+    }
+    myDepth++;
+    try {
+      expr.accept(this, isAtomic);
+    } finally {
+      myDepth--;
+    }
+  }
+
+  private void printArgument(Expression arg, boolean isExplicit) {
+    if (isExplicit) {
+      append(" ");
+      print(arg, true);
+    } else {
+      append(" {");
+      print(arg, false);
+      append("}");
+    }
+  }
+
+  private void printName(Binding binding) {
+    String name = binding.getName();
+    append(name == null ? "_" : name);
+  }
+
+  private void printParameters(DependentLink link) {
+    List<String> names = new ArrayList<>();
+    while (link.hasNext()) {
+      names.clear();
+      TypedDependentLink typed = link.getNextTyped(names);
+      append(typed.isExplicit() ? " (" : " {");
+      for (int i = 0; i < names.size(); i++) {
+        if (i > 0) append(" ");
+        append(names.get(i) == null ? "_" : names.get(i));
+      }
+      append(" : ");
+      print(typed.getTypeExpr(), false);
+      append(typed.isExplicit() ? ")" : "}");
+      link = typed.getNext();
+    }
+  }
+
+  private void printDefCall(DefCallExpression expr, List<? extends Expression> implicitArguments, boolean isAtomic) {
+    List<? extends Expression> args = expr.getDefCallArguments();
+    boolean parens = isAtomic && !(implicitArguments.isEmpty() && args.isEmpty());
+    if (parens) append("(");
+    append(expr.getDefinition().getName());
+    for (Expression arg : implicitArguments) {
+      printArgument(arg, false);
+    }
+    DependentLink param = expr.getDefinition().getParameters();
+    for (Expression arg : args) {
+      printArgument(arg, !param.hasNext() || param.isExplicit());
+      if (param.hasNext()) {
+        param = param.getNext();
+      }
+    }
+    if (parens) append(")");
+  }
+
+  @Override
+  public Void visitApp(AppExpression expr, Boolean isAtomic) {
+    List<AppExpression> apps = new ArrayList<>();
+    Expression fun = expr;
+    while (fun instanceof AppExpression) {
+      apps.add((AppExpression) fun);
+      fun = ((AppExpression) fun).getFunction();
+    }
+    if (isAtomic) append("(");
+    print(fun, true);
+    for (int i = apps.size() - 1; i >= 0; i--) {
+      printArgument(apps.get(i).getArgument(), apps.get(i).isExplicit());
+    }
+    if (isAtomic) append(")");
+    return null;
+  }
+
+  @Override
+  public Void visitFunCall(FunCallExpression expr, Boolean isAtomic) {
+    printDefCall(expr, Collections.emptyList(), isAtomic);
+    return null;
+  }
+
+  @Override
+  public Void visitConCall(ConCallExpression expr, Boolean isAtomic) {
+    printDefCall(expr, expr.getDataTypeArguments(), isAtomic);
+    return null;
+  }
+
+  @Override
+  public Void visitDataCall(DataCallExpression expr, Boolean isAtomic) {
+    printDefCall(expr, Collections.emptyList(), isAtomic);
+    return null;
+  }
+
+  @Override
+  public Void visitFieldCall(FieldCallExpression expr, Boolean isAtomic) {
+    if (isAtomic) append("(");
+    append(expr.getDefinition().getName());
+    printArgument(expr.getArgument(), false);
+    if (isAtomic) append(")");
+    return null;
+  }
+
+  private void printImplementations(Map<ClassField, Expression> implementations) {
+    if (implementations.isEmpty()) {
+      return;
+    }
+    append(" {");
+    for (Map.Entry<ClassField, Expression> entry : implementations.entrySet()) {
+      append(" | ");
+      append(entry.getKey().getName());
+      append(" => ");
+      print(entry.getValue(), false);
+    }
+    append(" }");
+  }
+
+  @Override
+  public Void visitClassCall(ClassCallExpression expr, Boolean isAtomic) {
+    boolean parens = isAtomic && !expr.getImplementedHere().isEmpty();
+    if (parens) append("(");
+    append(expr.getDefinition().getName());
+    printImplementations(expr.getImplementedHere());
+    if (parens) append(")");
+    return null;
+  }
+
+  @Override
+  public Void visitReference(ReferenceExpression expr, Boolean isAtomic) {
+    Expression substExpr = mySubstitution.get(expr.getBinding());
+    if (substExpr != null) {
+      print(substExpr, isAtomic);
+    } else {
+      printName(expr.getBinding());
+    }
+    return null;
+  }
+
+  @Override
+  public Void visitInferenceReference(InferenceReferenceExpression expr, Boolean isAtomic) {
+    if (expr.getSubstExpression() != null) {
+      print(expr.getSubstExpression(), isAtomic);
+    } else {
+      append(expr.getVariable().toString());
+    }
+    return null;
+  }
+
+  @Override
+  public Void visitSubst(SubstExpression expr, Boolean isAtomic) {
+    // Substitutes bindings lazily instead of evaluating the substitution
+    Map<Binding, Expression> saved = new HashMap<>();
+    for (Map.Entry<Binding, Expression> entry : expr.getSubstitution().getEntries()) {
+      saved.put(entry.getKey(), mySubstitution.put(entry.getKey(), entry.getValue()));
+    }
+    try {
+      print(expr.getExpression(), isAtomic);
+    } finally {
+      for (Map.Entry<Binding, Expression> entry : saved.entrySet()) {
+        if (entry.getValue() == null) {
+          mySubstitution.remove(entry.getKey());
+        } else {
+          mySubstitution.put(entry.getKey(), entry.getValue());
+        }
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public Void visitLam(LamExpression expr, Boolean isAtomic) {
+    if (isAtomic) append("(");
+    append("\\lam");
+    Expression body = expr;
+    while (body instanceof LamExpression) {
+      printParameters(((LamExpression) body).getParameters());
+      body = ((LamExpression) body).getBody();
+    }
+    append(" => ");
+    print(body, false);
+    if (isAtomic) append(")");
+    return null;
+  }
+
+  @Override
+  public Void visitPi(PiExpression expr, Boolean isAtomic) {
+    if (isAtomic) append("(");
+    append("\\Pi");
+    Expression codomain = expr;
+    while (codomain instanceof PiExpression) {
+      printParameters(((PiExpression) codomain).getParameters());
+      codomain = ((PiExpression) codomain).getCodomain();
+    }
+    append(" -> ");
+    print(codomain, false);
+    if (isAtomic) append(")");
+    return null;
+  }
+
+  @Override
+  public Void visitSigma(SigmaExpression expr, Boolean isAtomic) {
+    boolean parens = isAtomic && expr.getParameters().hasNext();
+    if (parens) append("(");
+    append("\\Sigma");
+    printParameters(expr.getParameters());
+    if (parens) append(")");
+    return null;
+  }
+
+  @Override
+  public Void visitUniverse(UniverseExpression expr, Boolean isAtomic) {
+    StringBuilder builder = new StringBuilder();
+    ToAbstractVisitor.convert(expr, PrettyPrinterConfig.DEFAULT).accept(new PrettyPrintVisitor(builder, 0), new Precedence(Concrete.Expression.PREC));
+    String str = builder.toString();
+    boolean parens = isAtomic && str.indexOf(' ') >= 0;
+    if (parens) append("(");
+    append(str);
+    if (parens) append(")");
+    return null;
+  }
+
+  @Override
+  public Void visitError(ErrorExpression expr, Boolean isAtomic) {
+    append(expr.isGoal() ? "{?" : "{?error");
+    if (expr.getExpression() != null) {
+      append("(");
+      print(expr.getExpression(), false);
+      append(")");
+    }
+    append("}");
+    return null;
+  }
+
+  @Override
+  public Void visitTuple(TupleExpression expr, Boolean isAtomic) {
+    append("(");
+    boolean first = true;
+    for (Expression field : expr.getFields()) {
+      if (!first) append(", ");
+      print(field, false);
+      first = false;
+    }
+    append(")");
+    return null;
+  }
+
+  @Override
+  public Void visitProj(ProjExpression expr, Boolean isAtomic) {
+    print(expr.getExpression(), true);
+    append("." + (expr.getField() + 1));
+    return null;
+  }
+
+  @Override
+  public Void visitNew(NewExpression expr, Boolean isAtomic) {
+    if (isAtomic) append("(");
+    append("\\new ");
+    if (expr.getRenewExpression() != null) {
+      print(expr.getRenewExpression(), true);
+    } else {
+      append(expr.getClassCall().getDefinition().getName());
+    }
+    printImplementations(expr.getClassCall().getImplementedHere());
+    if (isAtomic) append(")");
+    return null;
+  }
+
+  @Override
+  public Void visitPEval(PEvalExpression expr, Boolean isAtomic) {
+    if (isAtomic) append("(");
+    append("\\eval ");
+    print(expr.getExpression(), false);
+    if (isAtomic) append(")");
+    return null;
+  }
+
+  @Override
+  public Void visitLet(LetExpression expr, Boolean isAtomic) {
+    if (isAtomic) append("(");
+    append(expr.isStrict() ? "\\let! " : "\\let ");
+    boolean first = true;
+    for (HaveClause clause : expr.getClauses()) {
+      if (!first) append(" | ");
+      printName(clause);
+      append(" => ");
+      print(clause.getExpression(), false);
+      first = false;
+    }
+    append(" \\in ");
+    print(expr.getExpression(), false);
+    if (isAtomic) append(")");
+    return null;
+  }
+
+  @Override
+  public Void visitCase(CaseExpression expr, Boolean isAtomic) {
+    if (isAtomic) append("(");
+    append(expr.isSCase() ? "\\scase " : "\\case ");
+    boolean first = true;
+    for (Expression argument : expr.getArguments()) {
+      if (!first) append(", ");
+      print(argument, false);
+      first = false;
+    }
+    append(" \\return ");
+    print(expr.getResultType(), false);
+    // Clauses are never printed, so they do not count as elided
+    append(" \\with " + ELIDED);
+    if (isAtomic) append(")");
+    return null;
+  }
+
+  @Override
+  public Void visitOfType(OfTypeExpression expr, Boolean isAtomic) {
+    print(expr.getExpression(), isAtomic);
+    return null;
+  }
+
+  @Override
+  public Void visitInteger(IntegerExpression expr, Boolean isAtomic) {
+    append(expr.getBigInteger().toString());
+    return null;
+  }
+
+  @Override
+  public Void visitTypeCoerce(TypeCoerceExpression expr, Boolean isAtomic) {
+    print(expr.getArgument(), isAtomic);
+    return null;
+  }
+
+  @Override
+  public Void visitArray(ArrayExpression expr, Boolean isAtomic) {
+    boolean parens = isAtomic && !(expr.getElements().isEmpty() && expr.getTail() == null);
+    if (parens) append("(");
+    for (Expression element : expr.getElements()) {
+      print(element, true);
+      append(" " + Prelude.ARRAY_CONS.getName() + " ");
+    }
+    if (expr.getTail() != null) {
+      print(expr.getTail(), true);
+    } else {
+      append(Prelude.EMPTY_ARRAY.getName());
+    }
+    if (parens) append(")");
+    return null;
+  }
+}
@@ -0,0 +1,75 @@
+package org.arend.typechecking;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records how to undo changes of the typechecker state while there is a saved state.
+ * Saving a state takes a mark of the trail and loading it rolls the trail back to this mark,
+ * so both operations cost time proportional to the number of changes rather than to the size of the state.
+ */
+public class UndoTrail {
+  private final List<Runnable> myActions = new ArrayList<>();
+  private int myDepth;
+
+  /**
+   * @return true if changes should be recorded, that is, if there is a saved state.
+   */
+  public boolean isRecording() {
+    return myDepth > 0;
+  }
+
+  /**
+   * Records an action that undoes the last change.
+   * Does nothing if there are no saved states.
+   */
+  public void record(Runnable undo) {
+    if (myDepth > 0) {
+      myActions.add(undo);
+    }
+  }
+
+  /**
+   * Starts recording changes for a new saved state.
+   *
+   * @return a mark that can be passed to {@link #rollback}.
+   */
+  public int push() {
+    myDepth++;
+    return myActions.size();
+  }
+
+  /**
+   * @return a mark corresponding to the current state.
+   */
+  public int mark() {
+    return myActions.size();
+  }
+
+  /**
+   * Undoes all changes recorded after the given mark.
+   */
+  public void rollback(int mark) {
+    for (int i = myActions.size() - 1; i >= mark; i--) {
+      myActions.remove(i).run();
+    }
+  }
+
+  /**
+   * Stops recording changes for the last saved state.
+   * Changes are still kept for enclosing states.
+   */
+  public void pop() {
+    if (--myDepth == 0) {
+      myActions.clear();
+    }
+  }
+
+  /**
+   * Forgets all saved states and recorded changes.
+   */
+  public void reset() {
+    myActions.clear();
+    myDepth = 0;
+  }
+}
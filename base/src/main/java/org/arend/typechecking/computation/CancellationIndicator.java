@@ -11,6 +11,20 @@ public interface CancellationIndicator {
 
   }
 
+  /**
+   * Called before a definition is typechecked.
+   */
+  default void definitionStarted(TCDefReferable definition) {
+
+  }
+
+  /**
+   * Called after a definition is typechecked or its typechecking is interrupted.
+   */
+  default void definitionFinished(TCDefReferable definition) {
+
+  }
+
   default void checkCanceled() throws ComputationInterruptedException {
     if (isCanceled()) {
       throw new ComputationInterruptedException();
@@ -0,0 +1,68 @@
+package org.arend.typechecking.computation;
+
+import org.arend.naming.reference.TCDefReferable;
+import org.arend.util.ComputationInterruptedException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Cancels a computation if one of the given indicators cancels it.
+ */
+public class CompositeCancellationIndicator implements CancellationIndicator {
+  private final List<CancellationIndicator> myIndicators;
+
+  public CompositeCancellationIndicator(List<? extends CancellationIndicator> indicators) {
+    myIndicators = new ArrayList<>(indicators);
+  }
+
+  public CompositeCancellationIndicator(CancellationIndicator... indicators) {
+    this(Arrays.asList(indicators));
+  }
+
+  @Override
+  public boolean isCanceled() {
+    for (CancellationIndicator indicator : myIndicators) {
+      if (indicator.isCanceled()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public void cancel() {
+    for (CancellationIndicator indicator : myIndicators) {
+      indicator.cancel();
+    }
+  }
+
+  @Override
+  public void cancel(TCDefReferable target) {
+    for (CancellationIndicator indicator : myIndicators) {
+      indicator.cancel(target);
+    }
+  }
+
+  @Override
+  public void checkCanceled() throws ComputationInterruptedException {
+    for (CancellationIndicator indicator : myIndicators) {
+      indicator.checkCanceled();
+    }
+  }
+
+  @Override
+  public void definitionStarted(TCDefReferable definition) {
+    for (CancellationIndicator indicator : myIndicators) {
+      indicator.definitionStarted(definition);
+    }
+  }
+
+  @Override
+  public void definitionFinished(TCDefReferable definition) {
+    for (CancellationIndicator indicator : myIndicators) {
+      indicator.definitionFinished(definition);
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package org.arend.typechecking.computation;
+
+import org.arend.util.ComputationInterruptedException;
+
+/**
+ * Cancels a computation when the given amount of time has passed since this indicator was created.
+ */
+public class DeadlineCancellationIndicator implements CancellationIndicator {
+  private static final int CHECK_INTERVAL = 256;
+
+  private final long myDeadline;
+  private volatile boolean myCancelled;
+  private volatile boolean myExpired;
+  private int myCounter;
+
+  public DeadlineCancellationIndicator(long timeoutMillis) {
+    myDeadline = System.nanoTime() + timeoutMillis * 1000000;
+  }
+
+  @Override
+  public boolean isCanceled() {
+    if (!myCancelled && System.nanoTime() - myDeadline >= 0) {
+      myExpired = true;
+      myCancelled = true;
+    }
+    return myCancelled;
+  }
+
+  /**
+   * @return true if the computation was cancelled because the deadline has passed rather than by {@link #cancel()}.
+   */
+  public boolean isExpired() {
+    return myExpired;
+  }
+
+  @Override
+  public void cancel() {
+    myCancelled = true;
+  }
+
+  /**
+   * Checks the clock only once in {@link #CHECK_INTERVAL} calls since this method is called very often.
+   */
+  @Override
+  public void checkCanceled() throws ComputationInterruptedException {
+    if (myCancelled || ++myCounter % CHECK_INTERVAL == 0 && isCanceled()) {
+      throw new ComputationInterruptedException();
+    }
+  }
+}
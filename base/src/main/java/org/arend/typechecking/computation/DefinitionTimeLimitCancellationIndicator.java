@@ -0,0 +1,62 @@
+package org.arend.typechecking.computation;
+
+import org.arend.naming.reference.TCDefReferable;
+import org.arend.util.ComputationInterruptedException;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Interrupts typechecking of a definition that takes more than the given amount of time.
+ * Other definitions are not affected.
+ */
+public class DefinitionTimeLimitCancellationIndicator implements CancellationIndicator {
+  private static final int CHECK_INTERVAL = 256;
+
+  private final long myLimit;
+  private final LongSupplier myClock;
+  private TCDefReferable myDefinition;
+  private long myDeadline;
+  private int myCounter;
+
+  public DefinitionTimeLimitCancellationIndicator(long limitMillis) {
+    this(limitMillis, System::nanoTime);
+  }
+
+  /**
+   * @param clock  returns the current time in nanoseconds.
+   */
+  public DefinitionTimeLimitCancellationIndicator(long limitMillis, LongSupplier clock) {
+    myLimit = limitMillis;
+    myClock = clock;
+  }
+
+  @Override
+  public boolean isCanceled() {
+    return false;
+  }
+
+  @Override
+  public void cancel() {
+
+  }
+
+  @Override
+  public void checkCanceled() throws ComputationInterruptedException {
+    if (myDefinition != null && ++myCounter % CHECK_INTERVAL == 0 && myClock.getAsLong() - myDeadline >= 0) {
+      myDefinition = null;
+      throw new LimitExceededException("Typechecking time limit (" + myLimit + " ms) exceeded");
+    }
+  }
+
+  @Override
+  public void definitionStarted(TCDefReferable definition) {
+    myDefinition = definition;
+    myCounter = 0;
+    myDeadline = myClock.getAsLong() + myLimit * 1000000;
+  }
+
+  @Override
+  public void definitionFinished(TCDefReferable definition) {
+    myDefinition = null;
+  }
+}
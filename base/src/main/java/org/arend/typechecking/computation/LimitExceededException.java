@@ -0,0 +1,13 @@
+package org.arend.typechecking.computation;
+
+import org.arend.util.ComputationInterruptedException;
+
+/**
+ * Interrupts typechecking of a single definition.
+ * {@link org.arend.typechecking.order.listener.TypecheckingOrderingListener} reports it and continues with other definitions.
+ */
+public class LimitExceededException extends ComputationInterruptedException {
+  public LimitExceededException(String message) {
+    super(message);
+  }
+}
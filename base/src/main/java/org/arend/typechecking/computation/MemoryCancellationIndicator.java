@@ -0,0 +1,89 @@
+package org.arend.typechecking.computation;
+
+import org.arend.naming.reference.TCDefReferable;
+import org.arend.util.ComputationInterruptedException;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import java.lang.management.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Interrupts typechecking of the current definition when the heap is almost full after a garbage collection.
+ * The indicator listens to notifications of {@link MemoryMXBean}, so it does not poll memory usage.
+ * It must be closed to remove the listener and to restore previous thresholds of memory pools.
+ */
+public class MemoryCancellationIndicator implements CancellationIndicator, AutoCloseable {
+  private final double myFraction;
+  private final Map<MemoryPoolMXBean, Long> myPreviousThresholds = new LinkedHashMap<>();
+  private final NotificationListener myListener = this::handleNotification;
+  private volatile boolean myExceeded;
+  private TCDefReferable myDefinition;
+
+  /**
+   * @param fraction  the fraction of the maximum size of a heap pool after which typechecking is interrupted.
+   */
+  public MemoryCancellationIndicator(double fraction) {
+    myFraction = fraction;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported()) {
+        long max = pool.getUsage().getMax();
+        if (max > 0) {
+          myPreviousThresholds.put(pool, pool.getCollectionUsageThreshold());
+          pool.setCollectionUsageThreshold((long) (max * fraction));
+        }
+      }
+    }
+    ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).addNotificationListener(myListener, null, null);
+  }
+
+  private void handleNotification(Notification notification, Object handback) {
+    if (MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(notification.getType())) {
+      myExceeded = true;
+    }
+  }
+
+  @Override
+  public boolean isCanceled() {
+    return false;
+  }
+
+  @Override
+  public void cancel() {
+
+  }
+
+  @Override
+  public void checkCanceled() throws ComputationInterruptedException {
+    if (myExceeded && myDefinition != null) {
+      myExceeded = false;
+      myDefinition = null;
+      throw new LimitExceededException("Heap usage exceeded " + Math.round(myFraction * 100) + "% of the maximum");
+    }
+  }
+
+  @Override
+  public void definitionStarted(TCDefReferable definition) {
+    // A notification received between definitions should not interrupt the next one
+    myExceeded = false;
+    myDefinition = definition;
+  }
+
+  @Override
+  public void definitionFinished(TCDefReferable definition) {
+    myDefinition = null;
+  }
+
+  @Override
+  public void close() {
+    try {
+      ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).removeNotificationListener(myListener);
+    } catch (ListenerNotFoundException ignored) {}
+    for (Map.Entry<MemoryPoolMXBean, Long> entry : myPreviousThresholds.entrySet()) {
+      entry.getKey().setCollectionUsageThreshold(entry.getValue());
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package org.arend.typechecking.computation;
+
+import org.arend.core.definition.Definition;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Limits the number of reductions performed by {@link org.arend.core.expr.visitor.NormalizeVisitor} in the current thread.
+ * Beta reductions, unfoldings of definitions, and steps of evaluation of elimination trees are counted.
+ * When the limit is exceeded, {@link NormalizationBudgetExceededException} is thrown.
+ * Since comparison of expressions normalizes them, this also limits {@link org.arend.core.expr.visitor.CompareVisitor}.
+ */
+public class NormalizationBudget {
+  private static final ThreadLocal<NormalizationBudget> ourCurrent = new ThreadLocal<>();
+  private static final AtomicInteger ourRunning = new AtomicInteger();
+
+  private final long myLimit;
+  private long mySteps;
+  private final Map<Definition, Long> myDefinitionSteps = new HashMap<>();
+  private NormalizationBudget myParent;
+
+  /**
+   * @param limit  the maximal number of steps.
+   */
+  public NormalizationBudget(long limit) {
+    myLimit = limit;
+  }
+
+  public long getLimit() {
+    return myLimit;
+  }
+
+  public long getSteps() {
+    return mySteps;
+  }
+
+  /**
+   * @return the number of steps that unfolded or evaluated each definition.
+   */
+  public Map<Definition, Long> getDefinitionSteps() {
+    return Collections.unmodifiableMap(myDefinitionSteps);
+  }
+
+  /**
+   * @return at most {@code number} definitions with the largest number of steps.
+   */
+  public List<Map.Entry<Definition, Long>> getMostExpensiveDefinitions(int number) {
+    List<Map.Entry<Definition, Long>> result = new ArrayList<>(myDefinitionSteps.entrySet());
+    result.sort(Map.Entry.<Definition, Long>comparingByValue().reversed());
+    return result.size() > number ? result.subList(0, number) : result;
+  }
+
+  /**
+   * Runs a computation with this budget.
+   * Budgets can be nested; steps are counted in all of them.
+   */
+  public <T> T run(Supplier<T> computation) {
+    myParent = ourCurrent.get();
+    ourCurrent.set(this);
+    ourRunning.incrementAndGet();
+    try {
+      return computation.get();
+    } finally {
+      ourRunning.decrementAndGet();
+      ourCurrent.set(myParent);
+      myParent = null;
+    }
+  }
+
+  public static @Nullable NormalizationBudget getCurrent() {
+    return ourCurrent.get();
+  }
+
+  /**
+   * Counts a reduction step in the current budget, if there is one.
+   *
+   * @param definition  the definition which is unfolded or evaluated, or null for beta reductions.
+   */
+  public static void step(@Nullable Definition definition) {
+    // Avoids the thread local lookup when no thread runs a budget
+    if (ourRunning.get() == 0) {
+      return;
+    }
+    for (NormalizationBudget budget = ourCurrent.get(); budget != null; budget = budget.myParent) {
+      budget.consume(definition);
+    }
+  }
+
+  private void consume(Definition definition) {
+    if (definition != null) {
+      myDefinitionSteps.merge(definition, 1L, Long::sum);
+    }
+    if (++mySteps > myLimit) {
+      throw new NormalizationBudgetExceededException(this);
+    }
+  }
+}
@@ -0,0 +1,10 @@
+package org.arend.typechecking.computation;
+
+public class NormalizationBudgetExceededException extends RuntimeException {
+  public final NormalizationBudget budget;
+
+  public NormalizationBudgetExceededException(NormalizationBudget budget) {
+    super("Normalization step limit (" + budget.getLimit() + ") exceeded", null, false, false);
+    this.budget = budget;
+  }
+}
@@ -2,10 +2,19 @@ package org.arend.typechecking.doubleChecker;
 
 import org.arend.core.definition.Definition;
 import org.arend.ext.error.ErrorReporter;
+import org.arend.ext.error.ListErrorReporter;
 import org.arend.naming.reference.LocatedReferable;
 import org.arend.naming.reference.TCDefReferable;
 import org.arend.term.group.Group;
 import org.arend.typechecking.error.local.LocalErrorReporter;
+import org.arend.util.Pair;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Predicate;
 
 public class CoreModuleChecker {
   private final ErrorReporter myErrorReporter;
@@ -40,4 +49,83 @@ public class CoreModuleChecker {
 
     return ok;
   }
+
+  private static void collectDefinitions(Group group, @Nullable Predicate<? super TCDefReferable> filter, List<TCDefReferable> result) {
+    LocatedReferable ref = group.getReferable();
+    if (ref instanceof TCDefReferable && ((TCDefReferable) ref).getTypechecked() != null && (filter == null || filter.test((TCDefReferable) ref))) {
+      result.add((TCDefReferable) ref);
+    }
+    for (Group subgroup : group.getSubgroups()) {
+      collectDefinitions(subgroup, filter, result);
+    }
+    for (Group subgroup : group.getDynamicSubgroups()) {
+      collectDefinitions(subgroup, filter, result);
+    }
+  }
+
+  /**
+   * Checks definitions in the given groups.
+   * If {@code threads > 1}, definitions are checked in parallel, each thread uses its own checker.
+   * Errors are reported in the same order as by {@link #checkGroup}, regardless of the number of threads.
+   *
+   * @param groups  groups to check.
+   * @param threads the number of threads.
+   * @param filter  if not null, only definitions satisfying it are checked.
+   * @return true if all checked definitions are correct, false otherwise.
+   */
+  public boolean checkGroups(Collection<? extends Group> groups, int threads, @Nullable Predicate<? super TCDefReferable> filter) {
+    List<TCDefReferable> refs = new ArrayList<>();
+    for (Group group : groups) {
+      collectDefinitions(group, filter, refs);
+    }
+
+    if (threads <= 1 || refs.size() <= 1) {
+      boolean ok = true;
+      for (TCDefReferable ref : refs) {
+        myChecker.setErrorReporter(new LocalErrorReporter(ref, myErrorReporter));
+        if (!myChecker.check(ref.getTypechecked())) {
+          ok = false;
+        }
+      }
+      return ok;
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, refs.size()));
+    ThreadLocal<CoreDefinitionChecker> checkers = ThreadLocal.withInitial(() -> new CoreDefinitionChecker(myErrorReporter));
+    try {
+      List<Future<Pair<Boolean, ListErrorReporter>>> results = new ArrayList<>(refs.size());
+      for (TCDefReferable ref : refs) {
+        results.add(executor.submit(() -> {
+          ListErrorReporter errorReporter = new ListErrorReporter();
+          CoreDefinitionChecker checker = checkers.get();
+          checker.setErrorReporter(new LocalErrorReporter(ref, errorReporter));
+          return new Pair<>(checker.check(ref.getTypechecked()), errorReporter);
+        }));
+      }
+
+      boolean ok = true;
+      for (Future<Pair<Boolean, ListErrorReporter>> result : results) {
+        Pair<Boolean, ListErrorReporter> pair = result.get();
+        pair.proj2.reportTo(myErrorReporter);
+        if (!pair.proj1) {
+          ok = false;
+        }
+      }
+      return ok;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
 }
@@ -0,0 +1,39 @@
+package org.arend.typechecking.error.local;
+
+import org.arend.core.definition.Definition;
+import org.arend.ext.error.TypecheckingError;
+import org.arend.ext.prettyprinting.PrettyPrinterConfig;
+import org.arend.ext.prettyprinting.doc.Doc;
+import org.arend.ext.prettyprinting.doc.LineDoc;
+import org.arend.term.concrete.Concrete;
+import org.arend.typechecking.computation.NormalizationBudget;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.arend.ext.prettyprinting.doc.DocFactory.*;
+
+public class NormalizationLimitError extends TypecheckingError {
+  public final NormalizationBudget budget;
+
+  public NormalizationLimitError(NormalizationBudget budget, @Nullable Concrete.SourceNode cause) {
+    super("Normalization step limit (" + budget.getLimit() + ") exceeded", cause);
+    this.budget = budget;
+  }
+
+  @Override
+  public Doc getBodyDoc(PrettyPrinterConfig ppConfig) {
+    List<Map.Entry<Definition, Long>> definitions = budget.getMostExpensiveDefinitions(5);
+    if (definitions.isEmpty()) {
+      return nullDoc();
+    }
+
+    List<LineDoc> docs = new ArrayList<>(definitions.size());
+    for (Map.Entry<Definition, Long> entry : definitions) {
+      docs.add(hList(refDoc(entry.getKey().getReferable()), text(": " + entry.getValue() + " steps")));
+    }
+    return hang(text("Most unfolded definitions:"), vList(docs));
+  }
+}
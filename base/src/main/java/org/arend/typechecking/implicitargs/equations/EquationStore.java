@@ -0,0 +1,208 @@
+package org.arend.typechecking.implicitargs.equations;
+
+import org.arend.core.context.binding.inference.InferenceVariable;
+import org.arend.typechecking.UndoTrail;
+
+import java.util.*;
+
+/**
+ * Stores unsolved equations in the order they were added.
+ * Equations are indexed by inference variables that occur as one of their sides.
+ * Newly added equations are also kept in a queue until they are examined by {@link TwoStageEquations#solveEquations}.
+ * Changes are recorded in an {@link UndoTrail}, so removed equations return to their original positions when it is rolled back.
+ */
+class EquationStore implements Iterable<Equation> {
+  private final List<Equation> myEquations = new ArrayList<>();  // removed equations are replaced with null
+  private final Map<Equation, Integer> myPositions = new HashMap<>();
+  private final Map<InferenceVariable, List<Equation>> myIndex = new HashMap<>();
+  private final Deque<Equation> myPending = new ArrayDeque<>();
+  private final UndoTrail myTrail;
+
+  EquationStore(UndoTrail trail) {
+    myTrail = trail;
+  }
+
+  public void add(Equation equation) {
+    if (myPositions.containsKey(equation)) {
+      return;
+    }
+    compact();
+    int position = myEquations.size();
+    myEquations.add(equation);
+    myPositions.put(equation, position);
+    index(equation);
+    myPending.add(equation);
+    myTrail.record(() -> {
+      if (position == myEquations.size() - 1) {
+        myEquations.remove(position);
+      } else {
+        myEquations.set(position, null);
+      }
+      myPositions.remove(equation);
+    });
+  }
+
+  public void addAll(Collection<? extends Equation> equations) {
+    for (Equation equation : equations) {
+      add(equation);
+    }
+  }
+
+  public boolean remove(Equation equation) {
+    Integer position = myPositions.remove(equation);
+    if (position == null) {
+      return false;
+    }
+    myEquations.set(position, null);
+    myTrail.record(() -> restore(equation, position));
+    return true;
+  }
+
+  private void restore(Equation equation, int position) {
+    myEquations.set(position, equation);
+    myPositions.put(equation, position);
+    index(equation);
+    myPending.add(equation);
+  }
+
+  /**
+   * Removes gaps left by removed equations.
+   * This is done only if no changes are recorded since positions of equations are stored in the trail.
+   */
+  private void compact() {
+    if (myTrail.isRecording() || myEquations.size() < 16 || myPositions.size() * 2 > myEquations.size()) {
+      return;
+    }
+    int j = 0;
+    for (Equation equation : myEquations) {
+      if (equation != null) {
+        myEquations.set(j, equation);
+        myPositions.put(equation, j);
+        j++;
+      }
+    }
+    myEquations.subList(j, myEquations.size()).clear();
+  }
+
+  public boolean contains(Equation equation) {
+    return myPositions.containsKey(equation);
+  }
+
+  public boolean isEmpty() {
+    return myPositions.isEmpty();
+  }
+
+  /**
+   * Updates the index after sides of an equation were changed.
+   */
+  public void index(Equation equation) {
+    addToIndex(equation.expr1.getInferenceVariable(), equation);
+    addToIndex(equation.expr2.getInferenceVariable(), equation);
+  }
+
+  private void addToIndex(InferenceVariable var, Equation equation) {
+    if (var != null) {
+      List<Equation> equations = myIndex.computeIfAbsent(var, k -> new ArrayList<>());
+      if (equations.isEmpty() || equations.get(equations.size() - 1) != equation) {
+        equations.add(equation);
+      }
+    }
+  }
+
+  /**
+   * @return equations one of the sides of which was the given variable when it was indexed.
+   *         The caller should check that the variable still occurs in the returned equations.
+   */
+  public List<Equation> getEquations(InferenceVariable var) {
+    List<Equation> equations = myIndex.get(var);
+    if (equations == null) {
+      return Collections.emptyList();
+    }
+    equations.removeIf(equation -> !myPositions.containsKey(equation));
+    if (equations.isEmpty()) {
+      myIndex.remove(var);
+      return Collections.emptyList();
+    }
+    return new ArrayList<>(equations);
+  }
+
+  /**
+   * @return the next equation that was added since the last call of this method or null if there are no such equations.
+   */
+  public Equation pollPending() {
+    while (!myPending.isEmpty()) {
+      Equation equation = myPending.poll();
+      if (myPositions.containsKey(equation)) {
+        return equation;
+      }
+    }
+    return null;
+  }
+
+  public List<Equation> toList() {
+    List<Equation> result = new ArrayList<>(myPositions.size());
+    for (Equation equation : this) {
+      result.add(equation);
+    }
+    return result;
+  }
+
+  public void clear() {
+    if (myTrail.isRecording()) {
+      List<Equation> equations = new ArrayList<>(myEquations);
+      myTrail.record(() -> {
+        // Equations added after clearing are already removed
+        myEquations.clear();
+        myEquations.addAll(equations);
+        for (int i = 0; i < equations.size(); i++) {
+          if (equations.get(i) != null) {
+            restore(equations.get(i), i);
+          }
+        }
+      });
+    }
+    myEquations.clear();
+    myPositions.clear();
+    myIndex.clear();
+    myPending.clear();
+  }
+
+  @Override
+  public Iterator<Equation> iterator() {
+    return new Iterator<>() {
+      private int myNext = advance(0);
+      private Equation myLast;
+
+      private int advance(int i) {
+        while (i < myEquations.size() && myEquations.get(i) == null) {
+          i++;
+        }
+        return i;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return myNext < myEquations.size();
+      }
+
+      @Override
+      public Equation next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        myLast = myEquations.get(myNext);
+        myNext = advance(myNext + 1);
+        return myLast;
+      }
+
+      @Override
+      public void remove() {
+        if (myLast == null) {
+          throw new IllegalStateException();
+        }
+        EquationStore.this.remove(myLast);
+        myLast = null;
+      }
+    };
+  }
+}
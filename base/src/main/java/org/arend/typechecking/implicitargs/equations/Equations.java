@@ -5,6 +5,7 @@ import org.arend.core.context.binding.inference.InferenceVariable;
 import org.arend.core.context.binding.inference.TypeClassInferenceVariable;
 import org.arend.core.expr.Expression;
 import org.arend.core.expr.FieldCallExpression;
+import org.arend.core.expr.visitor.ConversionCache;
 import org.arend.core.sort.Level;
 import org.arend.core.subst.LevelSubstitution;
 import org.arend.ext.core.ops.CMP;
@@ -31,4 +32,11 @@ public interface Equations {
   boolean supportsExpressions();
   void saveState(TypecheckerState state);
   void loadState(TypecheckerState state);
+
+  /**
+   * @return a cache of comparison results that is valid while these equations are used, or null if results should not be cached.
+   */
+  default ConversionCache getConversionCache() {
+    return null;
+  }
 }
@@ -1,17 +1,49 @@
 package org.arend.typechecking.implicitargs.equations;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.function.Predicate;
 
+/**
+ * A system of difference constraints over level variables.
+ * Variables are numbered and the current solution is kept in arrays indexed by these numbers.
+ * When equations are added, only the affected part of the solution is recalculated by the next call of {@link #solve}.
+ */
 public class LevelEquations<Var> {
   private final List<Var> myVariables = new ArrayList<>();
   private final List<LevelEquation<Var>> myEquations = new ArrayList<>();
   static final int INFINITY = Integer.MAX_VALUE;
 
+  // Node 0 corresponds to the null variable, that is, to constant levels
+  private final List<Var> myNodes = new ArrayList<>(Collections.singletonList(null));
+  private final Map<Var, Integer> myNodeIndices = new HashMap<>();
+
+  // Edges are non-infinity equations; the list of outgoing edges of a node starts at myFirstEdge and continues by myNextEdge
+  private int myNumberOfEdges;
+  private int[] myEdgeFrom = new int[8];
+  private int[] myEdgeTo = new int[8];
+  private int[] myEdgeConstant = new int[8];
+  private int[] myEdgeMaxConstant = new int[8];
+  private boolean[] myEdgeHasMaxConstant = new boolean[8];
+  private int[] myNextEdge = new int[8];
+  private final List<LevelEquation<Var>> myEdgeEquations = new ArrayList<>();
+  private int[] myFirstEdge = new int[8];
+
+  private int[] myValues = new int[8];
+  private int[] myPaths = new int[8];
+  private int[] myPathLengths = new int[8];
+  private int[] myQueue = new int[8];
+  private boolean[] myQueued = new boolean[8];
+  private int myQueueStart;
+  private int myQueueSize;
+  private boolean myValid;
+  private List<LevelEquation<Var>> myCycle;
+
+  public LevelEquations() {
+    myFirstEdge[0] = -1;
+  }
+
   public List<LevelEquation<Var>> getEquations() {
-    return myEquations;
+    return Collections.unmodifiableList(myEquations);
   }
 
   public List<Var> getVariables() {
@@ -20,70 +52,216 @@ public class LevelEquations<Var> {
 
   void addVariable(Var var) {
     myVariables.add(var);
+    getNode(var);
   }
 
   public void add(LevelEquations<Var> equations) {
-    myVariables.addAll(equations.myVariables);
-    myEquations.addAll(equations.myEquations);
+    for (Var var : equations.myVariables) {
+      addVariable(var);
+    }
+    for (LevelEquation<Var> equation : equations.myEquations) {
+      addEquation(equation);
+    }
   }
 
   void addEquation(LevelEquation<Var> equation) {
     myEquations.add(equation);
+    addEdge(equation);
+  }
+
+  /**
+   * Removes equations satisfying the given predicate.
+   * The solution is recalculated from scratch by the next call of {@link #solve}.
+   */
+  public void removeEquations(Predicate<? super LevelEquation<Var>> predicate) {
+    if (!myEquations.removeIf(predicate)) {
+      return;
+    }
+    Arrays.fill(myFirstEdge, 0, myNodes.size(), -1);
+    myNumberOfEdges = 0;
+    myEdgeEquations.clear();
+    for (LevelEquation<Var> equation : myEquations) {
+      addEdge(equation);
+    }
+    myValid = false;
   }
 
   public void clear() {
     myVariables.clear();
     myEquations.clear();
+    myNodes.subList(1, myNodes.size()).clear();
+    myNodeIndices.clear();
+    myFirstEdge[0] = -1;
+    myNumberOfEdges = 0;
+    myEdgeEquations.clear();
+    myQueueSize = 0;
+    myValid = false;
   }
 
   public boolean isEmpty() {
     return myVariables.isEmpty() && myEquations.isEmpty();
   }
 
+  private int getNode(Var var) {
+    if (var == null) {
+      return 0;
+    }
+    Integer index = myNodeIndices.get(var);
+    if (index != null) {
+      return index;
+    }
+
+    int node = myNodes.size();
+    myNodes.add(var);
+    myNodeIndices.put(var, node);
+    if (node >= myFirstEdge.length) {
+      int length = myFirstEdge.length * 2;
+      myFirstEdge = Arrays.copyOf(myFirstEdge, length);
+      myValues = Arrays.copyOf(myValues, length);
+      myPaths = Arrays.copyOf(myPaths, length);
+      myPathLengths = Arrays.copyOf(myPathLengths, length);
+      myQueue = new int[length];
+      myQueued = new boolean[length];
+      myQueueSize = 0;
+      myValid = false;
+    }
+    myFirstEdge[node] = -1;
+    myValues[node] = 0;
+    myPaths[node] = -1;
+    myPathLengths[node] = 0;
+    return node;
+  }
+
+  private void addEdge(LevelEquation<Var> equation) {
+    if (equation.isInfinity()) {
+      int node = getNode(equation.getVariable());
+      if (myValid && myValues[node] != INFINITY) {
+        myValues[node] = INFINITY;
+        enqueue(node);
+      }
+      return;
+    }
+
+    int from = getNode(equation.getVariable1());
+    int to = getNode(equation.getVariable2());
+    int edge = myNumberOfEdges++;
+    if (edge >= myEdgeFrom.length) {
+      int length = myEdgeFrom.length * 2;
+      myEdgeFrom = Arrays.copyOf(myEdgeFrom, length);
+      myEdgeTo = Arrays.copyOf(myEdgeTo, length);
+      myEdgeConstant = Arrays.copyOf(myEdgeConstant, length);
+      myEdgeMaxConstant = Arrays.copyOf(myEdgeMaxConstant, length);
+      myEdgeHasMaxConstant = Arrays.copyOf(myEdgeHasMaxConstant, length);
+      myNextEdge = Arrays.copyOf(myNextEdge, length);
+    }
+    Integer maxConstant = equation.getMaxConstant();
+    myEdgeFrom[edge] = from;
+    myEdgeTo[edge] = to;
+    myEdgeConstant[edge] = equation.getConstant();
+    myEdgeHasMaxConstant[edge] = maxConstant != null;
+    myEdgeMaxConstant[edge] = maxConstant == null ? 0 : maxConstant;
+    myNextEdge[edge] = myFirstEdge[from];
+    myFirstEdge[from] = edge;
+    myEdgeEquations.add(equation);
+    if (myValid) {
+      enqueue(from);
+    }
+  }
+
+  private void enqueue(int node) {
+    if (!myQueued[node]) {
+      myQueued[node] = true;
+      myQueue[(myQueueStart + myQueueSize++) % myQueue.length] = node;
+    }
+  }
+
+  private int dequeue() {
+    int node = myQueue[myQueueStart];
+    myQueueStart = (myQueueStart + 1) % myQueue.length;
+    myQueueSize--;
+    myQueued[node] = false;
+    return node;
+  }
+
+  private void reset() {
+    int size = myNodes.size();
+    Arrays.fill(myValues, 0, size, 0);
+    Arrays.fill(myPaths, 0, size, -1);
+    Arrays.fill(myPathLengths, 0, size, 0);
+    Arrays.fill(myQueued, 0, size, false);
+    myQueueStart = 0;
+    myQueueSize = 0;
+    myCycle = null;
+    for (LevelEquation<Var> equation : myEquations) {
+      if (equation.isInfinity()) {
+        myValues[getNode(equation.getVariable())] = INFINITY;
+      }
+    }
+    for (int i = 0; i < size; i++) {
+      enqueue(i);
+    }
+    myValid = true;
+  }
+
+  private List<LevelEquation<Var>> getPath(int node) {
+    List<LevelEquation<Var>> path = new ArrayList<>();
+    boolean[] visited = new boolean[myNodes.size()];
+    while (!visited[node] && myPaths[node] != -1) {
+      visited[node] = true;
+      int edge = myPaths[node];
+      path.add(myEdgeEquations.get(edge));
+      node = myEdgeFrom[edge];
+    }
+    Collections.reverse(path);
+    return path;
+  }
+
+  /**
+   * Finds the greatest solution of the system such that the value of every variable is at most 0.
+   * Negative values represent lower bounds of variables.
+   *
+   * @param solution  values of variables will be added to this map.
+   * @return null if the system has a solution, or a list of equations that lead to a contradiction otherwise.
+   */
   public List<LevelEquation<Var>> solve(Map<Var, Integer> solution) {
-    Map<Var, List<LevelEquation<Var>>> paths = new HashMap<>();
-
-    solution.put(null, 0);
-    paths.put(null, new ArrayList<>());
-    for (Var var : myVariables) {
-      solution.put(var, 0);
-      paths.put(var, new ArrayList<>());
-    }
-
-    for (int i = myVariables.size(); i >= 0; i--) {
-      boolean updated = false;
-      for (LevelEquation<Var> equation : myEquations) {
-        if (equation.isInfinity()) {
-          Integer prev = solution.put(equation.getVariable(), INFINITY);
-          if (prev == null || prev != INFINITY) {
-            updated = true;
-          }
-        } else {
-          int a = solution.get(equation.getVariable1());
-          int b = solution.get(equation.getVariable2());
-          Integer m = equation.getMaxConstant();
-          if (b != INFINITY && (a == INFINITY || (m == null || a + m < 0) && b > a + equation.getConstant())) {
+    if (!myValid) {
+      reset();
+    }
+
+    if (myCycle == null && myQueueSize > 0) {
+      // A path that defines the value of a node is longer than the number of nodes only if it contains a cycle
+      int numberOfNodes = myNodes.size();
+      loop:
+      while (myQueueSize > 0) {
+        int node = dequeue();
+        int a = myValues[node];
+        for (int edge = myFirstEdge[node]; edge != -1; edge = myNextEdge[edge]) {
+          int to = myEdgeTo[edge];
+          int b = myValues[to];
+          if (b != INFINITY && (a == INFINITY || (!myEdgeHasMaxConstant[edge] || a + myEdgeMaxConstant[edge] < 0) && b > a + myEdgeConstant[edge])) {
             if (a != INFINITY) {
-              List<LevelEquation<Var>> newPath = new ArrayList<>(paths.get(equation.getVariable1()));
-              newPath.add(equation);
-              paths.put(equation.getVariable2(), newPath);
-            }
-            if (i == 0 || equation.getVariable2() == null && a != INFINITY) {
-              solution.remove(null);
-              return paths.get(equation.getVariable2());
+              myPaths[to] = edge;
+              myPathLengths[to] = myPathLengths[node] + 1;
+              if (to == 0 || myPathLengths[to] >= numberOfNodes) {
+                myCycle = getPath(to);
+                break loop;
+              }
             }
-
-            solution.put(equation.getVariable2(), a == INFINITY ? INFINITY : a + equation.getConstant());
-            updated = true;
+            myValues[to] = a == INFINITY ? INFINITY : a + myEdgeConstant[edge];
+            enqueue(to);
           }
         }
       }
-      if (!updated) {
-        break;
+      if (myCycle != null) {
+        // The current values do not make sense anymore, so they will be recalculated if the system is changed
+        myValid = false;
+        myQueueSize = 0;
       }
     }
 
-    solution.remove(null);
-    return null;
+    for (int i = 1; i < myNodes.size(); i++) {
+      solution.put(myNodes.get(i), myValues[i]);
+    }
+    return myCycle;
   }
 }
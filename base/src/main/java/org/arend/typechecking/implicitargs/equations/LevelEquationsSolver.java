@@ -219,8 +219,8 @@ public class LevelEquationsSolver {
         if (unBased.contains(vars.proj2)) {
           Integer sol = solution.get(vars.proj2);
           if (sol == 0 || sol == 1) {
-            myPLevelEquations.getEquations().removeIf(equation -> !equation.isInfinity() && (equation.getVariable1() == vars.proj1 || equation.getVariable2() == vars.proj1));
-            myBasedPLevelEquations.getEquations().removeIf(equation -> !equation.isInfinity() && (equation.getVariable1() == vars.proj1 || equation.getVariable2() == vars.proj1));
+            myPLevelEquations.removeEquations(equation -> !equation.isInfinity() && (equation.getVariable1() == vars.proj1 || equation.getVariable2() == vars.proj1));
+            myBasedPLevelEquations.removeEquations(equation -> !equation.isInfinity() && (equation.getVariable1() == vars.proj1 || equation.getVariable2() == vars.proj1));
             myConstantUpperBounds.remove(vars.proj1);
           }
         }
@@ -14,6 +14,7 @@ import org.arend.core.definition.UniverseKind;
 import org.arend.core.expr.*;
 import org.arend.core.expr.type.Type;
 import org.arend.core.expr.visitor.CompareVisitor;
+import org.arend.core.expr.visitor.ConversionCache;
 import org.arend.core.expr.visitor.ElimBindingVisitor;
 import org.arend.core.sort.Level;
 import org.arend.core.sort.Sort;
@@ -39,16 +40,18 @@ import java.util.*;
 import static org.arend.core.expr.ExpressionFactory.Nat;
 
 public class TwoStageEquations implements Equations {
-  private List<Equation> myEquations = new ArrayList<>();
+  private final EquationStore myEquations;
   private final List<LevelEquation<LevelVariable>> myLevelEquations = new ArrayList<>();
   private final List<InferenceLevelVariable> myLevelVariables = new ArrayList<>();
   private final CheckTypeVisitor myVisitor;
   private final List<InferenceVariable> myProps = new ArrayList<>();
   private final List<Pair<InferenceLevelVariable, InferenceLevelVariable>> myBoundVariables = new ArrayList<>();
   private final Map<InferenceVariable, Expression> myNotSolvableFromEquationsVars = new HashMap<>();
+  private final ConversionCache myConversionCache = new ConversionCache();
 
   public TwoStageEquations(CheckTypeVisitor visitor) {
     myVisitor = visitor;
+    myEquations = new EquationStore(visitor.getUndoTrail());
   }
 
   @Override
@@ -233,10 +236,12 @@ public class TwoStageEquations implements Equations {
     }
 
     if (cmp == CMP.EQ && (inf1 != null && inf2 == null || inf2 != null && inf1 == null)) {
-      Expression prev = myNotSolvableFromEquationsVars.putIfAbsent(inf1 != null ? inf1 : inf2, inf1 != null ? expr2 : expr1);
+      InferenceVariable var = inf1 != null ? inf1 : inf2;
+      Expression prev = myNotSolvableFromEquationsVars.putIfAbsent(var, inf1 != null ? expr2 : expr1);
       if (prev != null) {
         return CompareVisitor.compare(this, CMP.EQ, prev, inf1 != null ? expr2 : expr1, type, sourceNode);
       }
+      myVisitor.getUndoTrail().record(() -> myNotSolvableFromEquationsVars.remove(var));
     }
 
     Equation equation = new Equation(expr1, expr2, type, origCmp, sourceNode);
@@ -354,7 +359,7 @@ public class TwoStageEquations implements Equations {
       }
     }
     if (!myEquations.isEmpty()) {
-      myVisitor.getErrorReporter().report(new SolveEquationsError(new ArrayList<>(myEquations), sourceNode));
+      myVisitor.getErrorReporter().report(new SolveEquationsError(myEquations.toList(), sourceNode));
     }
 
     myEquations.clear();
@@ -363,6 +368,26 @@ public class TwoStageEquations implements Equations {
     myBoundVariables.clear();
   }
 
+  /**
+   * Clears all equations and variables so that these equations can be used for another definition.
+   */
+  public void reset() {
+    myEquations.clear();
+    myLevelEquations.clear();
+    myLevelVariables.clear();
+    myProps.clear();
+    myBoundVariables.clear();
+    myNotSolvableFromEquationsVars.clear();
+    myConversionCache.clear();
+  }
+
+  /**
+   * @return true if there are no equations and no variables.
+   */
+  public boolean isEmpty() {
+    return myEquations.isEmpty() && myLevelEquations.isEmpty() && myLevelVariables.isEmpty() && myProps.isEmpty() && myBoundVariables.isEmpty() && myNotSolvableFromEquationsVars.isEmpty();
+  }
+
   @Override
   public boolean addVariable(InferenceLevelVariable var) {
     myLevelVariables.add(var);
@@ -383,26 +408,43 @@ public class TwoStageEquations implements Equations {
       }
     }
 
-    for (Equation equation : myEquations) {
+    // Only equations added since the last call are examined.
+    // Other equations cannot be solved here since they are stuck on variables which would remove them from the store when solved.
+    List<Pair<InferenceVariable, Expression>> solved = new ArrayList<>();
+    while (true) {
+      Equation equation = myEquations.pollPending();
+      if (equation == null) {
+        if (solved.isEmpty()) {
+          break;
+        }
+        for (Pair<InferenceVariable, Expression> pair : solved) {
+          solve(pair.proj1, pair.proj2, false);
+        }
+        solved.clear();
+        continue;
+      }
+
       equation.expr1 = equation.expr1.normalize(NormalizationMode.WHNF);
       equation.expr2 = equation.expr2.normalize(NormalizationMode.WHNF);
-    }
+      myEquations.index(equation);
 
-    for (int i = 0; i < myEquations.size(); i++) {
-      Equation equation = myEquations.get(i);
       if (equation.expr1 instanceof DataCallExpression && equation.expr2 instanceof DataCallExpression && ((DataCallExpression) equation.expr1).getDefinition() == Prelude.FIN && ((DataCallExpression) equation.expr2).getDefinition() == Prelude.FIN) {
-        myEquations.remove(i--);
+        myEquations.remove(equation);
         Expression arg1 = ((DataCallExpression) equation.expr1).getDefCallArguments().get(0);
         Expression arg2 = ((DataCallExpression) equation.expr2).getDefCallArguments().get(0);
         if (!CompareVisitor.compare(this, CMP.EQ, arg1, arg2, Nat(), equation.sourceNode)) {
           myVisitor.getErrorReporter().report(new SolveEquationsError(Collections.singletonList(new Equation(arg1, arg2, Nat(), CMP.EQ, equation.sourceNode)), equation.sourceNode));
         }
+        continue;
       }
-    }
 
-    while (!myEquations.isEmpty()) {
-      if (!solveClassCallsEq()) {
-        break;
+      if (equation.cmp == CMP.EQ) {
+        InferenceVariable var1 = equation.expr1.getInferenceVariable();
+        InferenceVariable var2 = equation.expr2.getInferenceVariable();
+        if (var1 == null && var2 != null && var2.isSolvableFromEquations() || var2 == null && var1 != null && var1.isSolvableFromEquations()) {
+          myEquations.remove(equation);
+          solved.add(new Pair<>(var1 != null ? var1 : var2, var1 != null ? equation.expr2 : equation.expr1));
+        }
       }
     }
 
@@ -425,17 +467,14 @@ public class TwoStageEquations implements Equations {
 
   @Override
   public void saveState(TypecheckerState state) {
-    state.equations = new ArrayList<>(myEquations);
     state.numberOfLevelVariables = myLevelVariables.size();
     state.numberOfLevelEquations = myLevelEquations.size();
     state.numberOfProps = myProps.size();
     state.numberOfBoundVars = myBoundVariables.size();
-    state.notSolvableFromEquationsVars = new HashSet<>(myNotSolvableFromEquationsVars.keySet());
   }
 
   @Override
   public void loadState(TypecheckerState state) {
-    myEquations = new ArrayList<>(state.equations);
     if (myLevelVariables.size() > state.numberOfLevelVariables) {
       myLevelVariables.subList(state.numberOfLevelVariables, myLevelVariables.size()).clear();
     }
@@ -448,34 +487,6 @@ public class TwoStageEquations implements Equations {
     if (myBoundVariables.size() > state.numberOfBoundVars) {
       myBoundVariables.subList(state.numberOfBoundVars, myBoundVariables.size()).clear();
     }
-    myNotSolvableFromEquationsVars.keySet().retainAll(state.notSolvableFromEquationsVars);
-  }
-
-  private boolean solveClassCallsEq() {
-    List<Pair<InferenceVariable, Expression>> solved = null;
-    for (Iterator<Equation> iterator = myEquations.iterator(); iterator.hasNext(); ) {
-      Equation equation = iterator.next();
-      if (equation.cmp == CMP.EQ) {
-        InferenceVariable var1 = equation.expr1.getInferenceVariable();
-        InferenceVariable var2 = equation.expr2.getInferenceVariable();
-        if (var1 == null && var2 != null && var2.isSolvableFromEquations() || var2 == null && var1 != null && var1.isSolvableFromEquations()) {
-          iterator.remove();
-          if (solved == null) {
-            solved = new ArrayList<>();
-          }
-          solved.add(new Pair<>(var1 != null ? var1 : var2, var1 != null ? equation.expr2 : equation.expr1));
-        }
-      }
-    }
-
-    if (solved != null) {
-      for (Pair<InferenceVariable, Expression> pair : solved) {
-        solve(pair.proj1, pair.proj2, false);
-      }
-      return true;
-    } else {
-      return false;
-    }
   }
 
   // If cmp == LE, then solve lower bounds; if cmp == GE, solve upper bounds.
@@ -651,8 +662,7 @@ public class TwoStageEquations implements Equations {
   @Override
   public void solveLowerBounds(InferenceVariable var) {
     List<Equation> equations = new ArrayList<>();
-    for (Iterator<Equation> iterator = myEquations.iterator(); iterator.hasNext(); ) {
-      Equation equation = iterator.next();
+    for (Equation equation : myEquations.getEquations(var)) {
       Expression varExpr = equation.cmp == CMP.LE ? equation.expr2 : equation.expr1;
       if (varExpr instanceof InferenceReferenceExpression && ((InferenceReferenceExpression) varExpr).getVariable() == var) {
         Expression other = (equation.cmp == CMP.LE ? equation.expr1 : equation.expr2).normalize(NormalizationMode.WHNF);
@@ -667,7 +677,7 @@ public class TwoStageEquations implements Equations {
           return;
         }
         equations.add(equation);
-        iterator.remove();
+        myEquations.remove(equation);
       }
     }
 
@@ -890,4 +900,9 @@ public class TwoStageEquations implements Equations {
     var.solve(myVisitor, new ErrorExpression(error));
     return SolveResult.ERROR;
   }
+
+  @Override
+  public ConversionCache getConversionCache() {
+    return myConversionCache;
+  }
 }
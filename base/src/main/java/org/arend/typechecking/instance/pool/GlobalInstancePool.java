@@ -18,9 +18,11 @@ import org.arend.util.Pair;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Predicate;
 
 public class GlobalInstancePool implements InstancePool {
+  private static final LongAdder ourSearches = new LongAdder();
   private final InstanceProvider myInstanceProvider;
   private final CheckTypeVisitor myCheckTypeVisitor;
   private InstancePool myInstancePool;
@@ -113,7 +115,15 @@ public class GlobalInstancePool implements InstancePool {
     return pair == null ? null : pair.proj1;
   }
 
+  /**
+   * @return the number of searches of global instances performed so far.
+   */
+  public static long getSearches() {
+    return ourSearches.sum();
+  }
+
   private Pair<Concrete.Expression, ClassDefinition> getInstancePair(Expression classifyingExpression, InstanceSearchParameters parameters, Concrete.SourceNode sourceNode, RecursiveInstanceHoleExpression recursiveHoleExpression) {
+    ourSearches.increment();
     if (!parameters.searchGlobal()) {
       return null;
     }
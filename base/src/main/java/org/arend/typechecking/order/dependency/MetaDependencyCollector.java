@@ -5,9 +5,18 @@ import org.arend.naming.reference.TCReferable;
 import org.arend.term.concrete.DefinableMetaDefinition;
 
 public class MetaDependencyCollector extends DependencyCollector {
+  private boolean myCollectAll;
+
+  /**
+   * If set, dependencies between all definitions are collected, not only dependencies of definable metas.
+   */
+  public void setCollectAll(boolean collectAll) {
+    myCollectAll = collectAll;
+  }
+
   @Override
   public void dependsOn(TCReferable def1, TCReferable def2) {
-    if (def1 instanceof MetaReferable && ((MetaReferable) def1).getDefinition() instanceof DefinableMetaDefinition || def2 instanceof MetaReferable && ((MetaReferable) def2).getDefinition() instanceof DefinableMetaDefinition) {
+    if (myCollectAll || def1 instanceof MetaReferable && ((MetaReferable) def1).getDefinition() instanceof DefinableMetaDefinition || def2 instanceof MetaReferable && ((MetaReferable) def2).getDefinition() instanceof DefinableMetaDefinition) {
       super.dependsOn(def1, def2);
     }
   }
@@ -8,6 +8,8 @@ import org.arend.core.elimtree.ElimClause;
 import org.arend.core.expr.ClassCallExpression;
 import org.arend.core.expr.ErrorExpression;
 import org.arend.core.expr.PiExpression;
+import org.arend.core.expr.visitor.ConversionCache;
+import org.arend.core.expr.visitor.TypeCache;
 import org.arend.core.pattern.ExpressionPattern;
 import org.arend.core.sort.Sort;
 import org.arend.core.subst.LevelPair;
@@ -26,9 +28,14 @@ import org.arend.term.group.Group;
 import org.arend.typechecking.*;
 import org.arend.typechecking.computation.BooleanComputationRunner;
 import org.arend.typechecking.computation.CancellationIndicator;
+import org.arend.typechecking.computation.ComputationRunner;
+import org.arend.typechecking.computation.LimitExceededException;
+import org.arend.typechecking.computation.NormalizationBudget;
+import org.arend.typechecking.computation.NormalizationBudgetExceededException;
 import org.arend.typechecking.error.CycleError;
 import org.arend.typechecking.error.TerminationCheckError;
 import org.arend.typechecking.error.local.LocalErrorReporter;
+import org.arend.typechecking.error.local.NormalizationLimitError;
 import org.arend.typechecking.instance.pool.GlobalInstancePool;
 import org.arend.typechecking.instance.provider.InstanceProviderSet;
 import org.arend.typechecking.order.Ordering;
@@ -40,6 +47,7 @@ import org.arend.typechecking.provider.ConcreteProvider;
 import org.arend.typechecking.termination.DefinitionCallGraph;
 import org.arend.typechecking.termination.RecursiveBehavior;
 import org.arend.typechecking.visitor.*;
+import org.arend.util.Metrics;
 import org.arend.util.Pair;
 import org.jetbrains.annotations.Nullable;
 
@@ -56,6 +64,8 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
   private final ArendExtensionProvider myExtensionProvider;
   private List<TCDefReferable> myCurrentDefinitions = Collections.emptyList();
   private boolean myHeadersAreOK = true;
+  private Metrics myMetrics;
+  private long myNormalizationLimit;
 
   public TypecheckingOrderingListener(InstanceProviderSet instanceProviderSet, ConcreteProvider concreteProvider, ReferableConverter referableConverter, ErrorReporter errorReporter, DependencyListener dependencyListener, PartialComparator<TCDefReferable> comparator, ArendExtensionProvider extensionProvider) {
     myErrorReporter = errorReporter;
@@ -71,6 +81,39 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
     this(instanceProviderSet, concreteProvider, referableConverter, errorReporter, DummyDependencyListener.INSTANCE, comparator, extensionProvider);
   }
 
+  /**
+   * Sets metrics that will be updated when definitions are typechecked.
+   */
+  public void setMetrics(@Nullable Metrics metrics) {
+    myMetrics = metrics;
+  }
+
+  /**
+   * Limits the number of normalization steps performed while a definition is typechecked.
+   * Definitions that exceed the limit are reported and marked as having errors.
+   * The limit does not apply to mutually recursive definitions.
+   *
+   * @param limit  the maximal number of steps or 0 if there is no limit.
+   */
+  public void setNormalizationLimit(long limit) {
+    myNormalizationLimit = limit;
+  }
+
+  private void definitionsTypechecked(int number, long startTime) {
+    if (myMetrics != null) {
+      myMetrics.counter(Metrics.DEFINITIONS_TYPECHECKED, "Typechecked definitions").add(number);
+      myMetrics.histogram(Metrics.TYPECHECKING_TIME, "Time spent in typechecking of a unit or a group of mutually recursive definitions").recordNanos(System.nanoTime() - startTime);
+    }
+  }
+
+  private void conversionCacheUsed(CheckTypeVisitor visitor) {
+    ConversionCache cache = visitor.getEquations().getConversionCache();
+    if (myMetrics != null && cache != null) {
+      myMetrics.counter(Metrics.CONVERSION_CACHE_HITS, "Hits of the conversion cache").add(cache.getHits());
+      myMetrics.counter(Metrics.CONVERSION_CACHE_MISSES, "Misses of the conversion cache").add(cache.getMisses());
+    }
+  }
+
   public ConcreteProvider getConcreteProvider() {
     return myConcreteProvider;
   }
@@ -160,6 +203,16 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
   }
 
   private Definition newDefinition(Concrete.Definition definition) {
+    return newDefinition(definition, false);
+  }
+
+  /**
+   * Creates a stub for a definition that could not be typechecked.
+   *
+   * @param replace  if true, constructors and fields replace previously typechecked ones,
+   *                 which may refer to a partially typechecked definition.
+   */
+  private Definition newDefinition(Concrete.Definition definition, boolean replace) {
     Definition typechecked;
     if (definition instanceof Concrete.DataDefinition) {
       typechecked = new DataDefinition(definition.getData());
@@ -169,7 +222,11 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
           tcConstructor.setParameters(EmptyDependentLink.getInstance());
           tcConstructor.setStatus(Definition.TypeCheckingStatus.HAS_ERRORS);
           ((DataDefinition) typechecked).addConstructor(tcConstructor);
-          constructor.getData().setTypecheckedIfAbsent(tcConstructor);
+          if (replace) {
+            constructor.getData().setTypechecked(tcConstructor);
+          } else {
+            constructor.getData().setTypecheckedIfAbsent(tcConstructor);
+          }
         }
       }
     } else if (definition instanceof Concrete.BaseFunctionDefinition) {
@@ -182,7 +239,11 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
           ClassField classField = new ClassField(((Concrete.ClassField) element).getData(), (ClassDefinition) typechecked, new PiExpression(Sort.PROP, new TypedSingleDependentLink(false, "this", new ClassCallExpression((ClassDefinition) typechecked, LevelPair.STD), true), new ErrorExpression()), null);
           classField.setStatus(Definition.TypeCheckingStatus.HAS_ERRORS);
           ((ClassDefinition) typechecked).addPersonalField(classField);
-          classField.getReferable().setTypecheckedIfAbsent(classField);
+          if (replace) {
+            classField.getReferable().setTypechecked(classField);
+          } else {
+            classField.getReferable().setTypecheckedIfAbsent(classField);
+          }
         }
       }
     } else {
@@ -214,14 +275,15 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
       definition.setRecursiveDefinitions(Collections.singleton(definition.getData()));
     }
 
+    long startTime = System.nanoTime();
     List<ExtElimClause> clauses;
     ArendExtension extension = myExtensionProvider.getArendExtension(definition.getData());
-    CheckTypeVisitor checkTypeVisitor = new CheckTypeVisitor(new LocalErrorReporter(definition.getData(), myErrorReporter), null, extension);
+    CheckTypeVisitor checkTypeVisitor = CheckTypeVisitorPool.acquire(new LocalErrorReporter(definition.getData(), myErrorReporter), extension);
     checkTypeVisitor.setInstancePool(new GlobalInstancePool(myInstanceProviderSet.get(definition.getData()), checkTypeVisitor));
     DesugarVisitor.desugar(definition, checkTypeVisitor.getErrorReporter());
     myCurrentDefinitions = Collections.singletonList(definition.getData());
     typecheckingUnitStarted(definition.getData());
-    clauses = definition.accept(new DefinitionTypechecker(checkTypeVisitor), null);
+    clauses = typecheckUnit(definition, checkTypeVisitor);
     Definition typechecked = definition.getData().getTypechecked();
     if (typechecked == null) {
       typechecked = newDefinition(definition);
@@ -237,6 +299,9 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
       checkRecursiveFunctions(Collections.singletonMap((FunctionDefinition) typechecked, definition), clauses == null ? Collections.emptyMap() : Collections.singletonMap((FunctionDefinition) typechecked, clauses));
     }
 
+    conversionCacheUsed(checkTypeVisitor);
+    CheckTypeVisitorPool.release(checkTypeVisitor);
+    definitionsTypechecked(1, startTime);
     typecheckingUnitFinished(definition.getData(), typechecked);
 
     if (extension != null) {
@@ -249,6 +314,31 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
     myCurrentDefinitions = Collections.emptyList();
   }
 
+  private List<ExtElimClause> typecheckUnit(Concrete.Definition definition, CheckTypeVisitor checkTypeVisitor) {
+    DefinitionTypechecker typechecker = new DefinitionTypechecker(checkTypeVisitor);
+    NormalizationBudget budget = myNormalizationLimit > 0 ? new NormalizationBudget(myNormalizationLimit) : null;
+    CancellationIndicator indicator = ComputationRunner.getCancellationIndicator();
+    indicator.definitionStarted(definition.getData());
+    TypeCache typeCache = new TypeCache();
+    try {
+      return budget == null ? typeCache.run(() -> definition.accept(typechecker, null)) : budget.run(() -> typeCache.run(() -> definition.accept(typechecker, null)));
+    } catch (NormalizationBudgetExceededException e) {
+      checkTypeVisitor.getErrorReporter().report(new NormalizationLimitError(budget, definition));
+    } catch (LimitExceededException e) {
+      checkTypeVisitor.getErrorReporter().report(new TypecheckingError(e.getMessage(), definition));
+    } finally {
+      indicator.definitionFinished(definition.getData());
+      if (myMetrics != null) {
+        myMetrics.counter(Metrics.TYPE_CACHE_HITS, "Hits of the cache of types of calls").add(typeCache.getHits());
+        myMetrics.counter(Metrics.TYPE_CACHE_MISSES, "Misses of the cache of types of calls").add(typeCache.getMisses());
+      }
+    }
+
+    definition.getData().setTypechecked(null);
+    newDefinition(definition, true).setStatus(Definition.TypeCheckingStatus.HAS_ERRORS);
+    return null;
+  }
+
   @Override
   public void cycleFound(List<Concrete.ResolvableDefinition> definitions) {
     List<TCReferable> cycle = new ArrayList<>();
@@ -298,6 +388,7 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
 
   @Override
   public void bodiesFound(List<Concrete.Definition> definitions) {
+    long startTime = System.nanoTime();
     Map<FunctionDefinition,Concrete.Definition> functionDefinitions = new HashMap<>();
     Map<FunctionDefinition, List<? extends ElimClause<ExpressionPattern>>> clausesMap = new HashMap<>();
     Set<DataDefinition> dataDefinitions = new HashSet<>();
@@ -371,6 +462,7 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
       }
     }
 
+    definitionsTypechecked(orderedDefinitions.size(), startTime);
     Set<Definition> allDefinitions = new HashSet<>();
     for (Concrete.Definition definition : orderedDefinitions) {
       Definition typechecked = definition.getData().getTypechecked();
@@ -27,7 +27,7 @@ import java.util.stream.Collectors;
 public class CorrespondedSubExprVisitor implements
     ConcreteExpressionVisitor<@NotNull Expression,
         @Nullable Pair<@NotNull Expression, Concrete.@NotNull Expression>> {
-  private final @NotNull Concrete.Expression subExpr;
+  private final @Nullable Concrete.Expression subExpr;
   private final @NotNull List<@NotNull SubExprError> errors = new ArrayList<>();
 
   @Contract(pure = true)
@@ -39,8 +39,26 @@ public class CorrespondedSubExprVisitor implements
     this.subExpr = subExpr;
   }
 
-  private boolean matchesSubExpr(@NotNull Concrete.Expression expr) {
-    return Objects.equals(expr.getData(), subExpr.getData());
+  /**
+   * Creates a visitor that does not look for a particular subexpression.
+   * Subclasses override {@link #matchesSubExpr(Concrete.Expression, Expression)}
+   * to observe every pair of corresponding subexpressions.
+   */
+  protected CorrespondedSubExprVisitor() {
+    this.subExpr = null;
+  }
+
+  private boolean matchesData(@NotNull Concrete.Expression expr) {
+    return subExpr != null && Objects.equals(expr.getData(), subExpr.getData());
+  }
+
+  /**
+   * Invoked for every concrete subexpression together with its core counterpart.
+   *
+   * @return true if the traversal should stop with the given pair.
+   */
+  protected boolean matchesSubExpr(@NotNull Concrete.Expression expr, @NotNull Expression coreExpr) {
+    return matchesData(expr);
   }
 
   @Contract(value = "_->null")
@@ -51,7 +69,7 @@ public class CorrespondedSubExprVisitor implements
 
   @Contract(pure = true)
   private @Nullable Pair<Expression, Concrete.Expression> atomicExpr(@NotNull Concrete.Expression expr, @NotNull Expression coreExpr) {
-    return matchesSubExpr(expr) ? new Pair<>(coreExpr, expr) : null;
+    return matchesSubExpr(expr, coreExpr) ? new Pair<>(coreExpr, expr) : null;
   }
 
   @Override
@@ -61,7 +79,7 @@ public class CorrespondedSubExprVisitor implements
 
   @Override
   public Pair<Expression, Concrete.Expression> visitReference(Concrete.ReferenceExpression expr, Expression coreExpr) {
-    if (matchesSubExpr(expr)) return new Pair<>(coreExpr, expr);
+    if (matchesSubExpr(expr, coreExpr)) return new Pair<>(coreExpr, expr);
     Referable ref = expr.getReferent();
     if (ref instanceof MetaReferable) {
       MetaDefinition meta = ((MetaReferable) ref).getDefinition();
@@ -115,7 +133,7 @@ public class CorrespondedSubExprVisitor implements
 
   @Override
   public Pair<Expression, Concrete.Expression> visitProj(Concrete.ProjExpression expr, Expression coreExpr) {
-    if (matchesSubExpr(expr)) return new Pair<>(coreExpr, expr);
+    if (matchesSubExpr(expr, coreExpr)) return new Pair<>(coreExpr, expr);
     var coreProjExpr = coreExpr.cast(ProjExpression.class);
     if (coreProjExpr == null) return nullWithError(SubExprError.mismatch(coreExpr));
     return expr.getExpression().accept(this, coreProjExpr.getExpression());
@@ -123,7 +141,7 @@ public class CorrespondedSubExprVisitor implements
 
   @Override
   public Pair<Expression, Concrete.Expression> visitNew(Concrete.NewExpression expr, Expression coreExpr) {
-    if (matchesSubExpr(expr)) return new Pair<>(coreExpr, expr);
+    if (matchesSubExpr(expr, coreExpr)) return new Pair<>(coreExpr, expr);
     var coreNewExpr = coreExpr.cast(NewExpression.class);
     if (coreNewExpr == null) return nullWithError(SubExprError.mismatch(coreExpr));
     return expr.getExpression().accept(this, coreNewExpr.getClassCall());
@@ -131,7 +149,7 @@ public class CorrespondedSubExprVisitor implements
 
   @Override
   public Pair<Expression, Concrete.Expression> visitTuple(Concrete.TupleExpression expr, Expression coreExpr) {
-    if (matchesSubExpr(expr)) return new Pair<>(coreExpr, expr);
+    if (matchesSubExpr(expr, coreExpr)) return new Pair<>(coreExpr, expr);
     var coreTupleExpr = coreExpr.cast(TupleExpression.class);
     if (coreTupleExpr == null) return nullWithError(SubExprError.mismatch(coreExpr));
     return visitExprs(coreTupleExpr.getFields(), expr.getFields(), coreTupleExpr);
@@ -150,7 +168,7 @@ public class CorrespondedSubExprVisitor implements
 
   @Override
   public Pair<Expression, Concrete.Expression> visitLet(Concrete.LetExpression expr, Expression coreExpr) {
-    if (matchesSubExpr(expr)) return new Pair<>(coreExpr, expr);
+    if (matchesSubExpr(expr, coreExpr)) return new Pair<>(coreExpr, expr);
     var coreLetExpr = coreExpr.cast(LetExpression.class);
     if (coreLetExpr == null) return nullWithError(SubExprError.mismatch(coreExpr));
     List<Concrete.LetClause> exprClauses = expr.getClauses();
@@ -179,7 +197,7 @@ public class CorrespondedSubExprVisitor implements
 
   @Override
   public Pair<Expression, Concrete.Expression> visitTyped(Concrete.TypedExpression expr, Expression coreExpr) {
-    if (matchesSubExpr(expr)) return new Pair<>(coreExpr, expr);
+    if (matchesSubExpr(expr, coreExpr)) return new Pair<>(coreExpr, expr);
     return expr.expression.accept(this, coreExpr);
   }
 
@@ -272,7 +290,7 @@ public class CorrespondedSubExprVisitor implements
 
   @Override
   public Pair<Expression, Concrete.Expression> visitApp(Concrete.AppExpression expr, Expression coreExpr) {
-    if (matchesSubExpr(expr) || matchesSubExpr(expr.getFunction())) return new Pair<>(coreExpr, expr);
+    if (matchesSubExpr(expr, coreExpr) || matchesData(expr.getFunction())) return new Pair<>(coreExpr, expr);
     Concrete.Expression function = expr.getFunction();
     Referable ref = function.getUnderlyingReferable();
     if (ref instanceof MetaReferable) {
@@ -289,7 +307,7 @@ public class CorrespondedSubExprVisitor implements
         ((Concrete.AppExpression) subExpr).getFunction().getData(),
         function.getData()
     )) return new Pair<>(coreExpr, expr);
-    if (subExpr instanceof Concrete.ReferenceExpression && matchesSubExpr(function))
+    if (subExpr instanceof Concrete.ReferenceExpression && matchesData(function))
       return new Pair<>(coreExpr, expr);
     Concrete.Expression cloned = Concrete.AppExpression.make(expr.getData(), function, new ArrayList<>(expr.getArguments()));
     return visitClonedApp(((Concrete.AppExpression) cloned), coreExpr);
@@ -297,7 +315,7 @@ public class CorrespondedSubExprVisitor implements
 
   @Override
   public Pair<Expression, Concrete.Expression> visitLam(Concrete.LamExpression expr, Expression coreExpr) {
-    if (matchesSubExpr(expr)) return new Pair<>(coreExpr, expr);
+    if (matchesSubExpr(expr, coreExpr)) return new Pair<>(coreExpr, expr);
     Expression body = coreExpr;
     for (Concrete.Parameter parameter : expr.getParameters()) {
       if (body instanceof LamExpression) {
@@ -357,7 +375,7 @@ public class CorrespondedSubExprVisitor implements
 
   @Override
   public Pair<Expression, Concrete.Expression> visitPi(Concrete.PiExpression expr, Expression coreExpr) {
-    if (matchesSubExpr(expr)) return new Pair<>(coreExpr, expr);
+    if (matchesSubExpr(expr, coreExpr)) return new Pair<>(coreExpr, expr);
     var corePiExpr = coreExpr.cast(PiExpression.class);
     if (corePiExpr == null) return nullWithError(SubExprError.mismatch(coreExpr));
     return visitPiImpl(expr.getParameters(), expr.getCodomain(), corePiExpr);
@@ -365,7 +383,7 @@ public class CorrespondedSubExprVisitor implements
 
   @Override
   public Pair<Expression, Concrete.Expression> visitSigma(Concrete.SigmaExpression expr, Expression coreExpr) {
-    if (matchesSubExpr(expr)) return new Pair<>(coreExpr, expr);
+    if (matchesSubExpr(expr, coreExpr)) return new Pair<>(coreExpr, expr);
     var coreSigmaExpr = coreExpr.cast(SigmaExpression.class);
     if (coreSigmaExpr == null)
       return nullWithError(SubExprError.mismatch(coreExpr));
@@ -401,7 +419,7 @@ public class CorrespondedSubExprVisitor implements
 
   @Override
   public Pair<Expression, Concrete.Expression> visitCase(Concrete.CaseExpression expr, Expression coreExpr) {
-    if (matchesSubExpr(expr)) return new Pair<>(coreExpr, expr);
+    if (matchesSubExpr(expr, coreExpr)) return new Pair<>(coreExpr, expr);
     var coreCaseExpr = coreExpr.cast(CaseExpression.class);
     if (coreCaseExpr == null) return null;
     var expression = visitExprs(coreCaseExpr.getArguments(), expr
@@ -420,13 +438,13 @@ public class CorrespondedSubExprVisitor implements
 
   @Override
   public Pair<Expression, Concrete.Expression> visitEval(Concrete.EvalExpression expr, Expression coreExpr) {
-    if (matchesSubExpr(expr)) return new Pair<>(coreExpr, expr);
+    if (matchesSubExpr(expr, coreExpr)) return new Pair<>(coreExpr, expr);
     return expr.getExpression().accept(this, coreExpr);
   }
 
   @Override
   public Pair<Expression, Concrete.Expression> visitClassExt(Concrete.ClassExtExpression expr, Expression coreExpr) {
-    if (matchesSubExpr(expr)) return new Pair<>(coreExpr, expr);
+    if (matchesSubExpr(expr, coreExpr)) return new Pair<>(coreExpr, expr);
     var coreClassExpr = coreExpr.cast(ClassCallExpression.class);
     if (coreClassExpr == null) return nullWithError(SubExprError.mismatch(coreExpr));
     Map<ClassField, Expression> implementedHere = coreClassExpr.getImplementedHere();
@@ -480,7 +498,7 @@ public class CorrespondedSubExprVisitor implements
 
   @Override
   public Pair<Expression, Concrete.Expression> visitBinOpSequence(Concrete.BinOpSequenceExpression expr, Expression coreExpr) {
-    if (matchesSubExpr(expr)) return new Pair<>(coreExpr, expr);
+    if (matchesSubExpr(expr, coreExpr)) return new Pair<>(coreExpr, expr);
     throw new IllegalStateException("BinOpSequence shouldn't appear");
   }
 }
@@ -0,0 +1,211 @@
+package org.arend.typechecking.subexpr;
+
+import org.arend.core.definition.Definition;
+import org.arend.core.expr.Expression;
+import org.arend.term.concrete.Concrete;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * An index from source ranges of a typechecked definition to the corresponding core subexpressions.
+ * It is built once by walking the concrete and the core definitions in parallel as {@link CorrespondedSubDefVisitor} does.
+ * The ranges are split into elementary segments, each of which stores the innermost entry that covers it,
+ * so a lookup by a position is a binary search.
+ */
+public class SubExprIndex {
+  private final Concrete.Definition myConcreteDefinition;
+  private final Definition myDefinition;
+  private final List<Entry> myEntries;
+  private final Map<Object, Entry> myEntriesByData;
+  private final int[] myBoundaries;
+  private final Entry[] mySegments;
+
+  /**
+   * A half-open range {@code [start, end)} of offsets in a source.
+   */
+  public static final class Range {
+    public final int start;
+    public final int end;
+
+    public Range(int start, int end) {
+      this.start = start;
+      this.end = end;
+    }
+
+    public int getLength() {
+      return end - start;
+    }
+
+    public boolean contains(int offset) {
+      return start <= offset && offset < end;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      Range range = (Range) o;
+      return start == range.start && end == range.end;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * start + end;
+    }
+
+    @Override
+    public String toString() {
+      return "[" + start + ", " + end + ")";
+    }
+  }
+
+  public interface RangeProvider {
+    /**
+     * @return the source range of a concrete node or null if it is unknown.
+     */
+    @Nullable Range getRange(@NotNull Concrete.SourceNode node);
+  }
+
+  public static final class Entry {
+    private final Concrete.Expression myConcrete;
+    private final Expression myCore;
+    private final Range myRange;
+    private Expression myType;
+    private boolean myTypeComputed;
+
+    private Entry(Concrete.Expression concrete, Expression core, Range range) {
+      myConcrete = concrete;
+      myCore = core;
+      myRange = range;
+    }
+
+    public @NotNull Concrete.Expression getConcrete() {
+      return myConcrete;
+    }
+
+    public @NotNull Expression getCore() {
+      return myCore;
+    }
+
+    public @Nullable Range getRange() {
+      return myRange;
+    }
+
+    /**
+     * The type of the core expression is computed on the first request.
+     */
+    public synchronized @Nullable Expression getType() {
+      if (!myTypeComputed) {
+        myType = myCore.getType();
+        myTypeComputed = true;
+      }
+      return myType;
+    }
+  }
+
+  private static class Collector extends CorrespondedSubExprVisitor {
+    private final RangeProvider myRangeProvider;
+    private final List<Entry> myEntries = new ArrayList<>();
+    private final Set<Concrete.Expression> myVisited = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private Collector(RangeProvider rangeProvider) {
+      myRangeProvider = rangeProvider;
+    }
+
+    @Override
+    protected boolean matchesSubExpr(@NotNull Concrete.Expression expr, @NotNull Expression coreExpr) {
+      if (myVisited.add(expr)) {
+        myEntries.add(new Entry(expr, coreExpr, myRangeProvider.getRange(expr)));
+      }
+      return false;
+    }
+  }
+
+  private SubExprIndex(Concrete.Definition concreteDefinition, Definition definition, List<Entry> entries) {
+    myConcreteDefinition = concreteDefinition;
+    myDefinition = definition;
+    myEntries = entries;
+
+    myEntriesByData = new HashMap<>();
+    for (Entry entry : entries) {
+      Object data = entry.myConcrete.getData();
+      if (data != null) {
+        myEntriesByData.putIfAbsent(data, entry);
+      }
+    }
+
+    List<Entry> ranged = new ArrayList<>();
+    TreeSet<Integer> boundaries = new TreeSet<>();
+    for (Entry entry : entries) {
+      if (entry.myRange != null && entry.myRange.getLength() > 0) {
+        ranged.add(entry);
+        boundaries.add(entry.myRange.start);
+        boundaries.add(entry.myRange.end);
+      }
+    }
+    myBoundaries = boundaries.stream().mapToInt(Integer::intValue).toArray();
+    mySegments = new Entry[Math.max(myBoundaries.length - 1, 0)];
+
+    // Entries are visited from outer to inner, so the stable sort keeps outer entries first among equal ranges
+    ranged.sort(Comparator.comparingInt(entry -> entry.myRange.start));
+    Map<Entry, Integer> order = new IdentityHashMap<>();
+    for (int i = 0; i < ranged.size(); i++) {
+      order.put(ranged.get(i), i);
+    }
+    PriorityQueue<Entry> active = new PriorityQueue<>(Comparator.<Entry>comparingInt(entry -> entry.myRange.getLength()).thenComparing(order::get));
+    int next = 0;
+    for (int i = 0; i < mySegments.length; i++) {
+      int start = myBoundaries[i];
+      while (next < ranged.size() && ranged.get(next).myRange.start == start) {
+        active.add(ranged.get(next++));
+      }
+      while (!active.isEmpty() && active.peek().myRange.end <= start) {
+        active.poll();
+      }
+      mySegments[i] = active.peek();
+    }
+  }
+
+  /**
+   * Builds an index of a typechecked definition.
+   */
+  public static @NotNull SubExprIndex build(@NotNull Concrete.Definition concreteDefinition, @NotNull Definition definition, @NotNull RangeProvider rangeProvider) {
+    Collector collector = new Collector(rangeProvider);
+    concreteDefinition.accept(new CorrespondedSubDefVisitor(collector), definition);
+    return new SubExprIndex(concreteDefinition, definition, collector.myEntries);
+  }
+
+  public @NotNull Concrete.Definition getConcreteDefinition() {
+    return myConcreteDefinition;
+  }
+
+  public @NotNull Definition getDefinition() {
+    return myDefinition;
+  }
+
+  public @NotNull List<? extends Entry> getEntries() {
+    return myEntries;
+  }
+
+  /**
+   * Finds the innermost subexpression that contains a position.
+   */
+  public @Nullable Entry find(int offset) {
+    int index = Arrays.binarySearch(myBoundaries, offset);
+    if (index < 0) {
+      index = -index - 2;
+    }
+    return index >= 0 && index < mySegments.length ? mySegments[index] : null;
+  }
+
+  /**
+   * Finds the entry of a concrete subexpression.
+   * Subexpressions are compared by their data as in {@link CorrespondedSubExprVisitor}.
+   */
+  public @Nullable Entry find(@NotNull Concrete.Expression expr) {
+    Object data = expr.getData();
+    return data == null ? null : myEntriesByData.get(data);
+  }
+}
@@ -0,0 +1,51 @@
+package org.arend.typechecking.subexpr;
+
+import org.arend.core.definition.Definition;
+import org.arend.naming.reference.TCDefReferable;
+import org.arend.term.concrete.Concrete;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a {@link SubExprIndex} for every definition that was queried.
+ * An index is rebuilt when either the concrete or the typechecked definition changes,
+ * and it can be dropped explicitly with {@link #invalidate}.
+ */
+public class SubExprIndexCache {
+  private final SubExprIndex.RangeProvider myRangeProvider;
+  private final Map<TCDefReferable, SubExprIndex> myIndices = new ConcurrentHashMap<>();
+
+  public SubExprIndexCache(@NotNull SubExprIndex.RangeProvider rangeProvider) {
+    myRangeProvider = rangeProvider;
+  }
+
+  /**
+   * @return the index of a definition or null if it is not typechecked.
+   */
+  public @Nullable SubExprIndex getIndex(@NotNull Concrete.Definition definition) {
+    TCDefReferable referable = definition.getData();
+    Definition typechecked = referable.getTypechecked();
+    if (typechecked == null) {
+      myIndices.remove(referable);
+      return null;
+    }
+
+    SubExprIndex index = myIndices.get(referable);
+    if (index == null || index.getConcreteDefinition() != definition || index.getDefinition() != typechecked) {
+      index = SubExprIndex.build(definition, typechecked, myRangeProvider);
+      myIndices.put(referable, index);
+    }
+    return index;
+  }
+
+  public void invalidate(@NotNull TCDefReferable referable) {
+    myIndices.remove(referable);
+  }
+
+  public void clear() {
+    myIndices.clear();
+  }
+}
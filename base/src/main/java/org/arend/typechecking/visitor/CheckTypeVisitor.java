@@ -54,6 +54,7 @@ import org.arend.term.concrete.ConcreteExpressionVisitor;
 import org.arend.term.concrete.ConcreteLevelExpressionVisitor;
 import org.arend.typechecking.FieldDFS;
 import org.arend.typechecking.TypecheckerState;
+import org.arend.typechecking.UndoTrail;
 import org.arend.typechecking.TypecheckingContext;
 import org.arend.typechecking.computation.ComputationRunner;
 import org.arend.typechecking.doubleChecker.CoreException;
@@ -76,6 +77,7 @@ import org.arend.typechecking.result.TResult;
 import org.arend.typechecking.result.TypecheckingResult;
 import org.arend.util.Pair;
 import org.arend.util.SingletonList;
+import org.arend.ext.userData.Key;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -86,16 +88,20 @@ import java.util.function.Function;
 import static org.arend.typechecking.error.local.inference.ArgInferenceError.expression;
 
 public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpressionVisitor<Expression, TypecheckingResult>, ConcreteLevelExpressionVisitor<LevelVariable, Level>, ExpressionTypechecker {
-  private final Equations myEquations;
+  private final TwoStageEquations myEquations;
   private GlobalInstancePool myInstancePool;
   private final ImplicitArgsInference myArgsInference;
   protected Map<Referable, Binding> context;
+  private Map<Referable, Binding> myOwnContext;
   private MyErrorReporter errorReporter;
   private final List<ClassCallExpression.ClassCallBinding> myClassCallBindings = new ArrayList<>();
   private final List<DeferredMeta> myDeferredMetasBeforeSolver = new ArrayList<>();
   private final List<DeferredMeta> myDeferredMetasAfterLevels = new ArrayList<>();
-  private final ArendExtension myArendExtension;
+  private ArendExtension myArendExtension;
   private TypecheckerState mySavedState;
+  private final UndoTrail myUndoTrail = new UndoTrail();
+  private final Set<Key<?>> mySnapshotKeys = new HashSet<>();
+  private boolean myContextSaved;
 
   private static class DeferredMeta {
     final MetaDefinition meta;
@@ -150,13 +156,51 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
 
   public CheckTypeVisitor(ErrorReporter errorReporter, GlobalInstancePool pool, ArendExtension arendExtension) {
     this(new LinkedHashMap<>(), errorReporter, pool, arendExtension, null);
+    myOwnContext = context;
+  }
+
+  /**
+   * Clears the state of this visitor so that it can check another definition.
+   * Collections are cleared rather than allocated again, so a visitor that is reused by a thread keeps their backing arrays.
+   * The instance pool should be set after the reset.
+   *
+   * @see CheckTypeVisitorPool
+   */
+  public void reset(ErrorReporter errorReporter, ArendExtension arendExtension) {
+    this.errorReporter = new MyErrorReporter(errorReporter);
+    myUndoTrail.reset();
+    mySnapshotKeys.clear();
+    myContextSaved = false;
+    mySavedState = null;
+    myEquations.reset();
+    myInstancePool = null;
+    if (myOwnContext == null) {
+      myOwnContext = new LinkedHashMap<>();
+    } else {
+      myOwnContext.clear();
+    }
+    context = myOwnContext;
+    myClassCallBindings.clear();
+    myDeferredMetasBeforeSolver.clear();
+    myDeferredMetasAfterLevels.clear();
+    myArendExtension = arendExtension;
+    clearUserData();
   }
 
   public ArendExtension getExtension() {
     return myArendExtension;
   }
 
+  /**
+   * @return true if the context of this visitor was saved since the last reset.
+   *         Saved contexts refer to the visitor, so it should not be reused.
+   */
+  public boolean isContextSaved() {
+    return myContextSaved;
+  }
+
   public TypecheckingContext saveTypecheckingContext() {
+    myContextSaved = true;
     return new TypecheckingContext(new LinkedHashMap<>(context), myInstancePool.getInstanceProvider(), myInstancePool.getInstancePool(), myArendExtension, copyUserData());
   }
 
@@ -805,16 +849,13 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
     return finalize(checkExpr(expr, expectedType), expr, false);
   }
 
-  private void invokeDeferredMetas(InPlaceLevelSubstVisitor substVisitor, StripVisitor stripVisitor, boolean afterLevels) {
+  private void invokeDeferredMetas(StripVisitor stripVisitor, boolean afterLevels) {
     List<DeferredMeta> deferredMetas = afterLevels ? myDeferredMetasAfterLevels : myDeferredMetasBeforeSolver;
     // Indexed loop is required since deferredMetas can be modified during the loop
     //noinspection ForLoopReplaceableByForEach
     for (int i = 0; i < deferredMetas.size(); i++) {
       DeferredMeta deferredMeta = deferredMetas.get(i);
       Expression type = deferredMeta.contextData.getExpectedType();
-      if (substVisitor != null && !substVisitor.isEmpty()) {
-        type.accept(substVisitor, null);
-      }
       if (stripVisitor != null) {
         type = type.accept(stripVisitor, null);
         deferredMeta.contextData.setExpectedType(type.accept(new StripVisitor(), null));
@@ -825,12 +866,10 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
             TypedDependentLink typed = ((UntypedDependentLink) binding).getNextTyped(null);
             if (typed != lastTyped) {
               lastTyped = typed;
-              typed.subst(substVisitor);
               typed.strip(stripVisitor);
             }
           } else {
             if (binding != lastTyped) {
-              binding.subst(substVisitor);
               binding.strip(stripVisitor);
             }
             lastTyped = null;
@@ -842,10 +881,6 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
       MyErrorReporter originalErrorReporter = errorReporter;
       Map<Referable, Binding> originalContext = context;
       if (afterLevels) {
-        for (Binding binding : deferredMeta.context.values()) {
-          Type bindingType = binding.getType();
-          if (bindingType != null) bindingType.subst(substVisitor);
-        }
         checkTypeVisitor = new CheckTypeVisitor(deferredMeta.context, deferredMeta.errorReporter, null, myArendExtension, this);
         checkTypeVisitor.setInstancePool(new GlobalInstancePool(myInstancePool.getInstanceProvider(), checkTypeVisitor, myInstancePool.getInstancePool()));
       } else {
@@ -883,7 +918,7 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
       return null;
     }
 
-    invokeDeferredMetas(null, null, false);
+    invokeDeferredMetas(null, false);
     LevelEquationsSolver levelSolver = myEquations.makeLevelEquationsSolver();
     if (propIfPossible) {
       Sort sort = result.type.getSortOfType();
@@ -893,17 +928,10 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
     }
     LevelSubstitution levelSubstitution = levelSolver.solveLevels();
     myEquations.finalizeEquations(levelSubstitution, sourceNode);
-    InPlaceLevelSubstVisitor substVisitor = new InPlaceLevelSubstVisitor(levelSubstitution);
-    if (!substVisitor.isEmpty()) {
-      if (result.expression != null) {
-        result.expression.accept(substVisitor, null);
-      }
-      result.type.accept(substVisitor, null);
-    }
 
     ErrorReporterCounter counter = new ErrorReporterCounter(GeneralError.Level.ERROR, errorReporter);
-    StripVisitor stripVisitor = new StripVisitor(counter);
-    invokeDeferredMetas(substVisitor, stripVisitor, true);
+    StripVisitor stripVisitor = new StripVisitor(counter, levelSubstitution);
+    invokeDeferredMetas(stripVisitor, true);
     if (result.expression != null) {
       result.expression = result.expression.accept(stripVisitor, null);
     }
@@ -970,7 +998,7 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
   public Type finalCheckType(Concrete.Expression expr, Expression expectedType, boolean propIfPossible) {
     Type result = checkType(expr, expectedType);
     if (result == null) return null;
-    invokeDeferredMetas(null, null, false);
+    invokeDeferredMetas(null, false);
     LevelEquationsSolver levelSolver = myEquations.makeLevelEquationsSolver();
     if (propIfPossible) {
       Sort sort = result.getSortOfType();
@@ -980,12 +1008,8 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
     }
     LevelSubstitution levelSubstitution = levelSolver.solveLevels();
     myEquations.finalizeEquations(levelSubstitution, expr);
-    InPlaceLevelSubstVisitor substVisitor = new InPlaceLevelSubstVisitor(levelSubstitution);
-    if (!substVisitor.isEmpty()) {
-      result.subst(substVisitor);
-    }
-    StripVisitor stripVisitor = new StripVisitor(errorReporter);
-    invokeDeferredMetas(substVisitor, stripVisitor, true);
+    StripVisitor stripVisitor = new StripVisitor(errorReporter, levelSubstitution);
+    invokeDeferredMetas(stripVisitor, true);
     return result.strip(stripVisitor);
   }
 
@@ -3050,15 +3074,53 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
     }
   }
 
+  public UndoTrail getUndoTrail() {
+    return myUndoTrail;
+  }
+
   public void variableSolved(InferenceVariable variable) {
-    if (mySavedState != null) {
-      mySavedState.solvedVariables.add(variable);
+    myUndoTrail.record(variable::unsolve);
+  }
+
+  /**
+   * Records a copy of the value of a key on the first access after the last saved state,
+   * so that mutable values are restored by {@link #loadSavedState}.
+   */
+  private <T> void snapshotUserData(Key<T> key) {
+    if (myUndoTrail.isRecording() && mySnapshotKeys.add(key)) {
+      T value = super.getUserData(key);
+      T copy = value == null ? null : key.copy(value);
+      myUndoTrail.record(() -> super.putUserData(key, copy));
     }
   }
 
+  @Override
+  public <T> @Nullable T getUserData(@NotNull Key<T> key) {
+    snapshotUserData(key);
+    return super.getUserData(key);
+  }
+
+  @Override
+  public <T> void putUserData(@NotNull Key<T> key, @Nullable T value) {
+    snapshotUserData(key);
+    super.putUserData(key, value);
+  }
+
+  @Override
+  public Map<Key<?>, Object> getUserDataMap() {
+    Map<Key<?>, Object> map = super.getUserDataMap();
+    if (myUndoTrail.isRecording()) {
+      for (Key<?> key : map.keySet()) {
+        snapshotUserData(key);
+      }
+    }
+    return map;
+  }
+
   private void saveState() {
     ListErrorReporter listErrorReporter = new ListErrorReporter();
-    TypecheckerState state = new TypecheckerState(errorReporter, myDeferredMetasBeforeSolver.size(), myDeferredMetasAfterLevels.size(), copyUserData(), mySavedState, listErrorReporter);
+    TypecheckerState state = new TypecheckerState(errorReporter, myDeferredMetasBeforeSolver.size(), myDeferredMetasAfterLevels.size(), myUndoTrail.push(), mySavedState, listErrorReporter);
+    mySnapshotKeys.clear();
     errorReporter = new MyErrorReporter(listErrorReporter);
     myEquations.saveState(state);
     mySavedState = state;
@@ -3067,10 +3129,9 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
   private void restoreState() {
     mySavedState.listErrorReporter.reportTo(mySavedState.errorReporter);
     errorReporter = mySavedState.errorReporter;
-    if (mySavedState.previousState != null) {
-      mySavedState.previousState.solvedVariables.addAll(mySavedState.solvedVariables);
-    }
     mySavedState = mySavedState.previousState;
+    myUndoTrail.pop();
+    mySnapshotKeys.clear();
   }
 
   @Override
@@ -3091,10 +3152,8 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
 
     mySavedState.listErrorReporter.reportTo(mySavedState.errorReporter);
     mySavedState.listErrorReporter.getErrorList().clear();
-    if (mySavedState.previousState != null) {
-      mySavedState.previousState.solvedVariables.addAll(mySavedState.solvedVariables);
-    }
-    TypecheckerState state = new TypecheckerState(mySavedState.errorReporter, myDeferredMetasBeforeSolver.size(), myDeferredMetasAfterLevels.size(), copyUserData(), mySavedState.previousState, mySavedState.listErrorReporter);
+    TypecheckerState state = new TypecheckerState(mySavedState.errorReporter, myDeferredMetasBeforeSolver.size(), myDeferredMetasAfterLevels.size(), myUndoTrail.mark(), mySavedState.previousState, mySavedState.listErrorReporter);
+    mySnapshotKeys.clear();
     myEquations.saveState(state);
     mySavedState = state;
   }
@@ -3107,13 +3166,8 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
     if (state.numberOfDeferredMetasAfterLevels < myDeferredMetasAfterLevels.size()) {
       myDeferredMetasAfterLevels.subList(state.numberOfDeferredMetasAfterLevels, myDeferredMetasAfterLevels.size()).clear();
     }
-    setUserData(state.userDataHolder);
-
-    for (InferenceVariable var : state.solvedVariables) {
-      var.unsolve();
-    }
-    state.solvedVariables.clear();
-
+    myUndoTrail.rollback(state.trailMark);
+    mySnapshotKeys.clear();
     myEquations.loadState(state);
   }
 
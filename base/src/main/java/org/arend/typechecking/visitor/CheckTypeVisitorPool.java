@@ -0,0 +1,44 @@
+package org.arend.typechecking.visitor;
+
+import org.arend.error.DummyErrorReporter;
+import org.arend.ext.ArendExtension;
+import org.arend.ext.error.ErrorReporter;
+
+import java.util.ArrayDeque;
+
+/**
+ * Keeps typecheckers released by the current thread, so that they can be reused for other definitions.
+ * A typechecker is handed out only after it was released, so nested typechecking gets a different one.
+ */
+public final class CheckTypeVisitorPool {
+  private static final int MAX_SIZE = 4;
+  private static final ThreadLocal<ArrayDeque<CheckTypeVisitor>> ourPool = ThreadLocal.withInitial(ArrayDeque::new);
+
+  private CheckTypeVisitorPool() {}
+
+  /**
+   * Returns a released typechecker of the current thread or creates a new one.
+   * The instance pool of the typechecker is not set.
+   */
+  public static CheckTypeVisitor acquire(ErrorReporter errorReporter, ArendExtension arendExtension) {
+    CheckTypeVisitor visitor = ourPool.get().poll();
+    if (visitor == null) {
+      return new CheckTypeVisitor(errorReporter, null, arendExtension);
+    }
+    visitor.reset(errorReporter, arendExtension);
+    return visitor;
+  }
+
+  /**
+   * Returns a typechecker to the pool of the current thread.
+   * The typechecker should not be used after that.
+   * A typechecker whose context was saved, for example, in a goal, is not pooled since the context still refers to it.
+   */
+  public static void release(CheckTypeVisitor visitor) {
+    ArrayDeque<CheckTypeVisitor> pool = ourPool.get();
+    if (pool.size() < MAX_SIZE && !visitor.isContextSaved()) {
+      visitor.reset(DummyErrorReporter.INSTANCE, null);
+      pool.push(visitor);
+    }
+  }
+}
@@ -1189,6 +1189,7 @@ public class DefinitionTypechecker extends BaseDefinitionTypechecker implements
         goodThisParametersVisitor.visitBody(typedDef.getActualBody(), null);
       }
       typedDef.setGoodThisParameters(goodThisParametersVisitor.getGoodParameters());
+      typedDef.setHeight(FunctionHeightVisitor.getHeight(typedDef.getActualBody()));
 
       if (checkForUniverses(typedDef.getParameters()) || new UniverseKindChecker().check(typedDef.getResultType())) {
         typedDef.setUniverseKind(UniverseKind.WITH_UNIVERSES);
@@ -0,0 +1,198 @@
+package org.arend.util;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Data compressed in independent blocks.
+ * The container consists of a header, an index of compressed lengths of blocks, and the blocks themselves.
+ * Since blocks do not depend on each other, they are compressed and decompressed in parallel,
+ * and a range of the data can be read without decompressing blocks that do not intersect it.
+ */
+public class BlockCompressedData {
+  public static final int MAGIC = 0x41524243;
+  public static final int DEFAULT_BLOCK_SIZE = 1 << 16;
+
+  private final ByteBuffer myContainer;
+  private final int myBlockSize;
+  private final long myLength;
+  private final int[] myOffsets;
+
+  /**
+   * Reads the header and the index of a container.
+   *
+   * @param container  the container, as written by {@link #write}.
+   */
+  public BlockCompressedData(byte[] container) throws IOException {
+    this(ByteBuffer.wrap(container));
+  }
+
+  /**
+   * Reads the header and the index of a container.
+   * The remaining bytes of the buffer are not copied, so it can be a mapped file.
+   *
+   * @param container  the container, as written by {@link #write}.
+   */
+  public BlockCompressedData(ByteBuffer container) throws IOException {
+    myContainer = container.slice().order(ByteOrder.BIG_ENDIAN);
+    int size = myContainer.limit();
+    if (!isBlockCompressed(myContainer) || size < 20) {
+      throw new IOException("Not a block compressed container");
+    }
+    myBlockSize = myContainer.getInt(4);
+    myLength = myContainer.getLong(8);
+    int blocks = myContainer.getInt(16);
+    if (myBlockSize <= 0 || myLength < 0 || blocks != numberOfBlocks(myLength, myBlockSize) || 20L + 4L * blocks > size) {
+      throw new IOException("Malformed block compressed container");
+    }
+
+    myOffsets = new int[blocks + 1];
+    myOffsets[0] = 20 + 4 * blocks;
+    for (int i = 0; i < blocks; i++) {
+      int length = myContainer.getInt(20 + 4 * i);
+      if (length < 0 || (long) myOffsets[i] + length > size) {
+        throw new IOException("Malformed block compressed container");
+      }
+      myOffsets[i + 1] = myOffsets[i] + length;
+    }
+  }
+
+  /**
+   * Checks if the given bytes start with {@link #MAGIC}.
+   */
+  public static boolean isBlockCompressed(byte[] header) {
+    return isBlockCompressed(ByteBuffer.wrap(header));
+  }
+
+  /**
+   * Checks if the remaining bytes of the buffer start with {@link #MAGIC}.
+   */
+  public static boolean isBlockCompressed(ByteBuffer header) {
+    return header.remaining() >= 4 && header.duplicate().order(ByteOrder.BIG_ENDIAN).getInt(header.position()) == MAGIC;
+  }
+
+  private static int numberOfBlocks(long length, int blockSize) {
+    return (int) ((length + blockSize - 1) / blockSize);
+  }
+
+  /**
+   * Compresses data and writes the container to the stream.
+   *
+   * @param level      the compression level, from {@link Deflater#NO_COMPRESSION} to {@link Deflater#BEST_COMPRESSION},
+   *                   or {@link Deflater#DEFAULT_COMPRESSION}.
+   */
+  public static void write(byte[] data, int length, int blockSize, int level, OutputStream out) throws IOException {
+    int blocks = numberOfBlocks(length, blockSize);
+    byte[][] compressed = new byte[blocks][];
+    IntStream.range(0, blocks).parallel().forEach(i -> {
+      Deflater deflater = new Deflater(level, true);
+      try {
+        int start = i * blockSize;
+        deflater.setInput(data, start, Math.min(blockSize, length - start));
+        deflater.finish();
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] buffer = new byte[blockSize + 64];
+        while (!deflater.finished()) {
+          result.write(buffer, 0, deflater.deflate(buffer));
+        }
+        compressed[i] = result.toByteArray();
+      } finally {
+        deflater.end();
+      }
+    });
+
+    DataOutputStream stream = new DataOutputStream(out);
+    stream.writeInt(MAGIC);
+    stream.writeInt(blockSize);
+    stream.writeLong(length);
+    stream.writeInt(blocks);
+    for (byte[] block : compressed) {
+      stream.writeInt(block.length);
+    }
+    for (byte[] block : compressed) {
+      stream.write(block);
+    }
+    stream.flush();
+  }
+
+  public long getLength() {
+    return myLength;
+  }
+
+  public int getNumberOfBlocks() {
+    return myOffsets.length - 1;
+  }
+
+  private int blockLength(int block) {
+    return (int) Math.min(myBlockSize, myLength - (long) block * myBlockSize);
+  }
+
+  private void inflate(int block, byte[] result, int offset) throws IOException {
+    Inflater inflater = new Inflater(true);
+    try {
+      inflater.setInput(myContainer.duplicate().position(myOffsets[block]).limit(myOffsets[block + 1]));
+      int length = blockLength(block);
+      int read = 0;
+      while (read < length) {
+        int n = inflater.inflate(result, offset + read, length - read);
+        if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+          throw new IOException("Truncated block " + block);
+        }
+        read += n;
+      }
+    } catch (DataFormatException e) {
+      throw new IOException(e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  /**
+   * Decompresses all blocks in parallel.
+   */
+  public byte[] readAll() throws IOException {
+    if (myLength > Integer.MAX_VALUE) {
+      throw new IOException("Block compressed data is too large");
+    }
+    byte[] result = new byte[(int) myLength];
+    try {
+      IntStream.range(0, getNumberOfBlocks()).parallel().forEach(i -> {
+        try {
+          inflate(i, result, i * myBlockSize);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    return result;
+  }
+
+  /**
+   * Decompresses only the blocks that intersect the given range.
+   */
+  public byte[] read(long offset, int length) throws IOException {
+    if (offset < 0 || length < 0 || offset + length > myLength) {
+      throw new IndexOutOfBoundsException();
+    }
+    if (length == 0) {
+      return new byte[0];
+    }
+
+    int first = (int) (offset / myBlockSize);
+    int last = (int) ((offset + length - 1) / myBlockSize);
+    byte[] buffer = new byte[(last - first) * myBlockSize + blockLength(last)];
+    for (int i = first; i <= last; i++) {
+      inflate(i, buffer, (i - first) * myBlockSize);
+    }
+    int start = (int) (offset - (long) first * myBlockSize);
+    return Arrays.copyOfRange(buffer, start, start + length);
+  }
+}
@@ -1,4 +1,10 @@
 package org.arend.util;
 
 public class ComputationInterruptedException extends RuntimeException {
+  public ComputationInterruptedException() {
+  }
+
+  protected ComputationInterruptedException(String message) {
+    super(message);
+  }
 }
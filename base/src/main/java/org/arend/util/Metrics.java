@@ -0,0 +1,261 @@
+package org.arend.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A registry of counters, histograms, and gauges that can be exported as JSON or in the Prometheus text format.
+ * Metrics are identified by their names and labels; the same metric is returned if it is requested again.
+ */
+public class Metrics {
+  public static final String LIBRARIES_LOADED = "arend_libraries_loaded_total";
+  public static final String MODULES_PARSED = "arend_modules_parsed_total";
+  public static final String BINARIES_LOADED = "arend_binaries_loaded_total";
+  public static final String BYTES_READ = "arend_bytes_read_total";
+  public static final String DEFINITIONS_TYPECHECKED = "arend_definitions_typechecked_total";
+  public static final String TYPECHECKING_TIME = "arend_typechecking_seconds";
+  public static final String LOADING_STAGE_TIME = "arend_loading_stage_seconds";
+  public static final String CONVERSION_CACHE_HITS = "arend_conversion_cache_hits_total";
+  public static final String CONVERSION_CACHE_MISSES = "arend_conversion_cache_misses_total";
+  public static final String TYPE_CACHE_HITS = "arend_type_cache_hits_total";
+  public static final String TYPE_CACHE_MISSES = "arend_type_cache_misses_total";
+
+  private static final double[] BUCKETS = { 0.001, 0.01, 0.1, 1, 10, 60 };
+
+  private final Map<String, Metric> myMetrics = new ConcurrentSkipListMap<>();
+
+  private abstract static class Metric {
+    final String name;
+    final String labels;
+    final String help;
+
+    Metric(String name, String labels, String help) {
+      this.name = name;
+      this.labels = labels;
+      this.help = help;
+    }
+
+    abstract String getType();
+  }
+
+  public static class Counter extends Metric {
+    private final LongAdder myValue = new LongAdder();
+
+    private Counter(String name, String labels, String help) {
+      super(name, labels, help);
+    }
+
+    public void add(long value) {
+      myValue.add(value);
+    }
+
+    public void increment() {
+      myValue.increment();
+    }
+
+    public long get() {
+      return myValue.sum();
+    }
+
+    @Override
+    String getType() {
+      return "counter";
+    }
+  }
+
+  public static class Histogram extends Metric {
+    private final LongAdder[] myBuckets = new LongAdder[BUCKETS.length + 1];
+    private final DoubleAdder mySum = new DoubleAdder();
+
+    private Histogram(String name, String labels, String help) {
+      super(name, labels, help);
+      for (int i = 0; i < myBuckets.length; i++) {
+        myBuckets[i] = new LongAdder();
+      }
+    }
+
+    public void record(double value) {
+      int i = 0;
+      while (i < BUCKETS.length && value > BUCKETS[i]) {
+        i++;
+      }
+      myBuckets[i].increment();
+      mySum.add(value);
+    }
+
+    /**
+     * Records time in seconds.
+     *
+     * @param nanos time in nanoseconds.
+     */
+    public void recordNanos(long nanos) {
+      record(nanos / 1e9);
+    }
+
+    public long getCount() {
+      long count = 0;
+      for (LongAdder bucket : myBuckets) {
+        count += bucket.sum();
+      }
+      return count;
+    }
+
+    public double getSum() {
+      return mySum.sum();
+    }
+
+    @Override
+    String getType() {
+      return "histogram";
+    }
+  }
+
+  private static class SuppliedMetric extends Metric {
+    private final LongSupplier mySupplier;
+    private final boolean myMonotonic;
+
+    private SuppliedMetric(String name, String labels, String help, LongSupplier supplier, boolean monotonic) {
+      super(name, labels, help);
+      mySupplier = supplier;
+      myMonotonic = monotonic;
+    }
+
+    @Override
+    String getType() {
+      return myMonotonic ? "counter" : "gauge";
+    }
+  }
+
+  private static String makeLabels(String[] labels) {
+    if (labels.length == 0) {
+      return "";
+    }
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i + 1 < labels.length; i += 2) {
+      builder.append(builder.length() == 0 ? "{" : ",").append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+    }
+    return builder.append('}').toString();
+  }
+
+  private static String escape(String str) {
+    return str.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+
+  /**
+   * @param labels  names and values of labels.
+   */
+  public Counter counter(String name, String help, String... labels) {
+    String labelsString = makeLabels(labels);
+    return (Counter) myMetrics.computeIfAbsent(name + labelsString, k -> new Counter(name, labelsString, help));
+  }
+
+  /**
+   * Returns a histogram with buckets suitable for measuring time in seconds.
+   *
+   * @param labels  names and values of labels.
+   */
+  public Histogram histogram(String name, String help, String... labels) {
+    String labelsString = makeLabels(labels);
+    return (Histogram) myMetrics.computeIfAbsent(name + labelsString, k -> new Histogram(name, labelsString, help));
+  }
+
+  /**
+   * Registers a value that is computed when metrics are exported.
+   */
+  public void gauge(String name, String help, LongSupplier supplier) {
+    myMetrics.put(name, new SuppliedMetric(name, "", help, supplier, false));
+  }
+
+  /**
+   * Registers a counter that is computed when metrics are exported.
+   * The supplier should return a total that never decreases.
+   */
+  public void counter(String name, String help, LongSupplier supplier) {
+    myMetrics.put(name, new SuppliedMetric(name, "", help, supplier, true));
+  }
+
+  public InputStream countBytes(InputStream stream) {
+    Counter counter = counter(BYTES_READ, "Bytes read from sources and binaries");
+    return new FilterInputStream(stream) {
+      @Override
+      public int read() throws IOException {
+        int result = super.read();
+        if (result >= 0) {
+          counter.increment();
+        }
+        return result;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        int result = super.read(b, off, len);
+        if (result > 0) {
+          counter.add(result);
+        }
+        return result;
+      }
+    };
+  }
+
+  public void writePrometheus(StringBuilder builder) {
+    String lastName = null;
+    for (Metric metric : myMetrics.values()) {
+      if (!metric.name.equals(lastName)) {
+        builder.append("# HELP ").append(metric.name).append(' ').append(metric.help).append('\n');
+        builder.append("# TYPE ").append(metric.name).append(' ').append(metric.getType()).append('\n');
+        lastName = metric.name;
+      }
+
+      if (metric instanceof Counter) {
+        builder.append(metric.name).append(metric.labels).append(' ').append(((Counter) metric).get()).append('\n');
+      } else if (metric instanceof SuppliedMetric) {
+        builder.append(metric.name).append(metric.labels).append(' ').append(((SuppliedMetric) metric).mySupplier.getAsLong()).append('\n');
+      } else {
+        Histogram histogram = (Histogram) metric;
+        String prefix = metric.labels.isEmpty() ? "{" : metric.labels.substring(0, metric.labels.length() - 1) + ",";
+        long count = 0;
+        for (int i = 0; i < histogram.myBuckets.length; i++) {
+          count += histogram.myBuckets[i].sum();
+          builder.append(metric.name).append("_bucket").append(prefix).append("le=\"").append(i < BUCKETS.length ? Double.toString(BUCKETS[i]) : "+Inf").append("\"} ").append(count).append('\n');
+        }
+        builder.append(metric.name).append("_sum").append(metric.labels).append(' ').append(histogram.getSum()).append('\n');
+        builder.append(metric.name).append("_count").append(metric.labels).append(' ').append(count).append('\n');
+      }
+    }
+  }
+
+  public void writeJson(StringBuilder builder) {
+    builder.append("{\n");
+    boolean first = true;
+    for (Map.Entry<String, Metric> entry : myMetrics.entrySet()) {
+      if (!first) {
+        builder.append(",\n");
+      }
+      first = false;
+      builder.append("  \"").append(escape(entry.getKey())).append("\": ");
+      Metric metric = entry.getValue();
+      if (metric instanceof Counter) {
+        builder.append(((Counter) metric).get());
+      } else if (metric instanceof SuppliedMetric) {
+        builder.append(((SuppliedMetric) metric).mySupplier.getAsLong());
+      } else {
+        Histogram histogram = (Histogram) metric;
+        builder.append("{\"count\": ").append(histogram.getCount()).append(", \"sum\": ").append(histogram.getSum()).append(", \"buckets\": {");
+        for (int i = 0; i < histogram.myBuckets.length; i++) {
+          if (i > 0) {
+            builder.append(", ");
+          }
+          builder.append('"').append(i < BUCKETS.length ? Double.toString(BUCKETS[i]) : "+Inf").append("\": ").append(histogram.myBuckets[i].sum());
+        }
+        builder.append("}}");
+      }
+    }
+    builder.append("\n}\n");
+  }
+}
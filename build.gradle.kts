@@ -80,6 +80,14 @@ subprojects {
     }
 }
 
+// Test JVMs do not share any state, so test classes can be distributed between forks.
+// Typechecking inside one JVM is serialized by ComputationRunner, so forks are used instead of parallel JUnit threads.
+// The number of forks can be overridden with -PtestForks=N
+tasks.withType<Test>().configureEach {
+    val testForks = project.findProperty("testForks")?.toString()?.toIntOrNull()
+    maxParallelForks = testForks ?: (Runtime.getRuntime().availableProcessors() / 2).coerceAtLeast(1)
+}
+
 tasks.withType<Wrapper> {
     gradleVersion = "6.7"
 }
@@ -40,6 +40,39 @@ val jarDep = tasks.register<Jar>("jarDep") {
     archiveClassifier.set("full")
 }
 
+// Class data sharing archive, use it with `java -XX:SharedArchiveFile=cli/build/libs/cli-[version]-full.jsa -jar cli/build/libs/cli-[version]-full.jar`
+// Requires JDK 13 or newer
+
+val appCdsTraining = buildDir.resolve("appcds")
+val appCds = tasks.register<JavaExec>("appCds") {
+    group = "build"
+    description = "Builds an AppCDS archive for the jarDep jar from a training run"
+    val jarDep = jarDep.get()
+    dependsOn(jarDep)
+    val jarFile = jarDep.archiveFile.get().asFile
+    val archive = jarFile.resolveSibling(jarFile.nameWithoutExtension + ".jsa")
+    outputs.file(archive)
+    classpath = files(jarFile)
+    main = "${project.group}.frontend.ConsoleMain"
+    jvmArgs("-XX:ArchiveClassesAtExit=$archive")
+    args("-s", appCdsTraining.resolve("src"), "-b", appCdsTraining.resolve("bin"), "--recompile")
+    doFirst {
+        val source = appCdsTraining.resolve("src/Training.ard")
+        source.parentFile.mkdirs()
+        source.writeText("""
+            \data List (A : \Type) | nil | cons A (List A)
+
+            \func length {A : \Type} (xs : List A) : Nat \elim xs
+              | nil => 0
+              | cons _ xs => suc (length xs)
+
+            \record Pointed (E : \Set) (base : E)
+
+            \lemma length-nil {A : \Type} : length {A} nil = 0 => idp
+        """.trimIndent())
+    }
+}
+
 val copyJarDep = tasks.register<Copy>("copyJarDep") {
     val jarDep = jarDep.get()
     dependsOn(jarDep)
@@ -2,15 +2,16 @@ package org.arend.frontend;
 
 import org.apache.commons.cli.*;
 import org.arend.core.definition.Definition;
-import org.arend.ext.error.ListErrorReporter;
+import org.arend.ext.core.ops.NormalizationMode;
 import org.arend.ext.error.ErrorReporter;
 import org.arend.ext.error.GeneralError;
 import org.arend.ext.module.LongName;
 import org.arend.ext.module.ModulePath;
-import org.arend.ext.prettyprinting.PrettyPrinterFlag;
 import org.arend.extImpl.DefinitionRequester;
 import org.arend.frontend.library.FileSourceLibrary;
+import org.arend.frontend.library.StartupProfile;
 import org.arend.frontend.library.TimedLibraryManager;
+import org.arend.frontend.repl.BatchCliRepl;
 import org.arend.frontend.repl.PlainCliRepl;
 import org.arend.frontend.repl.jline.JLineCliRepl;
 import org.arend.library.*;
@@ -19,18 +20,17 @@ import org.arend.library.error.LibraryError;
 import org.arend.module.ModuleLocation;
 import org.arend.naming.reference.*;
 import org.arend.naming.reference.converter.IdReferableConverter;
-import org.arend.naming.scope.EmptyScope;
 import org.arend.naming.scope.Scope;
+import org.arend.source.Source;
+import org.arend.source.SourceLoader;
 import org.arend.prelude.Prelude;
 import org.arend.prelude.PreludeResourceLibrary;
 import org.arend.term.concrete.Concrete;
 import org.arend.term.group.Group;
-import org.arend.term.prettyprint.PrettyPrinterConfigWithRenamer;
 import org.arend.typechecking.LibraryArendExtensionProvider;
+import org.arend.typechecking.computation.*;
 import org.arend.typechecking.doubleChecker.CoreModuleChecker;
-import org.arend.typechecking.error.local.GoalError;
 import org.arend.typechecking.instance.provider.InstanceProviderSet;
-import org.arend.typechecking.order.dependency.DependencyListener;
 import org.arend.typechecking.order.dependency.MetaDependencyCollector;
 import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
 import org.arend.util.FileUtils;
@@ -39,33 +39,64 @@ import org.arend.util.Range;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.function.Function;
+import java.util.zip.Deflater;
 
 import static org.arend.frontend.library.TimedLibraryManager.timeToString;
 
 public abstract class BaseCliFrontend {
   // Typechecking
-  private final ListErrorReporter myErrorReporter = new ListErrorReporter();
+  private final StreamingErrorReporter myErrorReporter = new StreamingErrorReporter(this::getOut, this::getErr) {
+    @Override
+    protected void errorReported(GeneralError error) {
+      error.forAffectedDefinitions((referable, err) -> {
+        if (referable instanceof LocatedReferable) {
+          updateSourceResult(((LocatedReferable) referable).getLocation(), err.level);
+        }
+      });
+      if (error.level == GeneralError.Level.ERROR) {
+        myExitWithError = true;
+      }
+    }
+  };
   private final Map<ModulePath, GeneralError.Level> myModuleResults = new LinkedHashMap<>();
-  private final DependencyListener myDependencyCollector = new MetaDependencyCollector();
   private Map<TCDefReferable, Pair<Long,Long>> myTimes = null;
+  private StartupProfile myStartupProfile;
+  private MyTypechecking myTypechecking;
+  private boolean myDoubleCheck;
+  private int myDoubleCheckThreads = 1;
+  private boolean myDoubleCheckChanged;
+  private final Set<TCDefReferable> myTypecheckedDefinitions = new HashSet<>();
+  private MetricsExporter myMetricsExporter;
+  private long myTimeout;
+  private long myDefinitionTimeout;
+  private int myMaxHeapUsage;
+  private Path myMetricsFile;
+
+  private final MetaDependencyCollector myDependencyCollector = new MetaDependencyCollector();
 
   // Status information
   private boolean myExitWithError = false;
+  private PrintStream myRequestOutput;
   private final ErrorReporter mySystemErrErrorReporter = error -> {
-    System.err.println(error);
-    System.err.flush();
+    getErr().println(error);
+    getErr().flush();
     myExitWithError = true;
   };
 
   // Libraries
   private final FileLibraryResolver myLibraryResolver = new FileLibraryResolver(new ArrayList<>(), mySystemErrErrorReporter, myDependencyCollector);
-  private final LibraryManager myLibraryManager = new TimedLibraryManager(myLibraryResolver, new InstanceProviderSet(), myErrorReporter, mySystemErrErrorReporter, DefinitionRequester.INSTANCE) {
+  private final TimedLibraryManager myLibraryManager = new TimedLibraryManager(myLibraryResolver, new InstanceProviderSet(), myErrorReporter, mySystemErrErrorReporter, DefinitionRequester.INSTANCE) {
     @Override
     protected void afterLibraryLoading(@NotNull Library library, boolean successful) {
       super.afterLibraryLoading(library, successful);
@@ -84,6 +115,7 @@ public abstract class BaseCliFrontend {
 
     MyTypechecking() {
       super(myLibraryManager.getInstanceProviderSet(), ConcreteReferableProvider.INSTANCE, IdReferableConverter.INSTANCE, myErrorReporter, myDependencyCollector, PositionComparator.INSTANCE, new LibraryArendExtensionProvider(myLibraryManager));
+      setMetrics(myLibraryManager.getMetrics());
     }
 
     private void startTimer(TCDefReferable ref) {
@@ -136,6 +168,7 @@ public abstract class BaseCliFrontend {
     }
 
     private void update(Definition definition) {
+      myTypecheckedDefinitions.add(definition.getRef());
       flushErrors();
 
       LocatedReferable parent = definition.getRef().getLocatedReferableParent();
@@ -157,6 +190,14 @@ public abstract class BaseCliFrontend {
     return myExitWithError;
   }
 
+  private PrintStream getOut() {
+    return myRequestOutput != null ? myRequestOutput : System.out;
+  }
+
+  private PrintStream getErr() {
+    return myRequestOutput != null ? myRequestOutput : System.err;
+  }
+
   private CommandLine parseArgs(String[] args) {
     try {
       Options cmdOptions = new Options();
@@ -169,10 +210,28 @@ public abstract class BaseCliFrontend {
       cmdOptions.addOption(Option.builder("m").longOpt("extension-main").hasArg().argName("class").desc("main extension class").build());
       cmdOptions.addOption(Option.builder("r").longOpt("recompile").hasArg().optionalArg(true).argName("target").desc("recompile files").build());
       cmdOptions.addOption(Option.builder("c").longOpt("double-check").desc("double check correctness of the result").build());
+      cmdOptions.addOption(Option.builder().longOpt("double-check-threads").hasArg().argName("n").desc("double check definitions in n threads").build());
+      cmdOptions.addOption(Option.builder().longOpt("double-check-changed").desc("double check only definitions typechecked in this build").build());
       cmdOptions.addOption(Option.builder("i").longOpt("interactive").hasArg().optionalArg(true).argName("type").desc("start an interactive REPL, type can be plain or jline (default)").build());
+      cmdOptions.addOption(Option.builder().longOpt("evaluate").hasArg().argName("file").desc("typecheck and normalize expressions from a file (or - for the standard input), one per line, and print results as JSON lines").build());
+      cmdOptions.addOption(Option.builder().longOpt("normalization").hasArg().argName("mode").desc("normalization mode of evaluated expressions: whnf, nf, rnf, enf (default), or null").build());
       cmdOptions.addOption("t", "test", false, "run tests");
       cmdOptions.addOption("v", "version", false, "print language version");
       cmdOptions.addOption(Option.builder().longOpt("show-times").build());
+      cmdOptions.addOption(Option.builder().longOpt("profile-startup").desc("report time spent in each stage of loading and typechecking").build());
+      cmdOptions.addOption(Option.builder("w").longOpt("watch").desc("keep running and typecheck changed modules again").build());
+      cmdOptions.addOption(Option.builder().longOpt("daemon").hasArg().argName("port").desc("run in watch mode and accept build requests on a local port").build());
+      cmdOptions.addOption(Option.builder().longOpt("timeout").hasArg().argName("sec").desc("interrupt typechecking after the given number of seconds").build());
+      cmdOptions.addOption(Option.builder().longOpt("definition-timeout").hasArg().argName("sec").desc("skip definitions that take longer than the given number of seconds").build());
+      cmdOptions.addOption(Option.builder().longOpt("max-heap-usage").hasArg().argName("percent").desc("skip definitions that fill the heap beyond the given percentage").build());
+      cmdOptions.addOption(Option.builder().longOpt("max-errors-per-definition").hasArg().argName("n").desc("print at most n errors for each definition").build());
+      cmdOptions.addOption(Option.builder().longOpt("max-errors-per-module").hasArg().argName("n").desc("print at most n errors for each module").build());
+      cmdOptions.addOption(Option.builder().longOpt("normalization-limit").hasArg().argName("n").desc("report definitions that require more than n normalization steps").build());
+      cmdOptions.addOption(Option.builder().longOpt("compression-level").hasArg().argName("0-9").desc("compression level of binary files, higher levels produce smaller files").build());
+      cmdOptions.addOption(Option.builder().longOpt("metrics").hasArg().argName("file").desc("write metrics to a file in JSON (if it ends with .json) or Prometheus text format").build());
+      cmdOptions.addOption(Option.builder().longOpt("metrics-port").hasArg().argName("port").desc("serve metrics on a local port in watch mode").build());
+      cmdOptions.addOption(Option.builder().longOpt("connect").hasArg().argName("port").desc("request a build from a daemon listening on a local port").build());
+      cmdOptions.addOption(Option.builder().longOpt("stop-daemon").hasArg().argName("port").desc("stop a daemon listening on a local port").build());
       addCommandOptions(cmdOptions);
       CommandLine cmdLine = new DefaultParser().parse(cmdOptions, args);
 
@@ -202,6 +261,74 @@ public abstract class BaseCliFrontend {
       return null;
     }
 
+    if (cmdLine.hasOption("profile-startup")) {
+      myStartupProfile = new StartupProfile();
+      myLibraryManager.setStartupProfile(myStartupProfile);
+    }
+
+    if (cmdLine.hasOption("connect") || cmdLine.hasOption("stop-daemon")) {
+      boolean stop = cmdLine.hasOption("stop-daemon");
+      Integer port = parsePort(cmdLine.getOptionValue(stop ? "stop-daemon" : "connect"));
+      if (port != null && CliDaemon.request(port, stop ? CliDaemon.STOP_COMMAND : CliDaemon.BUILD_COMMAND) != 0) {
+        myExitWithError = true;
+      }
+      return cmdLine;
+    }
+
+    Integer daemonPort = null;
+    if (cmdLine.hasOption("daemon")) {
+      daemonPort = parsePort(cmdLine.getOptionValue("daemon"));
+      if (daemonPort == null) {
+        return null;
+      }
+    }
+    boolean watch = daemonPort != null || cmdLine.hasOption("w");
+    // Only dependencies of metas are collected in one-shot builds; watch mode needs all of them
+    myDependencyCollector.setCollectAll(watch);
+
+    Integer metricsPort = null;
+    if (cmdLine.hasOption("metrics-port")) {
+      metricsPort = parsePort(cmdLine.getOptionValue("metrics-port"));
+      if (metricsPort == null) {
+        return null;
+      }
+    }
+    long normalizationLimit = parseLimit(cmdLine, "normalization-limit", "number of steps", Long.MAX_VALUE);
+    long timeout = parseLimit(cmdLine, "timeout", "number of seconds", Long.MAX_VALUE / 1000000000);
+    long definitionTimeout = parseLimit(cmdLine, "definition-timeout", "number of seconds", Long.MAX_VALUE / 1000000000);
+    long maxHeapUsage = parseLimit(cmdLine, "max-heap-usage", "percentage", 100);
+    long maxErrorsPerDefinition = parseLimit(cmdLine, "max-errors-per-definition", "number of errors", Long.MAX_VALUE);
+    long maxErrorsPerModule = parseLimit(cmdLine, "max-errors-per-module", "number of errors", Long.MAX_VALUE);
+    if (normalizationLimit < 0 || timeout < 0 || definitionTimeout < 0 || maxHeapUsage < 0 || maxErrorsPerDefinition < 0 || maxErrorsPerModule < 0) {
+      myExitWithError = true;
+      return null;
+    }
+    myErrorReporter.setLimits(maxErrorsPerDefinition, maxErrorsPerModule);
+    myTimeout = timeout * 1000;
+    myDefinitionTimeout = definitionTimeout * 1000;
+    myMaxHeapUsage = (int) maxHeapUsage;
+
+    int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+    if (cmdLine.hasOption("compression-level")) {
+      String level = cmdLine.getOptionValue("compression-level");
+      try {
+        compressionLevel = Integer.parseInt(level);
+      } catch (NumberFormatException e) {
+        compressionLevel = -1;
+      }
+      if (compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+        System.err.println("[ERROR] " + level + " is not a valid compression level");
+        myExitWithError = true;
+        return null;
+      }
+    }
+
+    if (cmdLine.hasOption("metrics") || metricsPort != null) {
+      myMetricsExporter = new MetricsExporter(myLibraryManager.getMetrics());
+      String metricsFile = cmdLine.getOptionValue("metrics");
+      myMetricsFile = metricsFile == null ? null : Paths.get(metricsFile);
+    }
+
     var replKind = cmdLine.getOptionValue("i", "jline");
     var defaultLibrariesRoot = FileUtils.defaultLibrariesRoot();
     var libDirStrings = cmdLine.hasOption("L")
@@ -245,6 +372,31 @@ public abstract class BaseCliFrontend {
     }
 
     boolean recompile = recompileString == null && cmdLine.hasOption("r");
+    if (cmdLine.hasOption("evaluate")) {
+      NormalizationMode normalizationMode = NormalizationMode.ENF;
+      String mode = cmdLine.getOptionValue("normalization");
+      if (mode != null) {
+        try {
+          normalizationMode = mode.equalsIgnoreCase("null") ? null : NormalizationMode.valueOf(mode.toUpperCase());
+        } catch (IllegalArgumentException e) {
+          System.err.println("[ERROR] Unrecognized normalization mode: " + mode);
+          myExitWithError = true;
+          return null;
+        }
+      }
+
+      String file = cmdLine.getOptionValue("evaluate");
+      try (BufferedReader input = file.equals("-") ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)) : Files.newBufferedReader(Paths.get(file))) {
+        if (!BatchCliRepl.launch(recompile, libDirs, normalizationMode, normalizationLimit, input, System.out)) {
+          myExitWithError = true;
+        }
+      } catch (IOException e) {
+        System.err.println("[ERROR] Cannot read " + file + ": " + e.getLocalizedMessage());
+        myExitWithError = true;
+      }
+      return null;
+    }
+
     if (cmdLine.hasOption("i")) {
       switch (replKind.toLowerCase()) {
         default:
@@ -260,9 +412,13 @@ public abstract class BaseCliFrontend {
       return null;
     }
 
+    long preludeTime = System.nanoTime();
     if (!myLibraryManager.loadLibrary(new PreludeResourceLibrary(), null)) {
       return null;
     }
+    if (myStartupProfile != null) {
+      myStartupProfile.stageFinished("Prelude loading", System.nanoTime() - preludeTime);
+    }
 
     myLibraryResolver.addLibraryDirectories(libDirs);
 
@@ -351,12 +507,35 @@ public abstract class BaseCliFrontend {
         return cmdLine;
       }
     }
+    for (SourceLibrary library : requestedLibraries) {
+      if (library instanceof FileSourceLibrary) {
+        ((FileSourceLibrary) library).setCompressionLevel(compressionLevel);
+      }
+    }
 
     // Load and typecheck libraries
     MyTypechecking typechecking = new MyTypechecking();
-    boolean doubleCheck = cmdLine.hasOption("c");
+    typechecking.setNormalizationLimit(normalizationLimit);
+    boolean doubleCheck = cmdLine.hasOption("c") || cmdLine.hasOption("double-check-changed");
+    myDoubleCheckChanged = cmdLine.hasOption("double-check-changed");
+    if (cmdLine.hasOption("double-check-threads")) {
+      String threads = cmdLine.getOptionValue("double-check-threads");
+      try {
+        myDoubleCheckThreads = Integer.parseInt(threads);
+      } catch (NumberFormatException e) {
+        myDoubleCheckThreads = 0;
+      }
+      if (myDoubleCheckThreads <= 0) {
+        System.err.println("[ERROR] " + threads + " is not a valid number of threads");
+        myExitWithError = true;
+        return null;
+      }
+    }
+    myTypechecking = typechecking;
+    myDoubleCheck = doubleCheck;
     for (SourceLibrary library : requestedLibraries) {
       myModuleResults.clear();
+      myErrorReporter.reset();
       if (recompile) {
         library.addFlag(SourceLibrary.Flag.RECOMPILE);
       }
@@ -417,76 +596,7 @@ public abstract class BaseCliFrontend {
         forcedDefs = null;
       }
 
-      Collection<? extends ModulePath> modules = library.getUpdatedModules();
-      int numWithErrors = 0;
-      if (!modules.isEmpty() || forcedDefs != null) {
-        System.out.println();
-        System.out.println("--- Typechecking " + library.getName() + " ---");
-        long time = System.currentTimeMillis();
-        if (forcedDefs == null) {
-          typechecking.typecheckLibrary(library);
-        } else {
-          typechecking.typecheckDefinitions(forcedDefs, null);
-        }
-        time = System.currentTimeMillis() - time;
-        flushErrors();
-
-        // Output nice per-module typechecking results
-        int numWithGoals = 0;
-        for (ModulePath module : modules) {
-          GeneralError.Level result = myModuleResults.get(module);
-          if (result == null && library.getModuleGroup(module, false) == null && library.getModuleGroup(module, true) == null) {
-            result = GeneralError.Level.ERROR;
-          }
-          reportTypeCheckResult(module, result);
-          if (result == GeneralError.Level.ERROR) numWithErrors++;
-          if (result == GeneralError.Level.GOAL) numWithGoals++;
-        }
-
-        if (numWithErrors > 0) {
-          myExitWithError = true;
-          System.out.println("Number of modules with errors: " + numWithErrors);
-        }
-        if (numWithGoals > 0) {
-          System.out.println("Number of modules with goals: " + numWithGoals);
-        }
-        System.out.println("--- Done (" + timeToString(time) + ") ---");
-
-        if (myTimes != null && !myTimes.isEmpty()) {
-          System.out.println();
-          List<Pair<TCDefReferable,Long>> list = new ArrayList<>(myTimes.size());
-          for (Map.Entry<TCDefReferable, Pair<Long, Long>> entry : myTimes.entrySet()) {
-            list.add(new Pair<>(entry.getKey(), entry.getValue().proj2));
-          }
-          list.sort((o1, o2) -> Long.compare(o2.proj2, o1.proj2));
-          for (Pair<TCDefReferable, Long> pair : list) {
-            System.out.println(pair.proj1.getRefLongName() + ": " + timeToString(pair.proj2));
-          }
-        }
-
-        // Persist updated modules
-        if (library.supportsPersisting()) {
-          library.persistUpdatedModules(mySystemErrErrorReporter);
-        }
-      }
-
-      if (doubleCheck && numWithErrors == 0) {
-        System.out.println();
-        System.out.println("--- Checking " + library.getName() + " ---");
-        long time = System.currentTimeMillis();
-
-        CoreModuleChecker checker = new CoreModuleChecker(myErrorReporter);
-        for (ModulePath module : library.getLoadedModules()) {
-          Group group = library.getModuleGroup(module, false);
-          if (group != null) {
-            checker.checkGroup(group);
-          }
-        }
-
-        time = System.currentTimeMillis() - time;
-        flushErrors();
-        System.out.println("--- Done (" + timeToString(time) + ") ---");
-      }
+      typecheckUpdatedModules(library, typechecking, forcedDefs, doubleCheck);
     }
 
     // Run tests
@@ -512,63 +622,286 @@ public abstract class BaseCliFrontend {
         typechecking.clear();
         time = System.currentTimeMillis();
 
-        typechecking.typecheckTests(library, null);
+        long numberOfErrors = myErrorReporter.getNumberOfErrors(GeneralError.Level.ERROR);
+        typecheckWithLimits(indicator -> typechecking.typecheckTests(library, indicator));
         if (doubleCheck) {
-          boolean doCheck = true;
-          for (GeneralError error : myErrorReporter.getErrorList()) {
-            if (error.level == GeneralError.Level.ERROR) {
-              doCheck = false;
-              break;
-            }
-          }
-          if (doCheck) {
-            CoreModuleChecker checker = new CoreModuleChecker(myErrorReporter);
+          if (myErrorReporter.getNumberOfErrors(GeneralError.Level.ERROR) == numberOfErrors) {
+            List<Group> groups = new ArrayList<>();
             for (ModulePath module : modules) {
               Group group = library.getModuleGroup(module, true);
               if (group != null) {
-                checker.checkGroup(group);
+                groups.add(group);
               }
             }
+            doubleCheck(groups);
           }
         }
 
         time = System.currentTimeMillis() - time;
         flushErrors();
+        myErrorReporter.printSuppressed();
         System.out.println("Tests completed: " + typechecking.total + ", Failed: " + typechecking.failed);
         System.out.println("--- Done (" + timeToString(time) + ") ---");
       }
     }
 
+    if (myStartupProfile != null) {
+      myStartupProfile.print();
+    }
+    writeMetrics();
+
+    if (watch) {
+      if (metricsPort != null && !myMetricsExporter.serve(metricsPort)) {
+        myExitWithError = true;
+        return cmdLine;
+      }
+      try {
+        new CliDaemon(this, requestedLibraries, daemonPort).run();
+      } finally {
+        if (myMetricsExporter != null) {
+          myMetricsExporter.stop();
+        }
+      }
+    }
+
     return cmdLine;
   }
 
-  private void flushErrors() {
-    for (GeneralError error : myErrorReporter.getErrorList()) {
-      error.forAffectedDefinitions((referable, err) -> {
-        if (referable instanceof LocatedReferable) {
-          updateSourceResult(((LocatedReferable) referable).getLocation(), err.level);
-        }
-      });
+  private void doubleCheck(List<Group> groups) {
+    new CoreModuleChecker(myErrorReporter).checkGroups(groups, myDoubleCheckThreads, myDoubleCheckChanged ? myTypecheckedDefinitions::contains : null);
+  }
 
-      //Print error
-      PrettyPrinterConfigWithRenamer ppConfig = new PrettyPrinterConfigWithRenamer(EmptyScope.INSTANCE);
-      if (error instanceof GoalError) {
-        ppConfig.expressionFlags = EnumSet.of(PrettyPrinterFlag.SHOW_LOCAL_FIELD_INSTANCE);
+  private void typecheckUpdatedModules(SourceLibrary library, MyTypechecking typechecking, @Nullable List<Concrete.Definition> forcedDefs, boolean doubleCheck) {
+    Collection<? extends ModulePath> modules = library.getUpdatedModules();
+    int numWithErrors = 0;
+    myTypecheckedDefinitions.clear();
+    if (!modules.isEmpty() || forcedDefs != null) {
+      getOut().println();
+      getOut().println("--- Typechecking " + library.getName() + " ---");
+      long time = System.currentTimeMillis();
+      boolean completed = typecheckWithLimits(indicator -> forcedDefs == null ? typechecking.typecheckLibrary(library, indicator) : typechecking.typecheckDefinitions(forcedDefs, indicator));
+      time = System.currentTimeMillis() - time;
+      if (myStartupProfile != null) {
+        myStartupProfile.stageFinished(library.getName() + ": typechecking", time * 1000000);
       }
-      if (error.level == GeneralError.Level.ERROR) {
+      flushErrors();
+      myErrorReporter.printSuppressed();
+
+      // Output nice per-module typechecking results
+      int numWithGoals = 0;
+      for (ModulePath module : modules) {
+        GeneralError.Level result = myModuleResults.get(module);
+        if (result == null && library.getModuleGroup(module, false) == null && library.getModuleGroup(module, true) == null) {
+          result = GeneralError.Level.ERROR;
+        }
+        reportTypeCheckResult(module, result);
+        if (result == GeneralError.Level.ERROR) numWithErrors++;
+        if (result == GeneralError.Level.GOAL) numWithGoals++;
+      }
+
+      if (numWithErrors > 0) {
         myExitWithError = true;
+        getOut().println("Number of modules with errors: " + numWithErrors);
+      }
+      if (numWithGoals > 0) {
+        getOut().println("Number of modules with goals: " + numWithGoals);
       }
-      String errorText = error.getDoc(ppConfig).toString();
+      getOut().println("--- Done (" + timeToString(time) + ") ---");
 
-      if (error.isSevere()) {
-        System.err.println(errorText);
-        System.err.flush();
-      } else {
-        System.out.println(errorText);
-        System.out.flush();
+      if (myTimes != null && !myTimes.isEmpty()) {
+        getOut().println();
+        List<Pair<TCDefReferable,Long>> list = new ArrayList<>(myTimes.size());
+        for (Map.Entry<TCDefReferable, Pair<Long, Long>> entry : myTimes.entrySet()) {
+          list.add(new Pair<>(entry.getKey(), entry.getValue().proj2));
+        }
+        list.sort((o1, o2) -> Long.compare(o2.proj2, o1.proj2));
+        for (Pair<TCDefReferable, Long> pair : list) {
+          getOut().println(pair.proj1.getRefLongName() + ": " + timeToString(pair.proj2));
+        }
+      }
+
+      // Persist updated modules
+      if (completed && library.supportsPersisting()) {
+        library.persistUpdatedModules(mySystemErrErrorReporter);
+      }
+    }
+
+    if (doubleCheck && numWithErrors == 0) {
+      getOut().println();
+      getOut().println("--- Checking " + library.getName() + " ---");
+      long time = System.currentTimeMillis();
+
+      List<Group> groups = new ArrayList<>();
+      for (ModulePath module : library.getLoadedModules()) {
+        Group group = library.getModuleGroup(module, false);
+        if (group != null) {
+          groups.add(group);
+        }
+      }
+      doubleCheck(groups);
+
+      time = System.currentTimeMillis() - time;
+      flushErrors();
+      myErrorReporter.printSuppressed();
+      getOut().println("--- Done (" + timeToString(time) + ") ---");
+    }
+  }
+
+  /**
+   * Typechecks again modules that were changed since the last build.
+   * Modules that depend on changed modules are reloaded as well, other definitions keep their typechecked state.
+   *
+   * @param libraries       requested libraries in the order in which they should be typechecked.
+   * @param changedModules  changed modules of each library.
+   * @param output          the stream for the output of the build.
+   *
+   * @return true if the build finished without errors, false otherwise.
+   */
+  boolean rebuildModules(Collection<? extends SourceLibrary> libraries, Map<SourceLibrary, Set<ModulePath>> changedModules, PrintStream output) {
+    // Builds started by the watcher print errors to the standard error stream
+    myRequestOutput = output == System.out ? null : output;
+    try {
+      return rebuildModules(libraries, changedModules);
+    } finally {
+      myRequestOutput = null;
+    }
+  }
+
+  private boolean rebuildModules(Collection<? extends SourceLibrary> libraries, Map<SourceLibrary, Set<ModulePath>> changedModules) {
+    myExitWithError = false;
+
+    // Drop changed definitions together with everything that depends on them
+    Map<String, Set<ModulePath>> affectedModules = new HashMap<>();
+    for (Map.Entry<SourceLibrary, Set<ModulePath>> entry : changedModules.entrySet()) {
+      SourceLibrary library = entry.getKey();
+      for (ModulePath module : entry.getValue()) {
+        affectedModules.computeIfAbsent(library.getName(), k -> new LinkedHashSet<>()).add(module);
+        Group group = library.getModuleGroup(module, false);
+        if (group == null) {
+          continue;
+        }
+        group.traverseGroup(subgroup -> {
+          LocatedReferable ref = subgroup.getReferable();
+          if (ref instanceof TCReferable) {
+            for (TCReferable updated : myDependencyCollector.update((TCReferable) ref)) {
+              ModuleLocation location = updated.getLocation();
+              if (location != null && location.getLocationKind() == ModuleLocation.LocationKind.SOURCE) {
+                affectedModules.computeIfAbsent(location.getLibraryName(), k -> new LinkedHashSet<>()).add(location.getModulePath());
+              }
+            }
+          }
+        });
+      }
+    }
+
+    for (SourceLibrary library : libraries) {
+      Set<ModulePath> modules = affectedModules.get(library.getName());
+      if (modules == null) {
+        continue;
+      }
+
+      myModuleResults.clear();
+      myErrorReporter.reset();
+      SourceLoader sourceLoader = new SourceLoader(library, myLibraryManager);
+      for (ModulePath module : library.getLoadedModules()) {
+        if (!modules.contains(module)) {
+          sourceLoader.setModuleLoaded(module);
+        }
+      }
+      for (ModulePath module : modules) {
+        Source source = library.getRawSource(module);
+        if (source != null && source.isAvailable()) {
+          sourceLoader.preloadRaw(module, false);
+        } else {
+          library.groupLoaded(module, null, true, false);
+        }
+      }
+      sourceLoader.loadRawSources();
+
+      typecheckUpdatedModules(library, myTypechecking, null, myDoubleCheck);
+    }
+
+    flushErrors();
+    writeMetrics();
+    return !myExitWithError;
+  }
+
+  /**
+   * @return the value of the option, 0 if it is not specified, or -1 if it is not a positive number at most {@code max}.
+   */
+  private static long parseLimit(CommandLine cmdLine, String option, String description, long max) {
+    String value = cmdLine.getOptionValue(option);
+    if (value == null) {
+      return 0;
+    }
+    long result;
+    try {
+      result = Long.parseLong(value);
+    } catch (NumberFormatException e) {
+      result = -1;
+    }
+    if (result <= 0 || result > max) {
+      System.err.println("[ERROR] " + value + " is not a valid " + description);
+      return -1;
+    }
+    return result;
+  }
+
+  /**
+   * Runs typechecking with the limits specified on the command line.
+   * If typechecking is interrupted, reports an error that says whether the global timeout has expired.
+   * Limits of single definitions do not interrupt typechecking; they are reported as errors of those definitions.
+   *
+   * @return true if typechecking was not interrupted.
+   */
+  private boolean typecheckWithLimits(Function<CancellationIndicator, Boolean> typechecking) {
+    List<CancellationIndicator> indicators = new ArrayList<>();
+    DeadlineCancellationIndicator deadlineIndicator = myTimeout > 0 ? new DeadlineCancellationIndicator(myTimeout) : null;
+    if (deadlineIndicator != null) {
+      indicators.add(deadlineIndicator);
+    }
+    if (myDefinitionTimeout > 0) {
+      indicators.add(new DefinitionTimeLimitCancellationIndicator(myDefinitionTimeout));
+    }
+    MemoryCancellationIndicator memoryIndicator = myMaxHeapUsage > 0 ? new MemoryCancellationIndicator(myMaxHeapUsage / 100.0) : null;
+    if (memoryIndicator != null) {
+      indicators.add(memoryIndicator);
+    }
+
+    try {
+      if (typechecking.apply(indicators.isEmpty() ? null : indicators.size() == 1 ? indicators.get(0) : new CompositeCancellationIndicator(indicators))) {
+        return true;
+      }
+      getErr().println("[ERROR] Typechecking was interrupted" + (deadlineIndicator != null && deadlineIndicator.isExpired() ? " after " + timeToString(myTimeout) : ""));
+      myExitWithError = true;
+      return false;
+    } finally {
+      if (memoryIndicator != null) {
+        memoryIndicator.close();
       }
     }
-    myErrorReporter.getErrorList().clear();
+  }
+
+  private void writeMetrics() {
+    if (myMetricsFile != null) {
+      myMetricsExporter.write(myMetricsFile);
+    }
+  }
+
+  private Integer parsePort(String portString) {
+    try {
+      int port = Integer.parseInt(portString);
+      if (port > 0 && port <= 65535) {
+        return port;
+      }
+    } catch (NumberFormatException ignored) {}
+    myExitWithError = true;
+    System.err.println("[ERROR] " + portString + " is not a valid port");
+    return null;
+  }
+
+  private void flushErrors() {
+    myErrorReporter.flush();
   }
 
   private void updateSourceResult(ModuleLocation moduleLocation, GeneralError.Level result) {
@@ -584,7 +917,7 @@ public abstract class BaseCliFrontend {
   }
 
   private void reportTypeCheckResult(ModulePath modulePath, GeneralError.Level result) {
-    System.out.println("[" + resultChar(result) + "]" + " " + modulePath);
+    getOut().println("[" + resultChar(result) + "]" + " " + modulePath);
   }
 
   private static char resultChar(GeneralError.Level result) {
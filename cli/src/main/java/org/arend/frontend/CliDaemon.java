@@ -0,0 +1,243 @@
+package org.arend.frontend;
+
+import org.arend.ext.module.ModulePath;
+import org.arend.frontend.library.FileSourceLibrary;
+import org.arend.library.SourceLibrary;
+import org.arend.util.FileUtils;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Keeps libraries loaded by {@link BaseCliFrontend} in memory, watches their source directories and typechecks changed modules again.
+ * If a port is specified, build requests are also accepted from local clients.
+ * A client sends a single line with a command and receives the output of the build followed by a line with the exit code.
+ */
+public class CliDaemon {
+  public static final String BUILD_COMMAND = "build";
+  public static final String STOP_COMMAND = "stop";
+  private static final String EXIT_PREFIX = "\u0004exit ";
+  private static final long QUIET_PERIOD = 200;
+
+  private final BaseCliFrontend myFrontend;
+  private final List<SourceLibrary> myLibraries;
+  private final Integer myPort;
+  private final Map<WatchKey, Path> myWatchedDirectories = new HashMap<>();
+  private final Map<Path, FileSourceLibrary> mySourceDirectories = new LinkedHashMap<>();
+  private final Map<SourceLibrary, Set<ModulePath>> myChangedModules = new LinkedHashMap<>();
+  private WatchService myWatchService;
+  private boolean myLastBuildSucceeded;
+  private volatile boolean myStopped = false;
+
+  public CliDaemon(BaseCliFrontend frontend, List<SourceLibrary> libraries, @Nullable Integer port) {
+    myFrontend = frontend;
+    myLibraries = libraries;
+    myPort = port;
+    myLastBuildSucceeded = !frontend.isExitWithError();
+  }
+
+  public void run() {
+    try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+      myWatchService = watchService;
+      for (SourceLibrary library : myLibraries) {
+        if (library instanceof FileSourceLibrary && ((FileSourceLibrary) library).getSourceBasePath() != null) {
+          Path sourceDir = ((FileSourceLibrary) library).getSourceBasePath().toAbsolutePath().normalize();
+          mySourceDirectories.put(sourceDir, (FileSourceLibrary) library);
+          registerDirectories(sourceDir);
+        }
+      }
+
+      if (myPort != null) {
+        Thread server = new Thread(this::serve, "Arend daemon server");
+        server.setDaemon(true);
+        server.start();
+      }
+
+      System.out.println();
+      System.out.println("[INFO] Watching " + mySourceDirectories.size() + " source director" + (mySourceDirectories.size() == 1 ? "y" : "ies") + (myPort != null ? ", listening on port " + myPort : ""));
+      while (!myStopped) {
+        if (!processChanges()) {
+          Thread.sleep(QUIET_PERIOD);
+        }
+      }
+    } catch (IOException e) {
+      System.err.println("[ERROR] Cannot watch source directories: " + e.getLocalizedMessage());
+    } catch (InterruptedException | ClosedWatchServiceException ignored) {
+    }
+  }
+
+  /**
+   * Polls the watch service and typechecks changed modules.
+   * The service is polled only under the lock, so that a build request sees all changes that were picked up before it.
+   *
+   * @return true if some changes were found.
+   */
+  private synchronized boolean processChanges() throws IOException, InterruptedException {
+    WatchKey key = myWatchService.poll();
+    if (key == null) {
+      return false;
+    }
+    processKey(key, System.out);
+    // Wait until the burst of events caused by a single save is over
+    while ((key = myWatchService.poll(QUIET_PERIOD, TimeUnit.MILLISECONDS)) != null) {
+      processKey(key, System.out);
+    }
+    if (!myChangedModules.isEmpty()) {
+      rebuild(System.out);
+    }
+    return true;
+  }
+
+  private void registerDirectories(Path root) throws IOException {
+    Files.walkFileTree(root, new SimpleFileVisitor<>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+        myWatchedDirectories.put(dir.register(myWatchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), dir);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  private void processKey(WatchKey key, PrintStream out) throws IOException {
+    Path dir = myWatchedDirectories.get(key);
+    if (dir == null) {
+      key.cancel();
+      return;
+    }
+
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == OVERFLOW) {
+        continue;
+      }
+      Path file = dir.resolve((Path) event.context());
+      if (event.kind() == ENTRY_CREATE && Files.isDirectory(file)) {
+        registerDirectories(file);
+        continue;
+      }
+      fileChanged(file, out);
+    }
+
+    if (!key.reset()) {
+      myWatchedDirectories.remove(key);
+    }
+  }
+
+  private void fileChanged(Path file, PrintStream out) {
+    for (Map.Entry<Path, FileSourceLibrary> entry : mySourceDirectories.entrySet()) {
+      if (!file.startsWith(entry.getKey())) {
+        continue;
+      }
+      ModulePath module = FileUtils.modulePath(entry.getKey().relativize(file), FileUtils.EXTENSION);
+      if (module == null) {
+        return;
+      }
+      FileSourceLibrary library = entry.getValue();
+      if (library.containsModule(module) || library.getModuleGroup(module, false) != null) {
+        myChangedModules.computeIfAbsent(library, k -> new LinkedHashSet<>()).add(module);
+      } else if (Files.isRegularFile(file)) {
+        if (library.addModule(module)) {
+          out.println("[INFO] Module " + module + " was added to library " + library.getName());
+          myChangedModules.computeIfAbsent(library, k -> new LinkedHashSet<>()).add(module);
+        } else {
+          out.println("[INFO] Module " + module + " is not listed in library " + library.getName());
+        }
+      }
+      return;
+    }
+  }
+
+  /**
+   * Typechecks modules changed since the last build.
+   *
+   * @param out  the stream for the output of the build.
+   *
+   * @return true if the build finished without errors, false otherwise.
+   *         If nothing was changed, returns the result of the last build.
+   */
+  private synchronized boolean rebuild(PrintStream out) {
+    if (myChangedModules.isEmpty()) {
+      out.println("[INFO] No changes since the last build" + (myLastBuildSucceeded ? "" : ", which failed"));
+      return myLastBuildSucceeded;
+    }
+    Map<SourceLibrary, Set<ModulePath>> changedModules = new LinkedHashMap<>(myChangedModules);
+    myChangedModules.clear();
+    myLastBuildSucceeded = myFrontend.rebuildModules(myLibraries, changedModules, out);
+    return myLastBuildSucceeded;
+  }
+
+  private synchronized boolean processPendingChanges(PrintStream out) throws IOException {
+    WatchKey key;
+    while ((key = myWatchService.poll()) != null) {
+      processKey(key, out);
+    }
+    return rebuild(out);
+  }
+
+  private void serve() {
+    try (ServerSocket serverSocket = new ServerSocket(myPort, 50, InetAddress.getLoopbackAddress())) {
+      while (!myStopped) {
+        try (Socket socket = serverSocket.accept()) {
+          handleRequest(socket);
+        } catch (IOException e) {
+          System.err.println("[ERROR] Daemon request failed: " + e.getLocalizedMessage());
+        }
+      }
+    } catch (IOException e) {
+      System.err.println("[ERROR] Cannot listen on port " + myPort + ": " + e.getLocalizedMessage());
+    }
+  }
+
+  private void handleRequest(Socket socket) throws IOException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+    PrintStream out = new PrintStream(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+    String command = reader.readLine();
+    if (STOP_COMMAND.equals(command)) {
+      out.println(EXIT_PREFIX + 0);
+      myStopped = true;
+      myWatchService.close();
+      return;
+    }
+    if (!BUILD_COMMAND.equals(command)) {
+      out.println("[ERROR] Unknown command: " + command);
+      out.println(EXIT_PREFIX + 1);
+      return;
+    }
+
+    boolean ok = processPendingChanges(out);
+    out.println(EXIT_PREFIX + (ok ? 0 : 1));
+  }
+
+  /**
+   * Sends a command to a daemon listening on the given port and prints its output.
+   *
+   * @return the exit code of the request.
+   */
+  public static int request(int port, String command) {
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+      PrintStream out = new PrintStream(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+      out.println(command);
+      BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.startsWith(EXIT_PREFIX)) {
+          return Integer.parseInt(line.substring(EXIT_PREFIX.length()));
+        }
+        System.out.println(line);
+      }
+      System.err.println("[ERROR] Daemon closed the connection");
+    } catch (IOException | NumberFormatException e) {
+      System.err.println("[ERROR] Cannot connect to the daemon on port " + port + ": " + e.getLocalizedMessage());
+    }
+    return 1;
+  }
+}
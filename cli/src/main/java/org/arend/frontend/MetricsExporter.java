@@ -0,0 +1,93 @@
+package org.arend.frontend;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.arend.util.Metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Exports {@link Metrics} to a file or over HTTP.
+ * Files with the {@code .json} extension are written in JSON, other files are written in the Prometheus text format.
+ */
+public class MetricsExporter {
+  public static final String PROMETHEUS_PATH = "/metrics";
+  public static final String JSON_PATH = "/metrics.json";
+
+  private final Metrics myMetrics;
+  private HttpServer myServer;
+
+  public MetricsExporter(Metrics metrics) {
+    myMetrics = metrics;
+  }
+
+  private String export(boolean json) {
+    StringBuilder builder = new StringBuilder();
+    if (json) {
+      myMetrics.writeJson(builder);
+    } else {
+      myMetrics.writePrometheus(builder);
+    }
+    return builder.toString();
+  }
+
+  public void write(Path file) {
+    try {
+      Path parent = file.toAbsolutePath().getParent();
+      if (parent != null) {
+        Files.createDirectories(parent);
+      }
+      Files.writeString(file, export(file.getFileName().toString().endsWith(".json")));
+    } catch (IOException e) {
+      System.err.println("[ERROR] Cannot write metrics to " + file + ": " + e.getLocalizedMessage());
+    }
+  }
+
+  /**
+   * Starts serving metrics on a local port.
+   * Metrics are available at {@link #PROMETHEUS_PATH} and {@link #JSON_PATH}.
+   *
+   * @return true if the server was started, false otherwise.
+   */
+  public boolean serve(int port) {
+    try {
+      myServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+    } catch (IOException e) {
+      System.err.println("[ERROR] Cannot serve metrics on port " + port + ": " + e.getLocalizedMessage());
+      return false;
+    }
+    myServer.createContext(PROMETHEUS_PATH, exchange -> respond(exchange, false));
+    myServer.createContext(JSON_PATH, exchange -> respond(exchange, true));
+    myServer.start();
+    return true;
+  }
+
+  private void respond(HttpExchange exchange, boolean json) throws IOException {
+    String path = exchange.getRequestURI().getPath();
+    if (!path.equals(json ? JSON_PATH : PROMETHEUS_PATH)) {
+      exchange.sendResponseHeaders(404, -1);
+      exchange.close();
+      return;
+    }
+
+    byte[] response = export(json).getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", json ? "application/json" : "text/plain; version=0.0.4; charset=utf-8");
+    exchange.sendResponseHeaders(200, response.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(response);
+    }
+  }
+
+  public void stop() {
+    if (myServer != null) {
+      myServer.stop(0);
+      myServer = null;
+    }
+  }
+}
@@ -0,0 +1,145 @@
+package org.arend.frontend;
+
+import org.arend.core.expr.Expression;
+import org.arend.ext.error.ErrorReporter;
+import org.arend.ext.error.GeneralError;
+import org.arend.ext.module.ModulePath;
+import org.arend.ext.prettyprinting.PrettyPrinterFlag;
+import org.arend.ext.reference.ArendRef;
+import org.arend.module.ModuleLocation;
+import org.arend.naming.reference.LocatedReferable;
+import org.arend.naming.scope.EmptyScope;
+import org.arend.term.prettyprint.PrettyPrinterConfigWithRenamer;
+import org.arend.typechecking.error.local.GoalError;
+
+import java.io.PrintStream;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * An error reporter that prints errors on every {@link #flush}, which is invoked after each typechecked definition.
+ * Errors are not retained after that, so expressions in them can be collected right away.
+ * Rendering is deferred since some errors, such as goals, are completed after they are reported.
+ * At most a given number of errors is printed for each definition and each module;
+ * other errors are only counted, and the counts are printed by {@link #printSuppressed}.
+ */
+public class StreamingErrorReporter implements ErrorReporter {
+  private final Supplier<? extends PrintStream> myOut;
+  private final Supplier<? extends PrintStream> myErr;
+  private long myMaxErrorsPerDefinition = Long.MAX_VALUE;
+  private long myMaxErrorsPerModule = Long.MAX_VALUE;
+  private final long[] myNumberOfErrors = new long[GeneralError.Level.values().length];
+  private final Map<ArendRef, Long> myDefinitionErrors = new HashMap<>();
+  private final Map<ModulePath, Long> myModuleErrors = new HashMap<>();
+  private final Map<ModulePath, Long> mySuppressedErrors = new LinkedHashMap<>();
+  private final List<GeneralError> myPendingErrors = new ArrayList<>();
+
+  /**
+   * @param out   the stream for warnings and goals; it is requested on every write.
+   * @param err   the stream for errors; it is requested on every write.
+   */
+  public StreamingErrorReporter(Supplier<? extends PrintStream> out, Supplier<? extends PrintStream> err) {
+    myOut = out;
+    myErr = err;
+  }
+
+  /**
+   * Sets the maximum number of errors printed for each definition and each module.
+   * Non-positive values mean that the number is not limited.
+   */
+  public synchronized void setLimits(long maxErrorsPerDefinition, long maxErrorsPerModule) {
+    myMaxErrorsPerDefinition = maxErrorsPerDefinition > 0 ? maxErrorsPerDefinition : Long.MAX_VALUE;
+    myMaxErrorsPerModule = maxErrorsPerModule > 0 ? maxErrorsPerModule : Long.MAX_VALUE;
+  }
+
+  /**
+   * Invoked for every reported error, including errors that are not printed.
+   */
+  protected void errorReported(GeneralError error) {}
+
+  @Override
+  public synchronized void report(GeneralError error) {
+    myNumberOfErrors[error.level.ordinal()]++;
+    errorReported(error);
+
+    ArendRef definition = getAffectedDefinition(error);
+    if (definition != null) {
+      ModulePath module = definition instanceof LocatedReferable ? getModulePath(((LocatedReferable) definition).getLocation()) : null;
+      long definitionErrors = myDefinitionErrors.merge(definition, 1L, Long::sum);
+      long moduleErrors = module == null ? 0 : myModuleErrors.merge(module, 1L, Long::sum);
+      if (definitionErrors > myMaxErrorsPerDefinition || moduleErrors > myMaxErrorsPerModule) {
+        mySuppressedErrors.merge(module, 1L, Long::sum);
+        return;
+      }
+    }
+
+    myPendingErrors.add(error);
+  }
+
+  private void print(GeneralError error) {
+    PrettyPrinterConfigWithRenamer ppConfig = new PrettyPrinterConfigWithRenamer(EmptyScope.INSTANCE);
+    ppConfig.maxExpressionLength = Expression.MAX_PRINTED_LENGTH;
+    if (error instanceof GoalError) {
+      ppConfig.expressionFlags = EnumSet.of(PrettyPrinterFlag.SHOW_LOCAL_FIELD_INSTANCE);
+    }
+    String errorText = error.getDoc(ppConfig).toString();
+    (error.isSevere() ? myErr : myOut).get().println(errorText);
+  }
+
+  private static ArendRef getAffectedDefinition(GeneralError error) {
+    ArendRef[] result = new ArendRef[1];
+    error.forAffectedDefinitions((ref, err) -> {
+      if (result[0] == null) {
+        result[0] = ref;
+      }
+    });
+    return result[0];
+  }
+
+  private static ModulePath getModulePath(ModuleLocation location) {
+    return location == null ? null : location.getModulePath();
+  }
+
+  /**
+   * Prints errors reported since the last flush.
+   */
+  public synchronized void flush() {
+    for (GeneralError error : myPendingErrors) {
+      print(error);
+    }
+    myPendingErrors.clear();
+    myOut.get().flush();
+    myErr.get().flush();
+  }
+
+  /**
+   * @return the number of errors of the given level reported since the last {@link #reset}.
+   */
+  public synchronized long getNumberOfErrors(GeneralError.Level level) {
+    return myNumberOfErrors[level.ordinal()];
+  }
+
+  /**
+   * Prints the number of errors that were not printed in each module and forgets them.
+   */
+  public synchronized void printSuppressed() {
+    PrintStream out = myOut.get();
+    for (Map.Entry<ModulePath, Long> entry : mySuppressedErrors.entrySet()) {
+      out.println("[INFO] " + entry.getValue() + " more message" + (entry.getValue() == 1 ? "" : "s") + (entry.getKey() == null ? "" : " in " + entry.getKey()) + " not shown");
+    }
+    mySuppressedErrors.clear();
+    out.flush();
+  }
+
+  /**
+   * Forgets counts of reported errors, so that limits apply to a new build.
+   * Errors that were not flushed are dropped.
+   */
+  public synchronized void reset() {
+    myPendingErrors.clear();
+    Arrays.fill(myNumberOfErrors, 0);
+    myDefinitionErrors.clear();
+    myModuleErrors.clear();
+    mySuppressedErrors.clear();
+  }
+}
@@ -1,6 +1,7 @@
 package org.arend.frontend.library;
 
 import org.arend.ext.error.ErrorReporter;
+import org.arend.ext.module.ModulePath;
 import org.arend.library.LibraryConfig;
 import org.arend.library.LibraryHeader;
 import org.arend.library.classLoader.FileClassLoaderDelegate;
@@ -67,6 +68,16 @@ public class FileLoadableHeaderLibrary extends FileSourceLibrary {
     return myLibraryHeader;
   }
 
+  @Override
+  public boolean addModule(ModulePath modulePath) {
+    // Only libraries that do not list their modules explicitly consist of all modules in the source directory
+    if (myLibraryHeader == null || myConfig.getModules() != null) {
+      return false;
+    }
+    myLibraryHeader.modules.add(modulePath);
+    return true;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
@@ -17,6 +17,7 @@ import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.zip.Deflater;
 
 public class FileSourceLibrary extends PersistableSourceLibrary {
   protected Path mySourceBasePath;
@@ -25,6 +26,7 @@ public class FileSourceLibrary extends PersistableSourceLibrary {
   protected LibraryHeader myLibraryHeader;
   protected List<ModulePath> myTestModules = Collections.emptyList();
   private final DependencyListener myDependencyListener;
+  private int myCompressionLevel = Deflater.DEFAULT_COMPRESSION;
 
   /**
    * Creates a new {@code UnmodifiableFileSourceLibrary}
@@ -53,6 +55,14 @@ public class FileSourceLibrary extends PersistableSourceLibrary {
     return myTestBasePath;
   }
 
+  /**
+   * Sets the compression level of persisted binary modules.
+   * Higher levels produce smaller files, but take longer to persist.
+   */
+  public void setCompressionLevel(int compressionLevel) {
+    myCompressionLevel = compressionLevel;
+  }
+
   @Nullable
   @Override
   public final Source getRawSource(ModulePath modulePath) {
@@ -67,7 +77,7 @@ public class FileSourceLibrary extends PersistableSourceLibrary {
   @Nullable
   @Override
   public PersistableBinarySource getPersistableBinarySource(ModulePath modulePath) {
-    return myBinaryBasePath == null ? null : new GZIPStreamBinarySource(new FileBinarySource(myBinaryBasePath, modulePath));
+    return myBinaryBasePath == null ? null : new BlockCompressedBinarySource(new FileBinarySource(myBinaryBasePath, modulePath), myCompressionLevel);
   }
 
   @Override
@@ -102,6 +112,15 @@ public class FileSourceLibrary extends PersistableSourceLibrary {
     return myLibraryHeader == null ? Collections.emptyList() : myLibraryHeader.dependencies;
   }
 
+  /**
+   * Registers a module that was added to the source directory after the library was loaded.
+   *
+   * @return true if the module was registered, false if the modules of this library are fixed.
+   */
+  public boolean addModule(ModulePath modulePath) {
+    return false;
+  }
+
   @Override
   public boolean containsModule(ModulePath modulePath) {
     return myLibraryHeader != null && myLibraryHeader.modules.contains(modulePath);
@@ -45,7 +45,7 @@ public class PreludeFileLibrary extends PreludeTypecheckingLibrary {
     if (myBinaryPath == null || !modulePath.equals(Prelude.MODULE_PATH)) {
       return null;
     }
-    return new GZIPStreamBinarySource(new FileBinarySource(myBinaryPath.resolve(PreludeResourceSource.BASE_PATH), Prelude.MODULE_PATH));
+    return new BlockCompressedBinarySource(new FileBinarySource(myBinaryPath.resolve(PreludeResourceSource.BASE_PATH), Prelude.MODULE_PATH));
   }
 
   @Override
@@ -0,0 +1,72 @@
+package org.arend.frontend.library;
+
+import org.arend.library.SourceLibrary;
+
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.arend.frontend.library.TimedLibraryManager.timeToString;
+
+/**
+ * Collects time spent in stages of a CLI invocation.
+ * For every stage, it also records the number of classes loaded by the end of the stage.
+ */
+public class StartupProfile {
+  private final ClassLoadingMXBean myClassLoading = ManagementFactory.getClassLoadingMXBean();
+  private final Map<String, Stage> myStages = new LinkedHashMap<>();
+
+  private static class Stage {
+    long time;
+    long loadedClasses;
+  }
+
+  /**
+   * Creates a new profile.
+   * The time passed since the start of the JVM is recorded as the first stage.
+   */
+  public StartupProfile() {
+    stageFinished("JVM startup", ManagementFactory.getRuntimeMXBean().getUptime() * 1000000);
+  }
+
+  public static String getStageName(SourceLibrary.LoadingStage stage) {
+    switch (stage) {
+      case HEADER: return "header parsing";
+      case EXTENSION: return "extension loading";
+      case RAW_SOURCES: return "source parsing";
+      case BINARIES: return "binary loading";
+      default: throw new IllegalStateException();
+    }
+  }
+
+  /**
+   * Adds time spent in a stage.
+   * If the stage was already recorded, the time is added to the previous one.
+   *
+   * @param name  the name of the stage.
+   * @param time  time spent in the stage in nanoseconds.
+   */
+  public void stageFinished(String name, long time) {
+    Stage stage = myStages.computeIfAbsent(name, k -> new Stage());
+    stage.time += time;
+    stage.loadedClasses = myClassLoading.getTotalLoadedClassCount();
+  }
+
+  public void print() {
+    int width = 0;
+    for (String name : myStages.keySet()) {
+      width = Math.max(width, name.length());
+    }
+
+    System.out.println();
+    System.out.println("--- Startup profile ---");
+    for (Map.Entry<String, Stage> entry : myStages.entrySet()) {
+      StringBuilder builder = new StringBuilder(entry.getKey()).append(':');
+      builder.append(" ".repeat(width - entry.getKey().length() + 1));
+      builder.append(timeToString(entry.getValue().time / 1000000)).append(" (").append(entry.getValue().loadedClasses).append(" classes loaded)");
+      System.out.println(builder);
+    }
+    System.out.println("Total loaded classes: " + myClassLoading.getTotalLoadedClassCount() + ", currently loaded: " + myClassLoading.getLoadedClassCount());
+  }
+}
@@ -4,20 +4,35 @@ import org.arend.ext.error.ErrorReporter;
 import org.arend.extImpl.DefinitionRequester;
 import org.arend.library.Library;
 import org.arend.library.LibraryManager;
+import org.arend.library.SourceLibrary;
 import org.arend.library.resolver.LibraryResolver;
 import org.arend.typechecking.instance.provider.InstanceProviderSet;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.PrintStream;
 import java.util.Stack;
 
 public class TimedLibraryManager extends LibraryManager {
   private final Stack<Long> times = new Stack<>();
+  private StartupProfile myStartupProfile;
+  private PrintStream myInfoStream = System.out;
 
   public TimedLibraryManager(LibraryResolver libraryResolver, @Nullable InstanceProviderSet instanceProviderSet, ErrorReporter typecheckingErrorReporter, ErrorReporter libraryErrorReporter, DefinitionRequester definitionRequester) {
     super(libraryResolver, instanceProviderSet, typecheckingErrorReporter, libraryErrorReporter, definitionRequester, null);
   }
 
+  public void setStartupProfile(StartupProfile profile) {
+    myStartupProfile = profile;
+  }
+
+  /**
+   * Sets the stream for messages about loading of libraries.
+   */
+  public void setInfoStream(@NotNull PrintStream infoStream) {
+    myInfoStream = infoStream;
+  }
+
   public static @NotNull String timeToString(long time) {
     if (time < 10000) {
       return time + "ms";
@@ -32,7 +47,7 @@ public class TimedLibraryManager extends LibraryManager {
 
   @Override
   protected void beforeLibraryLoading(@NotNull Library library) {
-    System.out.println("[INFO] Loading library " + library.getName());
+    myInfoStream.println("[INFO] Loading library " + library.getName());
     times.push(System.currentTimeMillis());
   }
 
@@ -40,6 +55,13 @@ public class TimedLibraryManager extends LibraryManager {
   protected void afterLibraryLoading(@NotNull Library library, boolean successful) {
     long time = System.currentTimeMillis() - times.pop();
     System.err.flush();
-    System.out.println("[INFO] " + (successful ? "Loaded " : "Failed loading ") + "library " + library.getName() + (successful ? " (" + timeToString(time) + ")" : ""));
+    myInfoStream.println("[INFO] " + (successful ? "Loaded " : "Failed loading ") + "library " + library.getName() + (successful ? " (" + timeToString(time) + ")" : ""));
+  }
+
+  @Override
+  protected void loadingStageFinished(SourceLibrary library, SourceLibrary.LoadingStage stage, long time) {
+    if (myStartupProfile != null) {
+      myStartupProfile.stageFinished(library.getName() + ": " + StartupProfile.getStageName(stage), time);
+    }
   }
 }
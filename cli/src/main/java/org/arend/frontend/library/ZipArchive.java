@@ -0,0 +1,261 @@
+package org.arend.frontend.library;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.*;
+
+/**
+ * A zip archive.
+ * The central directory is read once when the archive is opened.
+ * Entries are read with positional reads, so they can be read from several threads at once; deflated entries are inflated.
+ * The file stays open until the archive is closed.
+ * Checksums of entries are verified when they are read.
+ * Malformed archives are reported as {@link ZipException}s.
+ * ZIP64 archives are not supported.
+ */
+public class ZipArchive implements Closeable {
+  private static final int END_SIGNATURE = 0x06054b50;
+  private static final int CENTRAL_SIGNATURE = 0x02014b50;
+  private static final int LOCAL_SIGNATURE = 0x04034b50;
+  private static final int END_SIZE = 22;
+  private static final int LOCAL_SIZE = 30;
+
+  private final FileChannel myChannel;
+  private final long mySize;
+  private final Map<String, Entry> myEntries = new LinkedHashMap<>();
+
+  private static class Entry {
+    final int method;
+    final long localHeaderOffset;
+    final int compressedSize;
+    final int size;
+    final long crc;
+
+    Entry(int method, long localHeaderOffset, int compressedSize, int size, long crc) {
+      this.method = method;
+      this.localHeaderOffset = localHeaderOffset;
+      this.compressedSize = compressedSize;
+      this.size = size;
+      this.crc = crc;
+    }
+  }
+
+  public ZipArchive(File file) throws IOException {
+    myChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    try {
+      mySize = myChannel.size();
+      readCentralDirectory();
+    } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+      myChannel.close();
+      throw malformed("Malformed central directory", e);
+    } catch (IOException | RuntimeException e) {
+      myChannel.close();
+      throw e;
+    }
+  }
+
+  private static ZipException malformed(String message, Exception cause) {
+    ZipException exception = new ZipException(message);
+    exception.initCause(cause);
+    return exception;
+  }
+
+  private ByteBuffer read(long position, int length) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    while (buffer.hasRemaining()) {
+      if (myChannel.read(buffer, position + buffer.position()) < 0) {
+        throw new EOFException();
+      }
+    }
+    return buffer.flip();
+  }
+
+  private void readCentralDirectory() throws IOException {
+    if (mySize < END_SIZE) {
+      throw new ZipException("Cannot find the central directory");
+    }
+    long tailStart = Math.max(0, mySize - END_SIZE - 0xFFFF);
+    ByteBuffer tail = read(tailStart, (int) (mySize - tailStart));
+    int end = -1;
+    for (int i = tail.limit() - END_SIZE; i >= 0; i--) {
+      if (tail.getInt(i) == END_SIGNATURE) {
+        end = i;
+        break;
+      }
+    }
+    if (end < 0) {
+      throw new ZipException("Cannot find the central directory");
+    }
+
+    int entries = Short.toUnsignedInt(tail.getShort(end + 10));
+    long directorySize = Integer.toUnsignedLong(tail.getInt(end + 12));
+    long offset = Integer.toUnsignedLong(tail.getInt(end + 16));
+    if (entries == 0xFFFF || directorySize == 0xFFFFFFFFL || offset == 0xFFFFFFFFL) {
+      throw new IOException("ZIP64 archives are not supported");
+    }
+    if (offset + directorySize > mySize) {
+      throw new ZipException("Malformed central directory");
+    }
+
+    ByteBuffer directory = read(offset, (int) directorySize);
+    int pos = 0;
+    for (int i = 0; i < entries; i++) {
+      if (pos + 46 > directory.limit() || directory.getInt(pos) != CENTRAL_SIGNATURE) {
+        throw new ZipException("Malformed central directory");
+      }
+      int flags = Short.toUnsignedInt(directory.getShort(pos + 8));
+      int method = Short.toUnsignedInt(directory.getShort(pos + 10));
+      long crc = Integer.toUnsignedLong(directory.getInt(pos + 16));
+      long compressedSize = Integer.toUnsignedLong(directory.getInt(pos + 20));
+      long size = Integer.toUnsignedLong(directory.getInt(pos + 24));
+      int nameLength = Short.toUnsignedInt(directory.getShort(pos + 28));
+      int extraLength = Short.toUnsignedInt(directory.getShort(pos + 30));
+      int commentLength = Short.toUnsignedInt(directory.getShort(pos + 32));
+      long localHeaderOffset = Integer.toUnsignedLong(directory.getInt(pos + 42));
+      if (compressedSize == 0xFFFFFFFFL || size == 0xFFFFFFFFL || localHeaderOffset == 0xFFFFFFFFL) {
+        throw new IOException("ZIP64 archives are not supported");
+      }
+      if (compressedSize > mySize || size > Integer.MAX_VALUE || localHeaderOffset > mySize) {
+        throw new ZipException("Malformed central directory");
+      }
+
+      byte[] name = new byte[nameLength];
+      directory.duplicate().position(pos + 46).get(name);
+      if ((flags & 1) == 0) {
+        myEntries.put(new String(name, StandardCharsets.UTF_8), new Entry(method, localHeaderOffset, (int) compressedSize, (int) size, crc));
+      }
+      pos += 46 + nameLength + extraLength + commentLength;
+    }
+  }
+
+  /**
+   * @return names of entries in the order of the central directory.
+   */
+  public Collection<String> getNames() {
+    return Collections.unmodifiableSet(myEntries.keySet());
+  }
+
+  public boolean contains(String name) {
+    return myEntries.containsKey(name);
+  }
+
+  public long getCompressedSize(String name) {
+    Entry entry = myEntries.get(name);
+    return entry == null ? -1 : entry.compressedSize;
+  }
+
+  /**
+   * Returns the contents of an entry.
+   * This method can be invoked from several threads.
+   *
+   * @return a read-only buffer with the contents of the entry or null if there is no such entry.
+   */
+  public ByteBuffer getData(String name) throws IOException {
+    Entry entry = myEntries.get(name);
+    if (entry == null) {
+      return null;
+    }
+
+    ByteBuffer result;
+    try {
+      result = readData(name, entry);
+    } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+      throw malformed("Malformed entry " + name, e);
+    }
+
+    CRC32 crc = new CRC32();
+    crc.update(result.duplicate());
+    if (crc.getValue() != entry.crc) {
+      throw new ZipException("Invalid checksum of " + name);
+    }
+    return result;
+  }
+
+  /**
+   * @return a stream with the contents of an entry or null if there is no such entry.
+   */
+  public InputStream getInputStream(String name) throws IOException {
+    ByteBuffer data = getData(name);
+    return data == null ? null : new InputStream() {
+      @Override
+      public int read() {
+        return data.hasRemaining() ? Byte.toUnsignedInt(data.get()) : -1;
+      }
+
+      @Override
+      public int read(byte[] bytes, int off, int len) {
+        if (len == 0) {
+          return 0;
+        }
+        if (!data.hasRemaining()) {
+          return -1;
+        }
+        len = Math.min(len, data.remaining());
+        data.get(bytes, off, len);
+        return len;
+      }
+
+      @Override
+      public int available() {
+        return data.remaining();
+      }
+    };
+  }
+
+  private ByteBuffer readData(String name, Entry entry) throws IOException {
+    long local = entry.localHeaderOffset;
+    if (local + LOCAL_SIZE > mySize) {
+      throw new ZipException("Malformed local header of " + name);
+    }
+    ByteBuffer header = read(local, LOCAL_SIZE);
+    if (header.getInt(0) != LOCAL_SIGNATURE) {
+      throw new ZipException("Malformed local header of " + name);
+    }
+    long start = local + LOCAL_SIZE + Short.toUnsignedInt(header.getShort(26)) + Short.toUnsignedInt(header.getShort(28));
+    if (start + entry.compressedSize > mySize) {
+      throw new ZipException("Truncated entry " + name);
+    }
+    ByteBuffer data = read(start, entry.compressedSize);
+
+    if (entry.method == ZipEntry.STORED) {
+      return data.asReadOnlyBuffer();
+    }
+    if (entry.method != ZipEntry.DEFLATED) {
+      throw new ZipException("Unsupported compression method of " + name);
+    }
+
+    Inflater inflater = new Inflater(true);
+    try {
+      inflater.setInput(data);
+      ByteBuffer result = ByteBuffer.allocate(entry.size);
+      while (result.hasRemaining()) {
+        if (inflater.inflate(result) == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+          throw new ZipException("Truncated entry " + name);
+        }
+      }
+      return result.flip().asReadOnlyBuffer();
+    } catch (DataFormatException e) {
+      throw malformed("Malformed entry " + name, e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    myChannel.close();
+  }
+}
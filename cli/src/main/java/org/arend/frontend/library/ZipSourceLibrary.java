@@ -1,34 +1,42 @@
 package org.arend.frontend.library;
 
 import com.fasterxml.jackson.dataformat.yaml.YAMLMapper;
+import com.google.protobuf.CodedInputStream;
 import org.arend.ext.error.ErrorReporter;
 import org.arend.ext.module.ModulePath;
+import org.arend.frontend.source.ZipArchiveBinarySource;
 import org.arend.frontend.source.ZipFileRawSource;
 import org.arend.library.*;
 import org.arend.library.classLoader.ZipClassLoaderDelegate;
 import org.arend.library.error.LibraryIOError;
 import org.arend.module.error.ExceptionError;
+import org.arend.module.serialization.ModuleProtos;
 import org.arend.source.*;
 import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
 import org.arend.util.FileUtils;
+import org.arend.util.Metrics;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.*;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class ZipSourceLibrary extends UnmodifiableSourceLibrary {
+  private static final int PREFETCH_SIZE = 2 * Runtime.getRuntime().availableProcessors();
+
   private final File myFile;
   private String mySourcesDir = "";
   private String myBinariesDir;
-  private ZipFile myZipFile;
-  private ZipClassLoaderDelegate myClassLoaderDelegate;
+  private ZipArchive myArchive;
   private List<LibraryDependency> myDependencies = Collections.emptyList();
   private Set<ModulePath> myModules = Collections.emptySet();
+  private BinaryPrefetcher myPrefetcher;
 
   public ZipSourceLibrary(String name, File zipFile) {
     super(name);
@@ -47,8 +55,8 @@ public class ZipSourceLibrary extends UnmodifiableSourceLibrary {
 
   @Override
   public @Nullable Source getRawSource(ModulePath modulePath) {
-    ZipEntry entry = myZipFile.getEntry(mySourcesDir + String.join("/", modulePath.toList()) + FileUtils.EXTENSION);
-    return entry == null ? null : new ZipFileRawSource(modulePath, myZipFile, entry);
+    String name = mySourcesDir + String.join("/", modulePath.toList()) + FileUtils.EXTENSION;
+    return myArchive.contains(name) ? new ZipFileRawSource(modulePath, myArchive, name) : null;
   }
 
   @Override
@@ -56,8 +64,117 @@ public class ZipSourceLibrary extends UnmodifiableSourceLibrary {
     if (myBinariesDir == null) {
       return null;
     }
-    ZipEntry entry = myZipFile.getEntry(myBinariesDir + String.join("/", modulePath.toList()) + FileUtils.SERIALIZED_EXTENSION);
-    return entry == null ? null : new GZIPStreamBinarySource(new ZipFileBinarySource(modulePath, myZipFile, entry));
+    String name = getBinaryEntryName(modulePath);
+    return !myArchive.contains(name) ? null : new BlockCompressedBinarySource(new ZipArchiveBinarySource(modulePath, myArchive, name)) {
+      @Override
+      protected ModuleProtos.Module readModule(Metrics metrics) throws IOException {
+        DecodedModule decoded = myPrefetcher == null ? null : myPrefetcher.take(modulePath);
+        if (decoded == null) {
+          return super.readModule(metrics);
+        }
+        // The same number of bytes is counted when a module is read from a stream, that is, the size of the decompressed module
+        metrics.counter(Metrics.BYTES_READ, "Bytes read from sources and binaries").add(decoded.size);
+        return decoded.module;
+      }
+    };
+  }
+
+  private String getBinaryEntryName(ModulePath modulePath) {
+    return myBinariesDir + String.join("/", modulePath.toList()) + FileUtils.SERIALIZED_EXTENSION;
+  }
+
+  private static class DecodedModule {
+    final ModuleProtos.Module module;
+    final long size;
+
+    DecodedModule(ModuleProtos.Module module, long size) {
+      this.module = module;
+      this.size = size;
+    }
+  }
+
+  /**
+   * Decodes binary modules of the library in parallel ahead of the loader.
+   * At most {@link ZipSourceLibrary#PREFETCH_SIZE} modules are being decoded or wait for the loader at any time,
+   * so modules that are never loaded are not decoded, and decoded modules are not held for long.
+   * Modules that cannot be decoded are skipped; they will be read again and errors will be reported when they are loaded.
+   */
+  private class BinaryPrefetcher {
+    private final ZipArchive myArchive;
+    private final Iterator<ModulePath> myModules;
+    private final Set<ModulePath> myTaken = new HashSet<>();
+    private final Map<ModulePath, CompletableFuture<DecodedModule>> myDecoding = new HashMap<>();
+
+    BinaryPrefetcher(ZipArchive archive, Collection<ModulePath> modules) {
+      myArchive = archive;
+      myModules = modules.iterator();
+    }
+
+    private DecodedModule decode(ModulePath module) {
+      try {
+        ByteBuffer data = myArchive.getData(getBinaryEntryName(module));
+        if (data == null) {
+          return null;
+        }
+        CodedInputStream stream = CodedInputStream.newInstance(BlockCompressedBinarySource.decompress(data));
+        stream.setRecursionLimit(Integer.MAX_VALUE);
+        ModuleProtos.Module result = ModuleProtos.Module.parseFrom(stream);
+        return new DecodedModule(result, stream.getTotalBytesRead());
+      } catch (IOException e) {
+        return null;
+      }
+    }
+
+    private void fill() {
+      while (myDecoding.size() < PREFETCH_SIZE && myModules.hasNext()) {
+        ModulePath module = myModules.next();
+        if (!myTaken.contains(module) && myArchive.contains(getBinaryEntryName(module))) {
+          myDecoding.put(module, CompletableFuture.supplyAsync(() -> decode(module)));
+        }
+      }
+    }
+
+    synchronized void start() {
+      fill();
+    }
+
+    /**
+     * @return the decoded module or null if it cannot be decoded.
+     */
+    DecodedModule take(ModulePath module) {
+      CompletableFuture<DecodedModule> future;
+      synchronized (this) {
+        if (!myTaken.add(module)) {
+          return null;
+        }
+        future = myDecoding.remove(module);
+        fill();
+      }
+      if (future == null) {
+        return decode(module);
+      }
+      try {
+        return future.join();
+      } catch (CompletionException | CancellationException e) {
+        return null;
+      }
+    }
+
+    synchronized void cancel() {
+      for (CompletableFuture<DecodedModule> future : myDecoding.values()) {
+        future.cancel(false);
+      }
+      myDecoding.clear();
+    }
+  }
+
+  private void startDecoding() {
+    if (myBinariesDir == null) {
+      return;
+    }
+
+    myPrefetcher = new BinaryPrefetcher(myArchive, myModules);
+    myPrefetcher.start();
   }
 
   @Override
@@ -71,17 +188,19 @@ public class ZipSourceLibrary extends UnmodifiableSourceLibrary {
       return true;
     }
 
-    try (ZipFile zipFile = new ZipFile(myFile)) {
-      myZipFile = zipFile;
+    // The archive is closed when loading is finished, so that the file is not kept open
+    try (ZipArchive archive = new ZipArchive(myFile)) {
+      myArchive = archive;
       return super.load(libraryManager, typechecking);
     } catch (IOException e) {
       libraryManager.getLibraryErrorReporter().report(new ExceptionError(e, "loading of library " + getName()));
       return false;
     } finally {
-      myZipFile = null;
-      if (myClassLoaderDelegate != null) {
-        myClassLoaderDelegate.zipFile = null;
+      if (myPrefetcher != null) {
+        myPrefetcher.cancel();
+        myPrefetcher = null;
       }
+      myArchive = null;
     }
   }
 
@@ -97,18 +216,17 @@ public class ZipSourceLibrary extends UnmodifiableSourceLibrary {
 
   @Override
   protected @Nullable LibraryHeader loadHeader(ErrorReporter errorReporter) {
-    if (myZipFile == null) {
+    if (myArchive == null) {
       return null;
     }
 
-    ZipEntry yamlEntry = myZipFile.getEntry(FileUtils.LIBRARY_CONFIG_FILE);
-    if (yamlEntry == null) {
+    if (!myArchive.contains(FileUtils.LIBRARY_CONFIG_FILE)) {
       errorReporter.report(new LibraryIOError(myFile.getPath(), "Cannot find arend.yaml in zip file"));
       return null;
     }
 
     LibraryConfig config;
-    try (InputStream stream = myZipFile.getInputStream(yamlEntry)) {
+    try (InputStream stream = myArchive.getInputStream(FileUtils.LIBRARY_CONFIG_FILE)) {
       config = new YAMLMapper().readValue(stream, LibraryConfig.class);
     } catch (IOException e) {
       errorReporter.report(new ExceptionError(e, "loading of library " + getName()));
@@ -136,10 +254,7 @@ public class ZipSourceLibrary extends UnmodifiableSourceLibrary {
 
     if (header.modules == null) {
       header.modules = new LinkedHashSet<>();
-      Enumeration<? extends ZipEntry> entries = myZipFile.entries();
-      while (entries.hasMoreElements()) {
-        ZipEntry entry = entries.nextElement();
-        String name = entry.getName();
+      for (String name : myArchive.getNames()) {
         if (name.length() > mySourcesDir.length() + FileUtils.EXTENSION.length() && name.startsWith(mySourcesDir) && name.endsWith(FileUtils.EXTENSION)) {
           header.modules.add(FileUtils.modulePath(name.substring(mySourcesDir.length(), name.length() - FileUtils.EXTENSION.length()).replace('/', '.')));
         }
@@ -147,12 +262,12 @@ public class ZipSourceLibrary extends UnmodifiableSourceLibrary {
     }
 
     if (config.getExtensionsDir() != null) {
-      myClassLoaderDelegate = new ZipClassLoaderDelegate(myFile, myZipFile, config.getExtensionsDir());
-      header.classLoaderDelegate = myClassLoaderDelegate;
+      header.classLoaderDelegate = new ZipClassLoaderDelegate(myFile, null, config.getExtensionsDir());
     }
 
     myDependencies = header.dependencies;
     myModules = new LinkedHashSet<>(header.modules);
+    startDecoding();
     return header;
   }
 
@@ -0,0 +1,163 @@
+package org.arend.frontend.repl;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.arend.ext.core.ops.NormalizationMode;
+import org.arend.ext.error.GeneralError;
+import org.arend.frontend.library.TimedLibraryManager;
+import org.arend.library.SourceLibrary;
+import org.arend.repl.CodeParsingHandler;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Evaluates expressions from a file or the standard input without interaction.
+ * Each line is either an expression or a statement (such as {@code \import}) as in the REPL.
+ * Expressions are typechecked and normalized, and a JSON object with the result is printed for each line.
+ * Libraries are loaded once, so all expressions are checked against the same typechecked definitions.
+ */
+public class BatchCliRepl extends CommonCliRepl {
+  private final PrintStream myOutput;
+  private final ObjectMapper myMapper = new ObjectMapper();
+  private List<String> myCurrentErrors;
+  private boolean myHasErrors;
+
+  @JsonInclude(JsonInclude.Include.NON_EMPTY)
+  public static class Result {
+    public int line;
+    public String input;
+    public String type;
+    public String value;
+    public List<String> errors;
+  }
+
+  public BatchCliRepl(@NotNull PrintStream output) {
+    myOutput = output;
+    if (myLibraryManager instanceof TimedLibraryManager) {
+      ((TimedLibraryManager) myLibraryManager).setInfoStream(System.err);
+    }
+  }
+
+  @Override
+  public void printlnOpt(Object anything, boolean toError) {
+    System.err.println(anything);
+  }
+
+  @Override
+  public void eprintln(Object anything) {
+    System.err.println(anything);
+    System.err.flush();
+  }
+
+  @Override
+  public void print(Object anything) {
+    System.err.print(anything);
+    System.err.flush();
+  }
+
+  @Override
+  public boolean checkErrors() {
+    if (myCurrentErrors == null) {
+      return super.checkErrors();
+    }
+
+    var errorList = myErrorReporter.getErrorList();
+    boolean hasErrors = false;
+    for (GeneralError error : errorList) {
+      myCurrentErrors.add(error.getDoc(myPpConfig).toString());
+      if (error.level == GeneralError.Level.ERROR) hasErrors = true;
+    }
+    errorList.clear();
+    myHasErrors |= hasErrors;
+    return hasErrors;
+  }
+
+  /**
+   * Checks a line and prints the result.
+   *
+   * @return false if an error was reported.
+   */
+  public boolean evaluate(int lineNumber, @NotNull String line) {
+    Result result = new Result();
+    result.line = lineNumber;
+    result.input = line;
+    result.errors = myCurrentErrors = new ArrayList<>();
+    boolean hasErrors;
+    try {
+      if (CodeParsingHandler.definitionEvidence.stream().anyMatch(line::contains)) {
+        checkStatements(line);
+      } else {
+        var expr = preprocessExpr(line);
+        if (expr != null) {
+          checkExpr(expr, null, tcResult -> {
+            if (tcResult == null) return;
+            result.type = prettyExpr(new StringBuilder(), normalize(tcResult.type)).toString();
+            result.value = prettyExpr(new StringBuilder(), normalize(tcResult.expression)).toString();
+          });
+        }
+      }
+      checkErrors();
+      hasErrors = myHasErrors;
+    } finally {
+      myCurrentErrors = null;
+      myHasErrors = false;
+    }
+
+    try {
+      myOutput.println(myMapper.writeValueAsString(result));
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException(e);
+    }
+    myOutput.flush();
+    return !hasErrors;
+  }
+
+  /**
+   * Evaluates all lines of the input.
+   * Blank lines and lines starting with {@code --} are skipped.
+   *
+   * @return false if an error was reported for some line.
+   */
+  public boolean evaluateAll(@NotNull BufferedReader input) throws IOException {
+    boolean ok = true;
+    int lineNumber = 0;
+    for (String line = input.readLine(); line != null; line = input.readLine()) {
+      lineNumber++;
+      if (line.isBlank() || line.trim().startsWith("--")) continue;
+      if (!evaluate(lineNumber, line)) ok = false;
+    }
+    return ok;
+  }
+
+  /**
+   * Loads libraries and evaluates the input.
+   * Results are printed to {@code output}; other messages are printed to the standard error stream.
+   *
+   * @return false if an error was reported.
+   */
+  public static boolean launch(
+    boolean recompile,
+    @NotNull Collection<? extends Path> libDirs,
+    @Nullable NormalizationMode normalizationMode,
+    long normalizationLimit,
+    @NotNull BufferedReader input,
+    @NotNull PrintStream output
+  ) throws IOException {
+    var repl = new BatchCliRepl(output);
+    repl.normalizationMode = normalizationMode;
+    repl.normalizationLimit = normalizationLimit;
+    repl.addLibraryDirectories(libDirs);
+    if (recompile) repl.getReplLibrary().addFlag(SourceLibrary.Flag.RECOMPILE);
+    repl.initialize();
+    return repl.evaluateAll(input);
+  }
+}
@@ -17,6 +17,7 @@ import org.arend.source.Source;
 import org.arend.source.SourceLoader;
 import org.arend.term.NamespaceCommand;
 import org.arend.term.group.FileGroup;
+import org.arend.util.Metrics;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
@@ -60,7 +61,8 @@ public abstract class StreamRawSource implements Source {
     try {
       var errorListener = new ReporterErrorListener(countingErrorReporter, modulePath);
 
-      ArendLexer lexer = new ArendLexer(CharStreams.fromStream(getInputStream()));
+      Metrics metrics = sourceLoader.getMetrics();
+      ArendLexer lexer = new ArendLexer(CharStreams.fromStream(metrics.countBytes(getInputStream())));
       lexer.removeErrorListeners();
       lexer.addErrorListener(errorListener);
 
@@ -72,6 +74,7 @@ public abstract class StreamRawSource implements Source {
       if (countingErrorReporter.getErrorsNumber() > 0) {
         return false;
       }
+      metrics.counter(Metrics.MODULES_PARSED, "Parsed modules").increment();
 
       myGroup = new BuildVisitor(new ModuleLocation(library, myInTests ? ModuleLocation.LocationKind.TEST : ModuleLocation.LocationKind.SOURCE, modulePath), errorReporter).visitStatements(tree);
       library.groupLoaded(modulePath, myGroup, true, myInTests);
@@ -0,0 +1,54 @@
+package org.arend.frontend.source;
+
+import org.arend.ext.module.ModulePath;
+import org.arend.frontend.library.ZipArchive;
+import org.arend.library.SourceLibrary;
+import org.arend.source.StreamBinarySource;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public class ZipArchiveBinarySource extends StreamBinarySource {
+  private final ModulePath myModulePath;
+  private final ZipArchive myArchive;
+  private final String myEntryName;
+
+  public ZipArchiveBinarySource(ModulePath modulePath, ZipArchive archive, String entryName) {
+    myModulePath = modulePath;
+    myArchive = archive;
+    myEntryName = entryName;
+  }
+
+  @Override
+  public @NotNull ModulePath getModulePath() {
+    return myModulePath;
+  }
+
+  @Override
+  public long getTimeStamp() {
+    return 0;
+  }
+
+  @Override
+  public boolean isAvailable() {
+    return true;
+  }
+
+  @Override
+  protected @Nullable InputStream getInputStream() throws IOException {
+    return myArchive.getInputStream(myEntryName);
+  }
+
+  @Override
+  protected @Nullable OutputStream getOutputStream() {
+    return null;
+  }
+
+  @Override
+  public boolean delete(SourceLibrary library) {
+    return false;
+  }
+}
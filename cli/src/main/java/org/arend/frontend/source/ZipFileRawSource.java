@@ -1,21 +1,21 @@
 package org.arend.frontend.source;
 
 import org.arend.ext.module.ModulePath;
+import org.arend.frontend.library.ZipArchive;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 
 public class ZipFileRawSource extends StreamRawSource {
-  private final ZipFile myFile;
-  private final ZipEntry myEntry;
+  private final ZipArchive myArchive;
+  private final String myEntryName;
 
-  public ZipFileRawSource(ModulePath modulePath, ZipFile file, ZipEntry entry) {
+  public ZipFileRawSource(ModulePath modulePath, ZipArchive archive, String entryName) {
     super(modulePath, false);
-    myFile = file;
-    myEntry = entry;
+    myArchive = archive;
+    myEntryName = entryName;
   }
 
   @Override
@@ -30,6 +30,10 @@ public class ZipFileRawSource extends StreamRawSource {
 
   @Override
   protected @NotNull InputStream getInputStream() throws IOException {
-    return myFile.getInputStream(myEntry);
+    InputStream stream = myArchive.getInputStream(myEntryName);
+    if (stream == null) {
+      throw new FileNotFoundException(myEntryName);
+    }
+    return stream;
   }
 }
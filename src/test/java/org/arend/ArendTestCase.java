@@ -37,6 +37,8 @@ import static org.arend.ext.prettyprinting.doc.DocFactory.vList;
 import static org.junit.Assert.assertThat;
 
 public abstract class ArendTestCase {
+  private static final Library PRELUDE_LIBRARY = new PreludeFileLibrary(null);
+
   protected LibraryManager libraryManager;
   protected Library preludeLibrary;
   protected ModuleScopeProvider moduleScopeProvider;
@@ -48,10 +50,12 @@ public abstract class ArendTestCase {
   @Before
   public void loadPrelude() {
     libraryManager = new LibraryManager((lib,name) -> { throw new IllegalStateException(); }, new InstanceProviderSet(), errorReporter, errorReporter, DefinitionRequester.INSTANCE, null);
-    preludeLibrary = new PreludeFileLibrary(null);
+    preludeLibrary = PRELUDE_LIBRARY;
     moduleScopeProvider = preludeLibrary.getModuleScopeProvider();
     libraryManager.loadLibrary(preludeLibrary, null);
-    new Prelude.PreludeTypechecking(new InstanceProviderSet(), ConcreteReferableProvider.INSTANCE, IdReferableConverter.INSTANCE, PositionComparator.INSTANCE).typecheckLibrary(preludeLibrary);
+    if (!Prelude.isInitialized()) {
+      new Prelude.PreludeTypechecking(new InstanceProviderSet(), ConcreteReferableProvider.INSTANCE, IdReferableConverter.INSTANCE, PositionComparator.INSTANCE).typecheckLibrary(preludeLibrary);
+    }
     errorList.clear();
   }
 
@@ -0,0 +1,88 @@
+package org.arend.extImpl.userData;
+
+import org.arend.ext.userData.Key;
+import org.arend.ext.userData.UserDataHolder;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class UserDataHolderTest {
+  private static List<Key<Integer>> putKeys(UserDataHolder holder) {
+    List<Key<Integer>> keys = new ArrayList<>();
+    for (int i = 0; i < 2 * UserDataStorage.INLINE_CAPACITY; i++) {
+      Key<Integer> key = new Key<>("key" + i);
+      keys.add(key);
+      holder.putUserData(key, i);
+      for (int j = 0; j <= i; j++) {
+        assertEquals(Integer.valueOf(j), holder.getUserData(keys.get(j)));
+      }
+    }
+    return keys;
+  }
+
+  private static void testHolder(UserDataHolderImpl holder) {
+    List<Key<Integer>> keys = putKeys(holder);
+    assertEquals(keys.size(), holder.getUserDataMap().size());
+
+    UserDataHolderImpl copy = holder.copyUserData();
+    holder.putUserData(keys.get(0), null);
+    holder.putUserData(keys.get(1), 10);
+    assertNull(holder.getUserData(keys.get(0)));
+    assertEquals(Integer.valueOf(10), holder.getUserData(keys.get(1)));
+    assertEquals(Integer.valueOf(0), copy.getUserData(keys.get(0)));
+    assertEquals(Integer.valueOf(1), copy.getUserData(keys.get(1)));
+  }
+
+  @Test
+  public void inlineRemove() {
+    UserDataHolderImpl holder = new UserDataHolderImpl();
+    Key<String> key1 = new Key<>();
+    Key<String> key2 = new Key<>();
+    holder.putUserData(key1, "a");
+    holder.putUserData(key2, "b");
+    holder.putUserData(key1, null);
+    assertNull(holder.getUserData(key1));
+    assertEquals("b", holder.getUserData(key2));
+    assertEquals(1, holder.getUserDataMap().size());
+  }
+
+  @Test
+  public void promoteToMap() {
+    testHolder(new UserDataHolderImpl());
+  }
+
+  @Test
+  public void concurrentPromoteToMap() {
+    ConcurrentUserDataHolderImpl holder = new ConcurrentUserDataHolderImpl();
+    List<Key<Integer>> keys = putKeys(holder);
+    assertEquals(keys.size(), holder.getUserDataMap().size());
+    holder.putUserData(keys.get(0), null);
+    assertNull(holder.getUserData(keys.get(0)));
+    assertEquals(keys.size() - 1, holder.getUserDataMap().size());
+  }
+
+  @Test
+  public void concurrentPut() throws InterruptedException {
+    ConcurrentUserDataHolderImpl holder = new ConcurrentUserDataHolderImpl();
+    List<Key<Integer>> keys = new ArrayList<>();
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 16; i++) {
+      Key<Integer> key = new Key<>();
+      keys.add(key);
+      int value = i;
+      threads.add(new Thread(() -> holder.putUserData(key, value)));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    for (int i = 0; i < keys.size(); i++) {
+      assertEquals(Integer.valueOf(i), holder.getUserData(keys.get(i)));
+    }
+  }
+}
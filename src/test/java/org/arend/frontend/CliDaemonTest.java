@@ -0,0 +1,116 @@
+package org.arend.frontend;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class CliDaemonTest {
+  private static final long TIMEOUT = 20000;
+
+  private Path myLibraryDir;
+  private int myPort;
+  private Thread myDaemon;
+  private PrintStream myOut;
+  private PrintStream myErr;
+
+  @Before
+  public void startDaemon() throws IOException, InterruptedException {
+    myLibraryDir = Files.createTempDirectory("arend");
+    Files.writeString(myLibraryDir.resolve("arend.yaml"), "name: daemonTest\nsourcesDir: src\n");
+    Files.createDirectories(myLibraryDir.resolve("src"));
+    Files.writeString(myLibraryDir.resolve("src/A.ard"), "\\func a : Nat => 0");
+    try (ServerSocket socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+      myPort = socket.getLocalPort();
+    }
+
+    myOut = System.out;
+    myErr = System.err;
+    System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+    myDaemon = new Thread(() -> new ConsoleMain().run(new String[] { "--daemon", String.valueOf(myPort), myLibraryDir.toString() }));
+    myDaemon.setDaemon(true);
+    myDaemon.start();
+
+    long deadline = System.currentTimeMillis() + TIMEOUT;
+    while (true) {
+      try (Socket ignored = new Socket(InetAddress.getLoopbackAddress(), myPort)) {
+        break;
+      } catch (IOException e) {
+        assertTrue("The daemon did not start", System.currentTimeMillis() < deadline);
+        Thread.sleep(100);
+      }
+    }
+  }
+
+  @After
+  public void stopDaemon() throws IOException, InterruptedException {
+    try {
+      if (myDaemon.isAlive()) {
+        CliDaemon.request(myPort, CliDaemon.STOP_COMMAND);
+        myDaemon.join(TIMEOUT);
+      }
+    } finally {
+      System.setOut(myOut);
+      System.setErr(myErr);
+      try (Stream<Path> files = Files.walk(myLibraryDir)) {
+        //noinspection ResultOfMethodCallIgnored
+        files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+      }
+    }
+  }
+
+  /**
+   * File system events are delivered asynchronously, so builds are requested until the expected exit code is returned.
+   */
+  private void assertBuild(int expected) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TIMEOUT;
+    int result;
+    while ((result = CliDaemon.request(myPort, CliDaemon.BUILD_COMMAND)) != expected && System.currentTimeMillis() < deadline) {
+      Thread.sleep(100);
+    }
+    assertEquals(expected, result);
+  }
+
+  @Test
+  public void changedModuleIsRebuilt() throws IOException, InterruptedException {
+    assertBuild(0);
+    Files.writeString(myLibraryDir.resolve("src/A.ard"), "\\func a : Nat => \\Prop");
+    assertBuild(1);
+    Files.writeString(myLibraryDir.resolve("src/A.ard"), "\\func a : Nat => 1");
+    assertBuild(0);
+  }
+
+  @Test
+  public void newModuleIsLoaded() throws IOException, InterruptedException {
+    Files.writeString(myLibraryDir.resolve("src/B.ard"), "\\func b : Nat => \\Prop");
+    assertBuild(1);
+    Files.writeString(myLibraryDir.resolve("src/B.ard"), "\\import A \\func b : Nat => a");
+    assertBuild(0);
+  }
+
+  @Test
+  public void unknownCommand() {
+    assertEquals(1, CliDaemon.request(myPort, "rebuild"));
+  }
+
+  @Test
+  public void stopShutsDownTheLoop() throws InterruptedException {
+    assertEquals(0, CliDaemon.request(myPort, CliDaemon.STOP_COMMAND));
+    myDaemon.join(TIMEOUT);
+    assertFalse(myDaemon.isAlive());
+  }
+}
@@ -0,0 +1,190 @@
+package org.arend.frontend;
+
+import org.arend.ext.error.GeneralError;
+import org.arend.ext.module.ModulePath;
+import org.arend.ext.reference.Precedence;
+import org.arend.module.ModuleLocation;
+import org.arend.naming.reference.GlobalReferable;
+import org.arend.naming.reference.LocatedReferable;
+import org.arend.naming.reference.LocatedReferableImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class StreamingErrorReporterTest {
+  private final ByteArrayOutputStream myOut = new ByteArrayOutputStream();
+  private final ByteArrayOutputStream myErr = new ByteArrayOutputStream();
+  private final PrintStream myOutStream = new PrintStream(myOut, true, StandardCharsets.UTF_8);
+  private final PrintStream myErrStream = new PrintStream(myErr, true, StandardCharsets.UTF_8);
+  private final StreamingErrorReporter myReporter = new StreamingErrorReporter(() -> myOutStream, () -> myErrStream);
+  private final ModuleLocation myModule = new ModuleLocation("lib", false, ModuleLocation.LocationKind.SOURCE, new ModulePath("M"));
+  private Path myDirectory;
+
+  @Before
+  public void createDirectory() throws IOException {
+    myDirectory = Files.createTempDirectory("arend-cli");
+  }
+
+  @After
+  public void deleteDirectory() throws IOException {
+    try (Stream<Path> files = Files.walk(myDirectory)) {
+      files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  private LocatedReferable definition(String name) {
+    return new LocatedReferableImpl(Precedence.DEFAULT, name, myModule, GlobalReferable.Kind.FUNCTION);
+  }
+
+  private static GeneralError error(GeneralError.Level level, String message, LocatedReferable definition) {
+    return new GeneralError(level, message) {
+      @Override
+      public Object getCause() {
+        return definition;
+      }
+    };
+  }
+
+  private static int count(String text, String substring) {
+    int result = 0;
+    for (int index = text.indexOf(substring); index >= 0; index = text.indexOf(substring, index + 1)) {
+      result++;
+    }
+    return result;
+  }
+
+  @Test
+  public void errorsArePrintedOnFlush() {
+    LocatedReferable def = definition("f");
+    myReporter.report(error(GeneralError.Level.ERROR, "error message", def));
+    myReporter.report(error(GeneralError.Level.WARNING, "warning message", def));
+    myReporter.report(error(GeneralError.Level.ERROR, "severe message", null));
+    assertEquals(0, myOut.size());
+    assertEquals(0, myErr.size());
+
+    myReporter.flush();
+    String err = myErr.toString(StandardCharsets.UTF_8);
+    String out = myOut.toString(StandardCharsets.UTF_8);
+    assertTrue(out.indexOf("error message") < out.indexOf("warning message"));
+    assertFalse(out.contains("severe message"));
+    assertTrue(err.contains("severe message"));
+    assertEquals(2, myReporter.getNumberOfErrors(GeneralError.Level.ERROR));
+    assertEquals(1, myReporter.getNumberOfErrors(GeneralError.Level.WARNING));
+  }
+
+  @Test
+  public void definitionLimit() {
+    myReporter.setLimits(2, 0);
+    LocatedReferable def1 = definition("f");
+    LocatedReferable def2 = definition("g");
+    for (int i = 0; i < 5; i++) {
+      myReporter.report(error(GeneralError.Level.ERROR, "error in f", def1));
+    }
+    myReporter.report(error(GeneralError.Level.ERROR, "error in g", def2));
+    myReporter.flush();
+    myReporter.printSuppressed();
+
+    String out = myOut.toString(StandardCharsets.UTF_8);
+    assertEquals(2, count(out, "error in f"));
+    assertEquals(1, count(out, "error in g"));
+    assertTrue(out.contains("[INFO] 3 more messages in M not shown"));
+    assertEquals(6, myReporter.getNumberOfErrors(GeneralError.Level.ERROR));
+  }
+
+  @Test
+  public void moduleLimit() {
+    myReporter.setLimits(0, 3);
+    for (int i = 0; i < 5; i++) {
+      myReporter.report(error(GeneralError.Level.ERROR, "error in f" + i, definition("f" + i)));
+    }
+    myReporter.flush();
+    myReporter.printSuppressed();
+
+    String out = myOut.toString(StandardCharsets.UTF_8);
+    assertEquals(3, count(out, "error in f"));
+    assertTrue(out.contains("[INFO] 2 more messages in M not shown"));
+
+    myOut.reset();
+    myReporter.printSuppressed();
+    assertEquals(0, myOut.size());
+  }
+
+  @Test
+  public void resetCounts() {
+    myReporter.setLimits(1, 0);
+    LocatedReferable def = definition("f");
+    myReporter.report(error(GeneralError.Level.ERROR, "first", def));
+    myReporter.reset();
+    assertEquals(0, myReporter.getNumberOfErrors(GeneralError.Level.ERROR));
+    myReporter.report(error(GeneralError.Level.ERROR, "second", def));
+    myReporter.flush();
+    myReporter.printSuppressed();
+
+    String out = myOut.toString(StandardCharsets.UTF_8);
+    assertFalse(out.contains("first"));
+    assertTrue(out.contains("second"));
+    assertFalse(out.contains("not shown"));
+  }
+
+  private boolean runFrontend(String text, String... args) throws IOException {
+    Files.writeString(myDirectory.resolve("A.ard"), text);
+    String[] allArgs = new String[args.length + 4];
+    allArgs[0] = "-s";
+    allArgs[1] = myDirectory.toString();
+    allArgs[2] = "-b";
+    allArgs[3] = myDirectory.resolve(".bin").toString();
+    System.arraycopy(args, 0, allArgs, 4, args.length);
+
+    PrintStream out = System.out;
+    PrintStream err = System.err;
+    System.setOut(myOutStream);
+    System.setErr(myErrStream);
+    try {
+      ConsoleMain frontend = new ConsoleMain();
+      assertNotNull(frontend.run(allArgs));
+      return frontend.isExitWithError();
+    } finally {
+      System.setOut(out);
+      System.setErr(err);
+    }
+  }
+
+  @Test
+  public void frontendLimitsAndExitStatus() throws IOException {
+    assertTrue(runFrontend(
+      "\\func f1 : Nat => \\Prop\n" +
+      "\\func f2 : Nat => \\Prop\n" +
+      "\\func f3 : Nat => \\Prop\n" +
+      "\\func f4 : Nat => \\Prop", "--max-errors-per-module", "1"));
+    String out = myOut.toString(StandardCharsets.UTF_8);
+    assertEquals(1, count(out, "[ERROR]"));
+    assertTrue(out.contains("[INFO] 3 more messages in A not shown"));
+    assertTrue(out.contains("Number of modules with errors: 1"));
+  }
+
+  @Test
+  public void frontendGoal() throws IOException {
+    assertFalse(runFrontend("\\func f (n : Nat) : Nat \\elim n\n  | 0 => 0\n  | suc n => {?}"));
+    String out = myOut.toString(StandardCharsets.UTF_8);
+    assertTrue(out.contains("[GOAL]"));
+    assertTrue(out.contains("Expected type: Nat"));
+    assertTrue(out.contains("Number of modules with goals: 1"));
+  }
+
+  @Test
+  public void frontendWithoutErrors() throws IOException {
+    assertFalse(runFrontend("\\func f : Nat => 0"));
+    assertEquals(0, myErr.size());
+  }
+}
@@ -0,0 +1,102 @@
+package org.arend.frontend.repl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.arend.ext.core.ops.NormalizationMode;
+import org.arend.frontend.ConsoleMain;
+import org.junit.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BatchCliReplTest {
+  private static final String INPUT =
+    "1 Nat.+ 2\n" +
+    "\n" +
+    "-- a comment\n" +
+    "\\func f => 3\n" +
+    "f Nat.+ \\Prop\n";
+
+  @Test
+  public void oneResultPerLine() throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    BatchCliRepl repl = new BatchCliRepl(new PrintStream(output, true, StandardCharsets.UTF_8));
+    repl.initialize();
+    assertFalse(repl.evaluateAll(new BufferedReader(new StringReader(INPUT))));
+
+    ObjectMapper mapper = new ObjectMapper();
+    List<JsonNode> results = new ArrayList<>();
+    for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+      results.add(mapper.readTree(line));
+    }
+    assertEquals(3, results.size());
+
+    JsonNode expr = results.get(0);
+    assertEquals(1, expr.get("line").asInt());
+    assertEquals("Nat", expr.get("type").asText());
+    assertEquals("3", expr.get("value").asText());
+    assertNull(expr.get("errors"));
+
+    JsonNode statement = results.get(1);
+    assertEquals(4, statement.get("line").asInt());
+    assertNull(statement.get("type"));
+    assertNull(statement.get("value"));
+    assertNull(statement.get("errors"));
+
+    JsonNode failure = results.get(2);
+    assertEquals(5, failure.get("line").asInt());
+    assertNull(failure.get("value"));
+    assertTrue(failure.get("errors").size() > 0);
+  }
+
+  @Test
+  public void launchKeepsStandardOutput() throws IOException {
+    ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    PrintStream out = System.out;
+    PrintStream err = System.err;
+    PrintStream replacement = new PrintStream(stdout, true, StandardCharsets.UTF_8);
+    try {
+      System.setOut(replacement);
+      System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+      assertTrue(BatchCliRepl.launch(false, Collections.emptyList(), NormalizationMode.ENF, Long.MAX_VALUE, new BufferedReader(new StringReader("1 Nat.+ 2\n")), new PrintStream(output, true, StandardCharsets.UTF_8)));
+      assertSame(replacement, System.out);
+    } finally {
+      System.setOut(out);
+      System.setErr(err);
+    }
+    assertEquals(0, stdout.size());
+    assertEquals("3", new ObjectMapper().readTree(output.toString(StandardCharsets.UTF_8)).get("value").asText());
+  }
+
+  private static boolean runFrontend(String input) throws IOException {
+    Path file = Files.createTempFile("arend", ".txt");
+    PrintStream out = System.out;
+    PrintStream err = System.err;
+    try {
+      Files.writeString(file, input);
+      System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+      System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+      ConsoleMain frontend = new ConsoleMain();
+      frontend.run(new String[] { "--evaluate", file.toString() });
+      return frontend.isExitWithError();
+    } finally {
+      System.setOut(out);
+      System.setErr(err);
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void exitStatus() throws IOException {
+    assertTrue(runFrontend(INPUT));
+    assertFalse(runFrontend("1 Nat.+ 2\n"));
+  }
+}
@@ -0,0 +1,73 @@
+package org.arend.library;
+
+import org.arend.util.BlockCompressedData;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import static org.junit.Assert.*;
+
+public class BlockCompressedDataTest {
+  private static byte[] makeData(int length) {
+    byte[] data = new byte[length];
+    Random random = new Random(0);
+    for (int i = 0; i < length; i++) {
+      data[i] = (byte) (random.nextInt(16) + 'a');
+    }
+    return data;
+  }
+
+  private static byte[] compress(byte[] data, int blockSize, int level) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BlockCompressedData.write(data, data.length, blockSize, level, out);
+    return out.toByteArray();
+  }
+
+  @Test
+  public void roundTrip() throws IOException {
+    byte[] data = makeData(10000);
+    byte[] container = compress(data, 1024, Deflater.DEFAULT_COMPRESSION);
+    assertTrue(BlockCompressedData.isBlockCompressed(container));
+    assertTrue(container.length < data.length);
+
+    BlockCompressedData compressed = new BlockCompressedData(container);
+    assertEquals(10, compressed.getNumberOfBlocks());
+    assertEquals(data.length, compressed.getLength());
+    assertArrayEquals(data, compressed.readAll());
+  }
+
+  @Test
+  public void readRange() throws IOException {
+    byte[] data = makeData(10000);
+    BlockCompressedData compressed = new BlockCompressedData(compress(data, 1024, Deflater.BEST_SPEED));
+    assertArrayEquals(Arrays.copyOfRange(data, 1000, 3100), compressed.read(1000, 2100));
+    assertArrayEquals(Arrays.copyOfRange(data, 9990, 10000), compressed.read(9990, 10));
+    assertEquals(0, compressed.read(0, 0).length);
+  }
+
+  @Test
+  public void compressionLevels() throws IOException {
+    byte[] data = makeData(10000);
+    byte[] stored = compress(data, 4096, Deflater.NO_COMPRESSION);
+    byte[] best = compress(data, 4096, Deflater.BEST_COMPRESSION);
+    assertTrue(best.length < stored.length);
+    assertArrayEquals(data, new BlockCompressedData(stored).readAll());
+    assertArrayEquals(data, new BlockCompressedData(best).readAll());
+  }
+
+  @Test
+  public void emptyData() throws IOException {
+    BlockCompressedData compressed = new BlockCompressedData(compress(new byte[0], 1024, Deflater.DEFAULT_COMPRESSION));
+    assertEquals(0, compressed.getNumberOfBlocks());
+    assertEquals(0, compressed.readAll().length);
+  }
+
+  @Test(expected = IOException.class)
+  public void notCompressed() throws IOException {
+    new BlockCompressedData(new byte[] { 0x1f, (byte) 0x8b, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0 });
+  }
+}
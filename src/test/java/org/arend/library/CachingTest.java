@@ -1,6 +1,7 @@
 package org.arend.library;
 
 import org.arend.core.definition.Definition;
+import org.arend.core.definition.FunctionDefinition;
 import org.arend.ext.module.ModulePath;
 import org.arend.naming.reference.converter.IdReferableConverter;
 import org.arend.source.Source;
@@ -272,4 +273,24 @@ public class CachingTest extends LibraryTestCase {
     assertThat(sourceB, is(notNullValue()));
     assertTrue(sourceB.isAvailable());
   }
+
+  @Test
+  public void heightSerialization() {
+    library.addModule(new ModulePath("A"),
+        "\\func f0 (n : Nat) => n\n" +
+        "\\func f1 (n : Nat) => f0 n\n" +
+        "\\func f2 (n : Nat) => f1 (f0 n)");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    typechecking.typecheckLibrary(library);
+    library.persistUpdatedModules(errorReporter);
+    assertThat(errorList, is(empty()));
+
+    libraryManager.unloadLibrary(library);
+    assertTrue(libraryManager.loadLibrary(library, null));
+    ChildGroup aGroup = library.getModuleGroup(new ModulePath("A"));
+    assertThat(aGroup, is(notNullValue()));
+    assertEquals(1, ((FunctionDefinition) getDef(aGroup.getGroupScope(), "f0").getTypechecked()).getHeight());
+    assertEquals(2, ((FunctionDefinition) getDef(aGroup.getGroupScope(), "f1").getTypechecked()).getHeight());
+    assertEquals(3, ((FunctionDefinition) getDef(aGroup.getGroupScope(), "f2").getTypechecked()).getHeight());
+  }
 }
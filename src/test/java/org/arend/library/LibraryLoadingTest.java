@@ -4,9 +4,11 @@ import org.arend.ext.module.ModulePath;
 import org.arend.source.Source;
 import org.arend.source.SourceLoader;
 import org.arend.term.group.Group;
+import org.arend.util.Metrics;
 import org.junit.Test;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
@@ -69,4 +71,21 @@ public class LibraryLoadingTest extends LibraryTestCase {
     assertThat(library.getModuleGroup(modulePath), is(nullValue()));
     assertThat(errorList, is(not(empty())));
   }
+
+  @Test
+  public void loadingMetrics() {
+    Metrics metrics = libraryManager.getMetrics();
+    long loaded = metrics.counter(Metrics.LIBRARIES_LOADED, "").get();
+    library.addModule(new ModulePath("A"), "\\func f => 0");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertEquals(loaded + 1, metrics.counter(Metrics.LIBRARIES_LOADED, "").get());
+
+    StringBuilder builder = new StringBuilder();
+    metrics.writePrometheus(builder);
+    assertThat(builder.toString(), containsString(Metrics.LIBRARIES_LOADED + " " + (loaded + 1)));
+    assertThat(builder.toString(), containsString(Metrics.LOADING_STAGE_TIME + "_count{stage=\"raw_sources\"}"));
+    assertThat(builder.toString(), containsString("# TYPE arend_normalization_steps_total counter"));
+    assertThat(builder.toString(), containsString("# TYPE arend_gc_collections_total counter"));
+    assertThat(builder.toString(), containsString("# TYPE arend_heap_used_bytes gauge"));
+  }
 }
@@ -0,0 +1,132 @@
+package org.arend.library;
+
+import org.arend.library.classLoader.ClassLoaderDelegate;
+import org.arend.library.classLoader.FileClassLoaderDelegate;
+import org.arend.library.classLoader.MultiClassLoader;
+import org.arend.library.classLoader.ZipClassLoaderDelegate;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+public class MultiClassLoaderTest {
+  private static class CountingDelegate implements ClassLoaderDelegate {
+    private Set<String> myPackages;
+    int requests;
+
+    CountingDelegate(Set<String> packages) {
+      myPackages = packages;
+    }
+
+    @Override
+    public byte[] findClass(String name) {
+      requests++;
+      return null;
+    }
+
+    @Override
+    public Set<String> getPackages() {
+      return myPackages;
+    }
+  }
+
+  private static void assertNotFound(MultiClassLoader<?> classLoader, String name) {
+    try {
+      classLoader.loadClass(name);
+      fail();
+    } catch (ClassNotFoundException ignored) {}
+  }
+
+  @Test
+  public void onlyRelevantDelegates() {
+    MultiClassLoader<String> classLoader = new MultiClassLoader<>(getClass().getClassLoader());
+    CountingDelegate delegate1 = new CountingDelegate(Set.of("ext.a"));
+    CountingDelegate delegate2 = new CountingDelegate(Set.of("ext.b"));
+    CountingDelegate delegate3 = new CountingDelegate(null);
+    classLoader.addDelegate("1", delegate1);
+    classLoader.addDelegate("2", delegate2);
+    assertNotFound(classLoader, "ext.a.Main");
+    assertEquals(1, delegate1.requests);
+    assertEquals(0, delegate2.requests);
+
+    classLoader.addDelegate("3", delegate3);
+    assertNotFound(classLoader, "ext.b.Main");
+    assertEquals(1, delegate1.requests);
+    assertEquals(1, delegate2.requests);
+    assertEquals(1, delegate3.requests);
+  }
+
+  @Test
+  public void missingClassesAreCached() {
+    MultiClassLoader<String> classLoader = new MultiClassLoader<>(getClass().getClassLoader());
+    CountingDelegate delegate = new CountingDelegate(Set.of("ext"));
+    classLoader.addDelegate("1", delegate);
+    assertNotFound(classLoader, "ext.Main");
+    assertNotFound(classLoader, "ext.Main");
+    assertEquals(1, delegate.requests);
+
+    classLoader.removeDelegate("1");
+    classLoader.addDelegate("1", delegate);
+    assertNotFound(classLoader, "ext.Main");
+    assertEquals(2, delegate.requests);
+  }
+
+  @Test
+  public void packagesAreListedOnReload() {
+    MultiClassLoader<String> classLoader = new MultiClassLoader<>(getClass().getClassLoader());
+    CountingDelegate delegate = new CountingDelegate(Set.of("ext.a"));
+    classLoader.addDelegate("1", delegate);
+    assertNotFound(classLoader, "ext.b.Main");
+    assertEquals(0, delegate.requests);
+
+    delegate.myPackages = Set.of("ext.a", "ext.b");
+    classLoader.addDelegate("1", delegate);
+    assertNotFound(classLoader, "ext.b.Main");
+    assertEquals(1, delegate.requests);
+  }
+
+  @Test
+  public void fileDelegatePackages() throws IOException {
+    Path root = Files.createTempDirectory("arend");
+    try {
+      Files.createDirectories(root.resolve("ext/a"));
+      Files.createFile(root.resolve("Main.class"));
+      Files.createFile(root.resolve("ext/a/Main.class"));
+      Files.createFile(root.resolve("ext/Readme.txt"));
+      assertEquals(Set.of("", "ext.a"), new FileClassLoaderDelegate(root).getPackages());
+      assertEquals(Set.of(), new FileClassLoaderDelegate(root.resolve("missing")).getPackages());
+    } finally {
+      try (Stream<Path> files = Files.walk(root)) {
+        //noinspection ResultOfMethodCallIgnored
+        files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+      }
+    }
+  }
+
+  @Test
+  public void zipDelegatePackages() throws IOException {
+    File file = File.createTempFile("arend", ".zip");
+    try {
+      try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+        out.putNextEntry(new ZipEntry("bin/Main.class"));
+        out.putNextEntry(new ZipEntry("bin/ext/a/Main.class"));
+        out.putNextEntry(new ZipEntry("src/Main.ard"));
+        out.putNextEntry(new ZipEntry("Other.class"));
+      }
+      assertEquals(Set.of("", "ext.a"), new ZipClassLoaderDelegate(file, null, "bin").getPackages());
+    } finally {
+      //noinspection ResultOfMethodCallIgnored
+      file.delete();
+    }
+  }
+}
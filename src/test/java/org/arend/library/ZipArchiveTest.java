@@ -0,0 +1,147 @@
+package org.arend.library;
+
+import org.arend.frontend.library.ZipArchive;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+public class ZipArchiveTest {
+  private static String toString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void storedAndDeflatedEntries() throws IOException {
+    String text = "\\func f => 0\n".repeat(100);
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    File file = File.createTempFile("arend", ".zip");
+    try {
+      try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+        ZipEntry stored = new ZipEntry("bin/A.arc");
+        stored.setMethod(ZipEntry.STORED);
+        stored.setSize(bytes.length);
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        stored.setCrc(crc.getValue());
+        out.putNextEntry(stored);
+        out.write(bytes);
+        out.closeEntry();
+
+        out.putNextEntry(new ZipEntry("src/A.ard"));
+        out.write(bytes);
+        out.closeEntry();
+      }
+
+      try (ZipArchive archive = new ZipArchive(file)) {
+        assertEquals(List.of("bin/A.arc", "src/A.ard"), new ArrayList<>(archive.getNames()));
+        assertTrue(archive.contains("bin/A.arc"));
+        assertFalse(archive.contains("src/B.ard"));
+        assertNull(archive.getData("src/B.ard"));
+        assertEquals(text, toString(archive.getData("bin/A.arc")));
+        assertEquals(text, toString(archive.getData("src/A.ard")));
+        try (InputStream stream = archive.getInputStream("src/A.ard")) {
+          assertEquals(text, new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertTrue(archive.getCompressedSize("src/A.ard") < bytes.length);
+      }
+    } finally {
+      //noinspection ResultOfMethodCallIgnored
+      file.delete();
+    }
+  }
+
+  private static File writeStoredArchive(byte[] bytes) throws IOException {
+    File file = File.createTempFile("arend", ".zip");
+    try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+      ZipEntry stored = new ZipEntry("bin/A.arc");
+      stored.setMethod(ZipEntry.STORED);
+      stored.setSize(bytes.length);
+      CRC32 crc = new CRC32();
+      crc.update(bytes);
+      stored.setCrc(crc.getValue());
+      out.putNextEntry(stored);
+      out.write(bytes);
+      out.closeEntry();
+    }
+    return file;
+  }
+
+  private static int indexOf(byte[] array, byte[] bytes) {
+    for (int i = 0; i + bytes.length <= array.length; i++) {
+      if (Arrays.equals(array, i, i + bytes.length, bytes, 0, bytes.length)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  @Test
+  public void invalidChecksum() throws IOException {
+    byte[] bytes = "\\func f => 0".getBytes(StandardCharsets.UTF_8);
+    File file = writeStoredArchive(bytes);
+    try {
+      byte[] archive = Files.readAllBytes(file.toPath());
+      archive[indexOf(archive, bytes)] ^= 1;
+      Files.write(file.toPath(), archive);
+      try (ZipArchive zipArchive = new ZipArchive(file)) {
+        zipArchive.getData("bin/A.arc");
+        fail();
+      } catch (ZipException ignored) {}
+    } finally {
+      //noinspection ResultOfMethodCallIgnored
+      file.delete();
+    }
+  }
+
+  @Test
+  public void closedArchive() throws IOException {
+    File file = writeStoredArchive("\\func f => 0".getBytes(StandardCharsets.UTF_8));
+    try {
+      ZipArchive archive = new ZipArchive(file);
+      archive.close();
+      try {
+        archive.getData("bin/A.arc");
+        fail();
+      } catch (IOException ignored) {}
+    } finally {
+      //noinspection ResultOfMethodCallIgnored
+      file.delete();
+    }
+  }
+
+  @Test
+  public void malformedCentralDirectory() throws IOException {
+    File file = writeStoredArchive("\\func f => 0".getBytes(StandardCharsets.UTF_8));
+    try {
+      byte[] archive = Files.readAllBytes(file.toPath());
+      // Makes the name of the entry longer than the archive
+      int central = indexOf(archive, new byte[] { 0x50, 0x4b, 0x01, 0x02 });
+      archive[central + 28] = (byte) 0xFF;
+      archive[central + 29] = (byte) 0xFF;
+      Files.write(file.toPath(), archive);
+      try (ZipArchive ignored = new ZipArchive(file)) {
+        fail();
+      } catch (ZipException ignored) {}
+    } finally {
+      //noinspection ResultOfMethodCallIgnored
+      file.delete();
+    }
+  }
+}
@@ -1,12 +1,15 @@
 package org.arend.term.expr;
 
 import org.arend.core.context.binding.LevelVariable;
+import org.arend.core.context.binding.inference.InferenceLevelVariable;
 import org.arend.core.context.param.DependentLink;
 import org.arend.core.context.param.SingleDependentLink;
 import org.arend.core.definition.*;
 import org.arend.core.expr.ClassCallExpression;
+import org.arend.core.expr.ConCallExpression;
 import org.arend.core.expr.Expression;
 import org.arend.core.expr.SigmaExpression;
+import org.arend.core.expr.visitor.TypeCache;
 import org.arend.core.sort.Level;
 import org.arend.core.sort.Sort;
 import org.arend.core.subst.LevelPair;
@@ -24,6 +27,7 @@ import static org.arend.ExpressionFactory.*;
 import static org.arend.core.expr.ExpressionFactory.*;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 
 public class GetTypeTest extends TypeCheckingTestCase {
   private void testType(Expression expected) {
@@ -43,6 +47,34 @@ public class GetTypeTest extends TypeCheckingTestCase {
     testType(DataCall((DataDefinition) getDefinition("List"), LevelPair.STD, Nat()));
   }
 
+  @Test
+  public void typeCacheTest() {
+    typeCheckModule("\\data List (A : \\1-Type0) | nil | cons A (List A) \\func test => cons 0 nil");
+    Expression body = (Expression) Objects.requireNonNull(((FunctionDefinition) getDefinition("test")).getBody());
+    TypeCache cache = new TypeCache();
+    cache.run(() -> {
+      Expression type = body.getType();
+      Expression cachedType = body.getType();
+      assertNotSame(type, cachedType);
+      assertEquals(type, cachedType);
+      return null;
+    });
+    assertEquals(1, cache.size());
+    assertEquals(1, cache.getHits());
+    assertEquals(DataCall((DataDefinition) getDefinition("List"), LevelPair.STD, Nat()), body.getType());
+  }
+
+  @Test
+  public void typeCacheInferenceLevelsTest() {
+    typeCheckModule("\\data List (A : \\1-Type0) | nil | cons A (List A)");
+    Level pLevel = new Level(new InferenceLevelVariable(LevelVariable.LvlType.PLVL, false, null));
+    Level hLevel = new Level(new InferenceLevelVariable(LevelVariable.LvlType.HLVL, false, null));
+    Expression expr = ConCallExpression.make((Constructor) getDefinition("List.nil"), new LevelPair(pLevel, hLevel), Collections.singletonList(Nat()), Collections.emptyList());
+    TypeCache cache = new TypeCache();
+    cache.run(expr::getType);
+    assertEquals(0, cache.size());
+  }
+
   @Test
   public void classExtTest() {
     typeCheckModule("\\class Test { | A : \\Type0 | a : A } \\func test => Test { | A => Nat }");
@@ -2,13 +2,16 @@ package org.arend.term.expr.visitor;
 
 import org.arend.core.context.binding.Binding;
 import org.arend.core.context.binding.TypedBinding;
+import org.arend.core.context.binding.inference.ExpressionInferenceVariable;
 import org.arend.core.context.param.DependentLink;
 import org.arend.core.context.param.SingleDependentLink;
 import org.arend.core.definition.Definition;
 import org.arend.core.definition.FunctionDefinition;
 import org.arend.core.expr.DataCallExpression;
 import org.arend.core.expr.Expression;
+import org.arend.core.expr.InferenceReferenceExpression;
 import org.arend.core.expr.PiExpression;
+import org.arend.core.expr.visitor.ConversionCache;
 import org.arend.core.expr.let.LetClause;
 import org.arend.core.sort.Level;
 import org.arend.core.subst.LevelPair;
@@ -220,4 +223,34 @@ public class ComparisonTest extends TypeCheckingTestCase {
     assertEquals(result2.expression, result1.expression);
     assertEquals(result1.expression, result2.expression);
   }
+
+  @Test
+  public void conversionCacheable() {
+    Binding x = new TypedBinding("x", Nat());
+    Expression expr = Pi(singleParam(null, Nat()), Ref(x));
+    assertTrue(ConversionCache.isCacheable(expr, Collections.emptyMap()));
+    assertFalse(ConversionCache.isCacheable(expr, Collections.singletonMap(x, new TypedBinding("y", Nat()))));
+    assertFalse(ConversionCache.isCacheable(expr, Collections.singletonMap(new TypedBinding("y", Nat()), x)));
+    assertFalse(ConversionCache.isCacheable(Pi(singleParam(null, Nat()), new InferenceReferenceExpression(new ExpressionInferenceVariable(Nat(), null, Collections.emptySet(), false))), Collections.emptyMap()));
+  }
+
+  @Test
+  public void conversionCacheCounters() {
+    Expression small = Pi(singleParam(null, Nat()), Nat());
+    Expression large = small;
+    for (int i = 0; i < 10; i++) {
+      large = Pi(singleParam(null, large), large);
+    }
+    assertFalse(ConversionCache.isLarge(small));
+    assertTrue(ConversionCache.isLarge(large));
+
+    ConversionCache cache = new ConversionCache();
+    assertNull(cache.get(large, large, CMP.EQ, false));
+    cache.put(large, large, CMP.EQ, false, true);
+    assertEquals(Boolean.TRUE, cache.get(large, large, CMP.EQ, false));
+    // A lookup that is not followed by put is not counted as a miss since the comparison cannot be cached
+    assertNull(cache.get(large, large, CMP.LE, false));
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+  }
 }
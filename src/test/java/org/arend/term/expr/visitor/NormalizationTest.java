@@ -5,6 +5,8 @@ import org.arend.core.context.binding.LevelVariable;
 import org.arend.core.context.binding.TypedBinding;
 import org.arend.core.context.param.DependentLink;
 import org.arend.core.context.param.SingleDependentLink;
+import org.arend.core.definition.Constructor;
+import org.arend.core.definition.DataDefinition;
 import org.arend.core.definition.FunctionDefinition;
 import org.arend.core.expr.*;
 import org.arend.core.expr.let.LetClause;
@@ -14,20 +16,29 @@ import org.arend.core.subst.LevelPair;
 import org.arend.ext.core.ops.NormalizationMode;
 import org.arend.naming.reference.LocalReferable;
 import org.arend.prelude.Prelude;
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.naming.reference.converter.IdReferableConverter;
 import org.arend.term.concrete.Concrete;
+import org.arend.typechecking.computation.NormalizationBudget;
+import org.arend.typechecking.computation.NormalizationBudgetExceededException;
+import org.arend.typechecking.error.local.NormalizationLimitError;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
 import org.arend.typechecking.TypeCheckingTestCase;
 import org.arend.typechecking.result.TypecheckingResult;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
 import static org.arend.ExpressionFactory.*;
+import static org.arend.Matchers.typecheckingError;
 import static org.arend.core.expr.ExpressionFactory.*;
 import static org.arend.term.concrete.ConcreteExpressionFactory.*;
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 public class NormalizationTest extends TypeCheckingTestCase {
   private FunctionDefinition plus;
@@ -389,4 +400,71 @@ public class NormalizationTest extends TypeCheckingTestCase {
     assertEquals(1, conCall.getDefCallArguments().size());
     assertEquals(f.getParameters().getNext(), conCall.getDefCallArguments().get(0).cast(ReferenceExpression.class).getBinding());
   }
+
+  @Test
+  public void normalizationBudget() {
+    Expression expr = FunCall(fac, LevelPair.SET0, Suc(Suc(Suc(Zero()))));
+    NormalizationBudget budget = new NormalizationBudget(1000);
+    assertEquals(Suc(Suc(Suc(Suc(Suc(Suc(Zero())))))), budget.run(() -> expr.normalize(NormalizationMode.NF)));
+    assertTrue(budget.getSteps() > 0);
+    assertTrue(budget.getDefinitionSteps().containsKey(fac));
+    assertTrue(budget.getDefinitionSteps().get(plus) > budget.getDefinitionSteps().get(mul));
+    assertNull(NormalizationBudget.getCurrent());
+  }
+
+  @Test
+  public void normalizationBudgetExceeded() {
+    Expression expr = FunCall(fac, LevelPair.SET0, Suc(Suc(Suc(Suc(Suc(Zero()))))));
+    NormalizationBudget budget = new NormalizationBudget(10);
+    try {
+      budget.run(() -> expr.normalize(NormalizationMode.NF));
+      fail();
+    } catch (NormalizationBudgetExceededException e) {
+      assertSame(budget, e.budget);
+    }
+    assertEquals(11, budget.getSteps());
+    assertNull(NormalizationBudget.getCurrent());
+  }
+
+  @Test
+  public void typecheckingNormalizationLimit() {
+    resolveNamesModule(
+      "\\func \\infixl 6 + (x y : Nat) : Nat \\elim x\n" +
+      "  | zero => y\n" +
+      "  | suc x => suc (x + y)\n" +
+      "\\func \\infixl 7 * (x y : Nat) : Nat \\elim x\n" +
+      "  | zero => zero\n" +
+      "  | suc x => y + x * y\n" +
+      "\\func fac (x : Nat) : Nat\n" +
+      "  | zero => 1\n" +
+      "  | suc x => suc x * fac x\n" +
+      "\\func test : fac 6 = 720 => idp");
+    TypecheckingOrderingListener listener = new TypecheckingOrderingListener(libraryManager.getInstanceProviderSet(), ConcreteReferableProvider.INSTANCE, IdReferableConverter.INSTANCE, errorReporter, PositionComparator.INSTANCE, ref -> null);
+    listener.setNormalizationLimit(10);
+    assertTrue(listener.typecheckModules(Collections.singletonList(lastGroup), null));
+    assertThatErrorsAre(typecheckingError(NormalizationLimitError.class));
+    assertTrue(getDefinition("test").status().hasErrors());
+  }
+
+  @Test
+  public void normalizationLimitConstructorTest() {
+    resolveNamesModule(
+      "\\func \\infixl 6 + (x y : Nat) : Nat \\elim x\n" +
+      "  | zero => y\n" +
+      "  | suc x => suc (x + y)\n" +
+      "\\func \\infixl 7 * (x y : Nat) : Nat \\elim x\n" +
+      "  | zero => zero\n" +
+      "  | suc x => y + x * y\n" +
+      "\\func fac (x : Nat) : Nat\n" +
+      "  | zero => 1\n" +
+      "  | suc x => suc x * fac x\n" +
+      "\\data D | con (p : Path (\\lam _ => fac 6 = 720) idp idp)");
+    TypecheckingOrderingListener listener = new TypecheckingOrderingListener(libraryManager.getInstanceProviderSet(), ConcreteReferableProvider.INSTANCE, IdReferableConverter.INSTANCE, errorReporter, PositionComparator.INSTANCE, ref -> null);
+    listener.setNormalizationLimit(10);
+    assertTrue(listener.typecheckModules(Collections.singletonList(lastGroup), null));
+    assertThatErrorsAre(typecheckingError(NormalizationLimitError.class));
+    DataDefinition data = (DataDefinition) getDefinition("D");
+    assertTrue(data.status().hasErrors());
+    assertSame(data, ((Constructor) getDefinition("D.con")).getDataType());
+  }
 }
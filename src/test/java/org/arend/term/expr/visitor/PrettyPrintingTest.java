@@ -9,6 +9,7 @@ import org.arend.core.expr.let.LetClause;
 import org.arend.core.sort.Sort;
 import org.arend.core.subst.LevelPair;
 import org.arend.ext.prettyprinting.PrettyPrinterConfig;
+import org.arend.ext.prettyprinting.PrettyPrinterConfigImpl;
 import org.arend.ext.prettyprinting.PrettyPrinterFlag;
 import org.arend.ext.reference.Precedence;
 import org.arend.frontend.reference.ConcreteLocatedReferable;
@@ -17,6 +18,7 @@ import org.arend.naming.reference.LocalReferable;
 import org.arend.term.FunctionKind;
 import org.arend.term.concrete.Concrete;
 import org.arend.term.expr.ConcreteCompareVisitor;
+import org.arend.term.prettyprint.BoundedPrettyPrintVisitor;
 import org.arend.term.prettyprint.PrettyPrintVisitor;
 import org.arend.term.prettyprint.ToAbstractVisitor;
 import org.arend.typechecking.TypeCheckingTestCase;
@@ -278,4 +280,69 @@ public class PrettyPrintingTest extends TypeCheckingTestCase {
     typeCheckModule("\\func test =>" + expr);
     assertEquals(expr, printTestExpr());
   }
+
+  @Test
+  public void boundedSmallTest() {
+    SingleDependentLink x = singleParam("x", Pi(Nat(), Nat()));
+    Expression expr = Lam(x, Apps(Ref(x), Zero()));
+    StringBuilder builder = new StringBuilder();
+    assertTrue(BoundedPrettyPrintVisitor.print(expr, builder, 10, 100));
+    assertEquals("\\lam (x : \\Pi (_ : Nat) -> Nat) => x 0", builder.toString());
+  }
+
+  @Test
+  public void boundedDepthTest() {
+    SingleDependentLink x = singleParam("x", Pi(Nat(), Nat()));
+    Expression body = Zero();
+    for (int i = 0; i < 10000; i++) {
+      body = Apps(Ref(x), body);
+    }
+    Expression expr = Lam(x, body);
+    PrettyPrinterConfigImpl config = new PrettyPrinterConfigImpl();
+    config.maxExpressionLength = 1000;
+    StringBuilder builder = new StringBuilder();
+    expr.prettyPrint(builder, config);
+    String str = builder.toString();
+    assertTrue(str.contains(BoundedPrettyPrintVisitor.ELIDED));
+    assertTrue(str.length() <= 1000 + BoundedPrettyPrintVisitor.CUT.length());
+  }
+
+  @Test
+  public void deepShortExpressionTest() {
+    SingleDependentLink x = singleParam("x", Pi(Nat(), Nat()));
+    Expression body = Zero();
+    for (int i = 0; i < Expression.MAX_PRINTED_DEPTH + 10; i++) {
+      body = Apps(Ref(x), body);
+    }
+    PrettyPrinterConfigImpl config = new PrettyPrinterConfigImpl();
+    config.maxExpressionLength = Expression.MAX_PRINTED_LENGTH;
+    StringBuilder builder = new StringBuilder();
+    body.prettyPrint(builder, config);
+    assertFalse(builder.toString().contains(BoundedPrettyPrintVisitor.ELIDED));
+    assertEquals(body.toString(), builder.toString());
+  }
+
+  @Test
+  public void unboundedByDefaultTest() {
+    SingleDependentLink x = singleParam("x", Pi(Nat(), Nat()));
+    Expression[] args = new Expression[1000];
+    Arrays.fill(args, Zero());
+    Expression expr = Apps(Ref(x), args);
+    StringBuilder builder = new StringBuilder();
+    expr.prettyPrint(builder, PrettyPrinterConfig.DEFAULT);
+    assertFalse(builder.toString().endsWith(BoundedPrettyPrintVisitor.CUT));
+    assertTrue(builder.length() > 2000);
+  }
+
+  @Test
+  public void boundedLengthTest() {
+    SingleDependentLink x = singleParam("x", Pi(Nat(), Nat()));
+    Expression[] args = new Expression[100000];
+    Arrays.fill(args, Zero());
+    Expression expr = Apps(Ref(x), args);
+    StringBuilder builder = new StringBuilder();
+    assertFalse(BoundedPrettyPrintVisitor.print(expr, builder, 10, 1000));
+    assertEquals(1000 + BoundedPrettyPrintVisitor.CUT.length(), builder.length());
+    assertTrue(builder.toString().endsWith(BoundedPrettyPrintVisitor.CUT));
+  }
 }
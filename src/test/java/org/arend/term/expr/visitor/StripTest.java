@@ -0,0 +1,86 @@
+package org.arend.term.expr.visitor;
+
+import org.arend.core.context.binding.TypedBinding;
+import org.arend.core.definition.ClassDefinition;
+import org.arend.core.definition.ClassField;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.definition.UniverseKind;
+import org.arend.core.expr.*;
+import org.arend.core.expr.visitor.StripVisitor;
+import org.arend.core.sort.Level;
+import org.arend.core.sort.Sort;
+import org.arend.core.subst.InPlaceLevelSubstVisitor;
+import org.arend.core.subst.LevelPair;
+import org.arend.prelude.Prelude;
+import org.arend.typechecking.TypeCheckingTestCase;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.arend.ExpressionFactory.Ref;
+import static org.arend.ExpressionFactory.singleParam;
+import static org.arend.core.expr.ExpressionFactory.*;
+import static org.junit.Assert.*;
+
+public class StripTest extends TypeCheckingTestCase {
+  @SuppressWarnings("unchecked")
+  private static void setArgument(Expression funCall, int index, Expression argument) {
+    ((List<Expression>) ((FunCallExpression) funCall).getDefCallArguments()).set(index, argument);
+  }
+
+  @Test
+  public void stripFoldsArithmetic() {
+    TypedBinding x = new TypedBinding("x", Nat());
+    Expression expr = FunCallExpression.make(Prelude.PLUS, LevelPair.STD, new ArrayList<>(Arrays.asList(Ref(x), new SmallIntegerExpression(3))));
+    assertTrue(expr instanceof FunCallExpression);
+    // The argument is replaced in place, so the call is not simplified yet
+    setArgument(expr, 0, new SmallIntegerExpression(2));
+    Expression result = expr.accept(new StripVisitor(), null);
+    assertTrue(result instanceof IntegerExpression);
+    assertEquals(5, ((IntegerExpression) result).getSmallInteger());
+  }
+
+  @Test
+  public void stripSimplifiesAt() {
+    TypedBinding a = new TypedBinding("a", Nat());
+    TypedBinding a1 = new TypedBinding("a'", Nat());
+    TypedBinding p = new TypedBinding("p", Nat());
+    TypedBinding i = new TypedBinding("i", Interval());
+    Expression type = new LamExpression(Sort.SET0, singleParam(null, Interval()), Nat());
+    Expression left = Ref(a);
+    Expression expr = FunCallExpression.make(Prelude.AT, LevelPair.STD, new ArrayList<>(Arrays.asList(type, left, Ref(a1), Ref(p), Ref(i))));
+    assertTrue(expr instanceof FunCallExpression);
+    setArgument(expr, 4, Left());
+    assertSame(left, expr.accept(new StripVisitor(), null));
+  }
+
+  @Test
+  public void stripUnfoldsImplementedFields() {
+    typeCheckModule("\\record R (x y : Nat)");
+    ClassDefinition classDef = (ClassDefinition) getDefinition("R");
+    ClassField field = (ClassField) getDefinition("R.x");
+    Map<ClassField, Expression> implementations = new LinkedHashMap<>();
+    Expression implementation = Zero();
+    implementations.put(field, implementation);
+    ClassCallExpression classCall = new ClassCallExpression(classDef, LevelPair.STD, implementations, Sort.SET0, UniverseKind.NO_UNIVERSES);
+    Expression expr = FieldCallExpression.make(field, LevelPair.STD, new ReferenceExpression(classCall.getThisBinding()), false);
+    assertTrue(expr instanceof FieldCallExpression);
+    assertSame(implementation, expr.accept(new StripVisitor(), null));
+  }
+
+  @Test
+  public void stripSubstitutesLevels() {
+    String body = " => \\lam (A : \\Type) (a : A) (B : \\Type) => (idp {A} {a}, \\Sigma A B, \\lam (b : B) => b)";
+    typeCheckModule("\\func f" + body + " \\func g" + body + " \\func h" + body);
+    Expression expr1 = Objects.requireNonNull((Expression) ((FunctionDefinition) getDefinition("f")).getBody());
+    Expression expr2 = Objects.requireNonNull((Expression) ((FunctionDefinition) getDefinition("g")).getBody());
+    Expression original = Objects.requireNonNull((Expression) ((FunctionDefinition) getDefinition("h")).getBody());
+
+    LevelPair levels = new LevelPair(new Level(2), new Level(1));
+    expr1 = expr1.accept(new StripVisitor(null, levels), null);
+    expr2.accept(new InPlaceLevelSubstVisitor(levels), null);
+    expr2 = expr2.accept(new StripVisitor(), null);
+    assertEquals(expr2, expr1);
+    assertNotEquals(original, expr1);
+  }
+}
@@ -0,0 +1,62 @@
+package org.arend.typechecking;
+
+import org.arend.core.context.binding.TypedBinding;
+import org.arend.ext.userData.Key;
+import org.arend.naming.reference.LocalReferable;
+import org.arend.typechecking.implicitargs.equations.TwoStageEquations;
+import org.arend.typechecking.visitor.CheckTypeVisitor;
+import org.arend.typechecking.visitor.CheckTypeVisitorPool;
+import org.junit.Test;
+
+import static org.arend.Matchers.goal;
+import static org.arend.core.expr.ExpressionFactory.Nat;
+import static org.junit.Assert.*;
+
+public class CheckTypeVisitorPoolTest extends TypeCheckingTestCase {
+  @Test
+  public void reuseAfterRelease() {
+    CheckTypeVisitor visitor = CheckTypeVisitorPool.acquire(errorReporter, null);
+    CheckTypeVisitor nested = CheckTypeVisitorPool.acquire(errorReporter, null);
+    assertNotSame(visitor, nested);
+    CheckTypeVisitorPool.release(nested);
+
+    Key<String> key = new Key<>("test");
+    visitor.putUserData(key, "a");
+    visitor.addBinding(new LocalReferable("x"), new TypedBinding("x", Nat()));
+    CheckTypeVisitorPool.release(visitor);
+
+    CheckTypeVisitor reused = CheckTypeVisitorPool.acquire(errorReporter, null);
+    assertSame(visitor, reused);
+    assertTrue(reused.getContext().isEmpty());
+    assertNull(reused.getUserData(key));
+    CheckTypeVisitorPool.release(reused);
+  }
+
+  @Test
+  public void typecheckWithReusedVisitors() {
+    CheckTypeVisitor visitor = CheckTypeVisitorPool.acquire(errorReporter, null);
+    CheckTypeVisitorPool.release(visitor);
+    typeCheckModule(
+      "\\func f (n : Nat) : Nat | 0 => 0 | suc n => f n\n" +
+      "\\func g => f 3\n" +
+      "\\lemma h : g = 0 => idp");
+
+    // Every unit takes the last released visitor, so all of them reuse the same one
+    CheckTypeVisitor reused = CheckTypeVisitorPool.acquire(errorReporter, null);
+    assertSame(visitor, reused);
+    assertTrue(((TwoStageEquations) reused.getEquations()).isEmpty());
+    CheckTypeVisitorPool.release(reused);
+  }
+
+  @Test
+  public void savedContextIsNotReused() {
+    CheckTypeVisitor visitor = CheckTypeVisitorPool.acquire(errorReporter, null);
+    CheckTypeVisitorPool.release(visitor);
+    typeCheckModule("\\func f (n : Nat) : Nat => {?}", 1);
+    assertThatErrorsAre(goal(1));
+
+    CheckTypeVisitor other = CheckTypeVisitorPool.acquire(errorReporter, null);
+    assertNotSame(visitor, other);
+    CheckTypeVisitorPool.release(other);
+  }
+}
@@ -11,9 +11,13 @@ import org.arend.core.sort.Sort;
 import org.arend.core.subst.LevelPair;
 import org.arend.ext.core.ops.NormalizationMode;
 import org.arend.prelude.Prelude;
+import org.arend.term.group.ChildGroup;
+import org.arend.typechecking.doubleChecker.CoreModuleChecker;
 import org.arend.typechecking.result.TypecheckingResult;
 import org.junit.Test;
 
+import java.util.Collections;
+
 import static org.arend.ExpressionFactory.FunCall;
 import static org.arend.ExpressionFactory.Ref;
 import static org.arend.Matchers.error;
@@ -21,6 +25,7 @@ import static org.arend.Matchers.typeMismatchError;
 import static org.arend.core.expr.ExpressionFactory.Nat;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 public class TypeCheckingTest extends TypeCheckingTestCase {
   @Test
@@ -246,4 +251,29 @@ public class TypeCheckingTest extends TypeCheckingTestCase {
       "\\func test : \\Pi {n : Nat} -> Nat => pair.1", 1);
     assertThatErrorsAre(typeMismatchError());
   }
+
+  @Test
+  public void parallelDoubleCheck() {
+    ChildGroup group = typeCheckModule(
+      "\\func f (n : Nat) : Nat | 0 => 0 | suc n => suc (f n)\n" +
+      "\\data D | con (f 1 = 1)\n" +
+      "\\record R (x : Nat) (p : f x = x)\n" +
+      "\\func g => \\new R 0 idp");
+    assertTrue(new CoreModuleChecker(errorReporter).checkGroups(Collections.singletonList(group), 4, null));
+    assertTrue(new CoreModuleChecker(errorReporter).checkGroups(Collections.singletonList(group), 4, ref -> ref.getRefName().equals("g")));
+    assertTrue(errorList.isEmpty());
+  }
+
+  @Test
+  public void lazyUnfolding() {
+    typeCheckModule(
+      "\\func f0 (n : Nat) => n Nat.+ n\n" +
+      "\\func f1 (n : Nat) => f0 (f0 n)\n" +
+      "\\func f2 (n : Nat) => f1 (f1 n)\n" +
+      "\\func g (n : Nat) => f1 (f1 n)\n" +
+      "\\func h (n : Nat) => g n\n" +
+      "\\func test1 (n : Nat) : f2 n = g n => idp\n" +
+      "\\func test2 (n : Nat) : h n = f2 n => idp\n" +
+      "\\func test3 (n : Nat) : h n = f1 (f0 (f0 n)) => idp");
+  }
 }
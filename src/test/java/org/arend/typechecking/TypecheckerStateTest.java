@@ -0,0 +1,74 @@
+package org.arend.typechecking;
+
+import org.arend.core.expr.InferenceReferenceExpression;
+import org.arend.ext.core.expr.CoreInferenceReferenceExpression;
+import org.arend.ext.userData.Key;
+import org.arend.term.concrete.Concrete;
+import org.arend.typechecking.visitor.CheckTypeVisitor;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.arend.core.expr.ExpressionFactory.Nat;
+import static org.arend.core.expr.ExpressionFactory.Zero;
+import static org.junit.Assert.*;
+
+public class TypecheckerStateTest extends TypeCheckingTestCase {
+  @Test
+  public void nestedStates() {
+    CheckTypeVisitor visitor = new CheckTypeVisitor(errorReporter, null, null);
+    Key<String> key = new Key<>("test");
+    visitor.putUserData(key, "a");
+    CoreInferenceReferenceExpression infRef = visitor.generateNewInferenceVariable("x", Nat(), new Concrete.HoleExpression(null), false);
+
+    visitor.withCurrentState(tc -> {
+      tc.putUserData(key, "b");
+      tc.withCurrentState(tc2 -> {
+        assertTrue(tc2.solveInferenceVariable(infRef.getVariable(), Zero()));
+        tc2.putUserData(key, "c");
+        tc2.loadSavedState();
+        assertEquals("b", tc2.getUserData(key));
+        assertNull(infRef.getSubstExpression());
+        return null;
+      });
+
+      assertTrue(tc.solveInferenceVariable(infRef.getVariable(), Zero()));
+      tc.updateSavedState();
+      tc.putUserData(key, "d");
+      tc.loadSavedState();
+      assertEquals("b", tc.getUserData(key));
+      assertNotNull(infRef.getSubstExpression());
+      return null;
+    });
+
+    assertEquals("b", visitor.getUserData(key));
+    assertEquals(Zero(), ((InferenceReferenceExpression) infRef).getSubstExpression());
+  }
+
+  @Test
+  public void mutableUserData() {
+    CheckTypeVisitor visitor = new CheckTypeVisitor(errorReporter, null, null);
+    Key<List<String>> key = new Key<>("test") {
+      @Override
+      public List<String> copy(List<String> value) {
+        return new ArrayList<>(value);
+      }
+    };
+    visitor.putUserData(key, new ArrayList<>(Collections.singletonList("a")));
+
+    visitor.withCurrentState(tc -> {
+      Objects.requireNonNull(tc.getUserData(key)).add("b");
+      tc.loadSavedState();
+      assertEquals(Collections.singletonList("a"), tc.getUserData(key));
+
+      Objects.requireNonNull(tc.getUserData(key)).add("c");
+      tc.updateSavedState();
+      Objects.requireNonNull(tc.getUserData(key)).add("d");
+      tc.loadSavedState();
+      assertEquals(Arrays.asList("a", "c"), tc.getUserData(key));
+      return null;
+    });
+
+    assertEquals(Arrays.asList("a", "c"), visitor.getUserData(key));
+  }
+}
@@ -0,0 +1,66 @@
+package org.arend.typechecking.computation;
+
+import org.arend.ext.error.GeneralError;
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.naming.reference.converter.IdReferableConverter;
+import org.arend.typechecking.TypeCheckingTestCase;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+import org.arend.util.ComputationInterruptedException;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class CancellationIndicatorTest extends TypeCheckingTestCase {
+  @Test
+  public void deadline() {
+    CancellationIndicator indicator = new CompositeCancellationIndicator(new DeadlineCancellationIndicator(0), new DefinitionTimeLimitCancellationIndicator(1000));
+    assertTrue(indicator.isCanceled());
+    try {
+      indicator.checkCanceled();
+      fail();
+    } catch (ComputationInterruptedException e) {
+      assertFalse(e instanceof LimitExceededException);
+    }
+    assertFalse(new DeadlineCancellationIndicator(60000).isCanceled());
+  }
+
+  @Test
+  public void deadlineExpired() {
+    DeadlineCancellationIndicator expired = new DeadlineCancellationIndicator(0);
+    assertTrue(expired.isCanceled());
+    assertTrue(expired.isExpired());
+
+    DeadlineCancellationIndicator cancelled = new DeadlineCancellationIndicator(60000);
+    new CompositeCancellationIndicator(cancelled).cancel();
+    assertTrue(cancelled.isCanceled());
+    assertFalse(cancelled.isExpired());
+  }
+
+  @Test
+  public void definitionTimeLimit() {
+    resolveNamesModule(
+      "\\func \\infixl 6 + (x y : Nat) : Nat \\elim x\n" +
+      "  | zero => y\n" +
+      "  | suc x => suc (x + y)\n" +
+      "\\func \\infixl 7 * (x y : Nat) : Nat \\elim x\n" +
+      "  | zero => zero\n" +
+      "  | suc x => y + x * y\n" +
+      "\\func fac (x : Nat) : Nat\n" +
+      "  | zero => 1\n" +
+      "  | suc x => suc x * fac x\n" +
+      "\\func test : fac 8 = 40320 => idp\n" +
+      "\\func test2 => fac 3");
+    TypecheckingOrderingListener listener = new TypecheckingOrderingListener(libraryManager.getInstanceProviderSet(), ConcreteReferableProvider.INSTANCE, IdReferableConverter.INSTANCE, errorReporter, PositionComparator.INSTANCE, ref -> null);
+    // Every reading of the clock advances it by a millisecond
+    long[] time = new long[1];
+    assertTrue(listener.typecheckModules(Collections.singletonList(lastGroup), new DefinitionTimeLimitCancellationIndicator(10, () -> time[0] += 1000000)));
+    assertEquals(1, errorList.size());
+    GeneralError error = errorList.get(0);
+    assertTrue(error.message.startsWith("Typechecking time limit"));
+    assertTrue(getDefinition("test").status().hasErrors());
+    assertFalse(getDefinition("test2").status().hasErrors());
+  }
+}
@@ -1,6 +1,7 @@
 package org.arend.typechecking.definition;
 
 import org.arend.core.context.param.DependentLink;
+import org.arend.core.context.param.Telescope;
 import org.arend.core.definition.Definition;
 import org.arend.core.definition.FunctionDefinition;
 import org.arend.core.definition.UniverseKind;
@@ -14,6 +15,7 @@ import java.util.List;
 
 import static org.arend.ExpressionFactory.Pi;
 import static org.arend.ExpressionFactory.fromPiParameters;
+import static org.arend.core.expr.ExpressionFactory.Interval;
 import static org.arend.core.expr.ExpressionFactory.Nat;
 import static org.junit.Assert.*;
 
@@ -33,6 +35,31 @@ public class DefinitionTest extends TypeCheckingTestCase {
     assertEquals(Nat(), typedDef.getTypeWithParams(new ArrayList<>(), LevelPair.SET0));
   }
 
+  @Test
+  public void parameterTelescope() {
+    FunctionDefinition typedDef = (FunctionDefinition) typeCheckDef("\\func f {A : \\Type} (x y : A) {n : Nat} (z : Nat) => x");
+    Telescope telescope = typedDef.getParameterTelescope();
+    assertSame(telescope, typedDef.getParameterTelescope());
+    assertSame(typedDef.getParameters(), telescope.getFirst());
+    assertEquals(5, telescope.size());
+    assertEquals(DependentLink.Helper.toList(typedDef.getParameters()), telescope.toList());
+    assertEquals(3, telescope.getNumberOfExplicit());
+    assertFalse(telescope.isExplicit(0));
+    assertTrue(telescope.isExplicit(2));
+    assertFalse(telescope.isExplicit(3));
+    assertEquals(Nat(), telescope.getType(4));
+    assertSame(telescope.get(3), telescope.getLink(3));
+    assertFalse(telescope.getLink(5).hasNext());
+
+    DependentLink link = telescope.get(4);
+    link.setType(Interval());
+    assertSame(telescope, typedDef.getParameterTelescope());
+    assertEquals(Interval(), telescope.getType(4));
+    link.setExplicit(false);
+    assertFalse(telescope.isExplicit(4));
+    assertEquals(2, telescope.getNumberOfExplicit());
+  }
+
   @Test
   public void functionWithArgs() {
     FunctionDefinition typedDef = (FunctionDefinition) typeCheckDef("\\func f (x : Nat) (y : Nat -> Nat) => y");
@@ -413,4 +413,16 @@ public class ImplicitArgumentsTest extends TypeCheckingTestCase {
       "\\func f {n : Nat} {g : Nat -> Nat} (p : g = (\\lam x => n)) => 0\n" +
       "\\func h => f (path (\\lam _ x => x))", 1);
   }
+
+  @Test
+  public void manyEquations() {
+    StringBuilder builder = new StringBuilder(
+      "\\func \\infixr 9 *> {A : \\Type} {a a' a'' : A} (p : a = a') (q : a' = a'') : a = a'' \\elim q\n" +
+      "  | idp => p\n" +
+      "\\func test : 0 = 0 => idp");
+    for (int i = 0; i < 50; i++) {
+      builder.append(" *> idp");
+    }
+    typeCheckModule(builder.toString());
+  }
 }
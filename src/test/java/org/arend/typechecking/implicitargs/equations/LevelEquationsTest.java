@@ -0,0 +1,112 @@
+package org.arend.typechecking.implicitargs.equations;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LevelEquationsTest {
+  @Test
+  public void incrementalSolve() {
+    LevelEquations<String> equations = new LevelEquations<>();
+    equations.addVariable("x");
+    equations.addVariable("y");
+    equations.addVariable("z");
+    equations.addEquation(new LevelEquation<>(null, "x", -1));
+    equations.addEquation(new LevelEquation<>("x", "y", -2));
+
+    Map<String, Integer> solution = new HashMap<>();
+    assertNull(equations.solve(solution));
+    assertEquals(Integer.valueOf(-1), solution.get("x"));
+    assertEquals(Integer.valueOf(-3), solution.get("y"));
+    assertEquals(Integer.valueOf(0), solution.get("z"));
+
+    equations.addEquation(new LevelEquation<>("y", "z", 0));
+    equations.addEquation(new LevelEquation<>(null, "x", -4));
+    assertNull(equations.solve(solution));
+    assertEquals(Integer.valueOf(-4), solution.get("x"));
+    assertEquals(Integer.valueOf(-6), solution.get("y"));
+    assertEquals(Integer.valueOf(-6), solution.get("z"));
+
+    equations.addEquation(new LevelEquation<>("x"));
+    assertNull(equations.solve(solution));
+    assertEquals(Integer.valueOf(LevelEquations.INFINITY), solution.get("z"));
+  }
+
+  @Test
+  public void cycle() {
+    LevelEquations<String> equations = new LevelEquations<>();
+    equations.addVariable("x");
+    equations.addVariable("y");
+    equations.addEquation(new LevelEquation<>("x", "y", -1));
+    assertNull(equations.solve(new HashMap<>()));
+
+    LevelEquation<String> equation = new LevelEquation<>("y", "x", 0);
+    equations.addEquation(equation);
+    List<LevelEquation<String>> cycle = equations.solve(new HashMap<>());
+    assertNotNull(cycle);
+    assertTrue(cycle.contains(equation));
+
+    equations.removeEquations(eq -> eq == equation);
+    assertNull(equations.solve(new HashMap<>()));
+  }
+
+  @Test
+  public void maxConstant() {
+    LevelEquations<String> equations = new LevelEquations<>();
+    equations.addVariable("x");
+    equations.addVariable("y");
+    equations.addEquation(new LevelEquation<>("x", "y", -1, 1));
+    Map<String, Integer> solution = new HashMap<>();
+    assertNull(equations.solve(solution));
+    assertEquals(Integer.valueOf(0), solution.get("y"));
+
+    equations.addEquation(new LevelEquation<>(null, "x", -2));
+    assertNull(equations.solve(solution));
+    assertEquals(Integer.valueOf(-3), solution.get("y"));
+  }
+
+  @Test
+  public void acyclicWithRepeatedUpdates() {
+    LevelEquations<String> equations = new LevelEquations<>();
+    for (int i = 0; i < 4; i++) {
+      equations.addVariable("v" + i);
+    }
+    equations.addEquation(new LevelEquation<>("v1", "v0", -4));
+    equations.addEquation(new LevelEquation<>("v1", "v0", -3));
+    equations.addEquation(new LevelEquation<>("v3", "v2", -2));
+    equations.addEquation(new LevelEquation<>("v1", "v0", 0));
+    equations.addEquation(new LevelEquation<>("v1", "v0", -3));
+    equations.addEquation(new LevelEquation<>("v1", "v0", -2));
+    equations.addEquation(new LevelEquation<>("v2", "v1", -2));
+    assertNull(equations.solve(new HashMap<>()));
+  }
+
+  @Test
+  public void randomAcyclic() {
+    Random random = new Random(0);
+    for (int k = 0; k < 2000; k++) {
+      LevelEquations<Integer> equations = new LevelEquations<>();
+      int size = 2 + random.nextInt(4);
+      for (int i = 0; i < size; i++) {
+        equations.addVariable(i);
+      }
+      int number = random.nextInt(20);
+      for (int i = 0; i < number; i++) {
+        int from = random.nextInt(size);
+        int to = random.nextInt(size);
+        if (from == to) continue;
+        // Edges go from greater variables to smaller ones, so there are no cycles
+        equations.addEquation(new LevelEquation<>(Math.max(from, to), Math.min(from, to), -random.nextInt(6)));
+        if (random.nextInt(3) == 0) {
+          assertNull(equations.solve(new HashMap<>()));
+        }
+      }
+      assertNull(equations.solve(new HashMap<>()));
+    }
+  }
+}
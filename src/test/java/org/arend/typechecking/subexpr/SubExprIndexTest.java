@@ -0,0 +1,79 @@
+package org.arend.typechecking.subexpr;
+
+import org.arend.core.definition.Definition;
+import org.arend.frontend.parser.Position;
+import org.arend.term.concrete.Concrete;
+import org.arend.typechecking.TypeCheckingTestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SubExprIndexTest extends TypeCheckingTestCase {
+  // Definitions in these tests occupy a single line and pretty printed expressions coincide with their sources
+  private static final SubExprIndex.RangeProvider RANGES = node -> {
+    if (!(node.getData() instanceof Position)) return null;
+    int start = ((Position) node.getData()).column - 1;
+    return new SubExprIndex.Range(start, start + node.toString().length());
+  };
+
+  private static int offset(String text, String subText) {
+    int offset = text.indexOf(subText);
+    assertTrue(offset >= 0);
+    return offset;
+  }
+
+  @Test
+  public void findByPosition() {
+    String text = "\\func f (a : Nat) : Nat => suc (suc a)";
+    var referable = resolveNamesDef(text);
+    Definition definition = typeCheckDef(referable);
+    SubExprIndex index = SubExprIndex.build((Concrete.Definition) referable.getDefinition(), definition, RANGES);
+
+    var entry = index.find(offset(text, "a)"));
+    assertNotNull(entry);
+    assertEquals("a", entry.getConcrete().toString());
+    assertEquals("a", entry.getCore().toString());
+    assertEquals("Nat", String.valueOf(entry.getType()));
+
+    entry = index.find(offset(text, "suc a"));
+    assertNotNull(entry);
+    assertEquals("suc a", entry.getCore().toString());
+
+    entry = index.find(offset(text, "suc (suc"));
+    assertNotNull(entry);
+    assertEquals("suc (suc a)", entry.getCore().toString());
+
+    entry = index.find(offset(text, ": Nat)") + 2);
+    assertNotNull(entry);
+    assertEquals("Nat", entry.getConcrete().toString());
+
+    assertNull(index.find(0));
+    assertNull(index.find(text.length()));
+  }
+
+  @Test
+  public void findByConcrete() {
+    var referable = resolveNamesDef("\\func f => \\lam (x : Nat) => x");
+    Definition definition = typeCheckDef(referable);
+    SubExprIndex index = SubExprIndex.build((Concrete.Definition) referable.getDefinition(), definition, RANGES);
+    var lam = (Concrete.LamExpression) ((Concrete.FunctionDefinition) referable.getDefinition()).getBody().getTerm();
+    assertNotNull(lam);
+    var entry = index.find(lam.getBody());
+    assertNotNull(entry);
+    assertEquals("x", entry.getCore().toString());
+    assertSame(entry, index.find(entry.getRange().start));
+  }
+
+  @Test
+  public void cacheInvalidation() {
+    var referable = resolveNamesDef("\\func f => 0");
+    typeCheckDef(referable);
+    SubExprIndexCache cache = new SubExprIndexCache(RANGES);
+    Concrete.Definition definition = (Concrete.Definition) referable.getDefinition();
+    SubExprIndex index = cache.getIndex(definition);
+    assertNotNull(index);
+    assertSame(index, cache.getIndex(definition));
+    cache.invalidate(definition.getData());
+    assertNotSame(index, cache.getIndex(definition));
+  }
+}